@@ -38,9 +38,14 @@ dependencies {
 	// (Optional) Jackson Annotations — sometimes required for features like @JsonProperty
 	implementation("com.fasterxml.jackson.core:jackson-annotations:2.17.1")
 
+	// Generates the entity index and mappers at compile time (see processor/)
+	annotationProcessor(project(":processor"))
+
 	implementation("org.reflections:reflections:0.10.2")
 	implementation("org.json:json:20231013")
 	implementation("org.postgresql:postgresql:42.7.2")
+	implementation("com.zaxxer:HikariCP")
+	implementation("com.github.ben-manes.caffeine:caffeine")
 	implementation("io.jsonwebtoken:jjwt-api:0.11.5")
 	runtimeOnly("io.jsonwebtoken:jjwt-impl:0.11.5")
 	runtimeOnly("io.jsonwebtoken:jjwt-jackson:0.11.5") // for JSON parsing
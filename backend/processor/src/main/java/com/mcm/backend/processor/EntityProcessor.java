@@ -0,0 +1,479 @@
+package com.mcm.backend.processor;
+
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.ReturnTree;
+import com.sun.source.tree.StatementTree;
+import com.sun.source.util.Trees;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Compile-time counterpart of {@code TableEntity.validateEntity} and {@code EntityMapper}.
+ * <p>
+ * For every {@code @TableName} entity it
+ * <ul>
+ *     <li>reports mis-annotated entities as compile errors (the checks of {@code TableEntity.validateEntity}, plus
+ *     matching {@code @TableConstructor} parameter types),</li>
+ *     <li>generates {@code <Entity>_Mapper}, a {@code GeneratedMapper} that calls the constructor and reads the
+ *     columns with plain Java: non-private fields directly, private ones through a getter that only returns the
+ *     field,</li>
+ * </ul>
+ * and it generates {@code GeneratedEntityIndex}, the list of all entities, so startup needs no classpath scan.
+ * <p>
+ * The annotations are referenced by name, so the processor does not depend on the application classes.
+ */
+@SupportedAnnotationTypes({
+        EntityProcessor.TABLE_NAME,
+        EntityProcessor.TABLE_COLUMN,
+        EntityProcessor.TABLE_CONSTRUCTOR,
+        EntityProcessor.PRIMARY_KEY,
+        EntityProcessor.FOREIGN_KEY,
+        EntityProcessor.VERSION
+})
+public class EntityProcessor extends AbstractProcessor {
+
+    private static final String ANNOTATIONS = "com.mcm.backend.app.database.core.annotations.table.";
+    static final String TABLE_NAME = ANNOTATIONS + "TableName";
+    static final String TABLE_COLUMN = ANNOTATIONS + "TableColumn";
+    static final String TABLE_CONSTRUCTOR = ANNOTATIONS + "TableConstructor";
+    static final String PRIMARY_KEY = ANNOTATIONS + "PrimaryKey";
+    static final String FOREIGN_KEY = ANNOTATIONS + "ForeignKey";
+    static final String VERSION = ANNOTATIONS + "Version";
+
+    private static final String TABLE_ENTITY = "com.mcm.backend.app.database.core.components.tables.TableEntity";
+    private static final String GENERATED_MAPPER = "com.mcm.backend.app.database.core.components.tables.GeneratedMapper";
+    private static final String ENTITY_INDEX = "com.mcm.backend.app.database.core.factories.EntityIndex";
+    private static final String INDEX_PACKAGE = "com.mcm.backend.app.database.core.factories";
+    private static final String INDEX_NAME = "GeneratedEntityIndex";
+
+    // Must match GeneratedMapper.find
+    private static final String MAPPER_SUFFIX = "_Mapper";
+
+    private Elements elements;
+    private Types types;
+    private Messager messager;
+    private Trees trees;
+
+    private final Set<String> entities = new TreeSet<>();
+    private boolean indexWritten;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        this.messager = processingEnv.getMessager();
+        try {
+            this.trees = Trees.instance(processingEnv);
+        } catch (IllegalArgumentException e) {
+            // Not running inside javac: getters cannot be inspected, private fields fall back to method handles
+            this.trees = null;
+        }
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        TypeElement tableName = elements.getTypeElement(TABLE_NAME);
+        TypeElement tableEntity = elements.getTypeElement(TABLE_ENTITY);
+        if (tableName == null || tableEntity == null || round.processingOver()) {
+            return false;
+        }
+
+        boolean found = false;
+        for (TypeElement type : ElementFilter.typesIn(round.getElementsAnnotatedWith(tableName))) {
+            found = true;
+            if (validate(type, tableEntity)) {
+                entities.add(type.getQualifiedName().toString());
+                if (isAccessible(type)) {
+                    writeMapper(type);
+                } else {
+                    messager.printMessage(Diagnostic.Kind.NOTE, "No mapper generated for " + type.getQualifiedName() +
+                            ": the entity or its @TableConstructor is private", type);
+                }
+            }
+        }
+
+        checkOwners(round);
+        for (TypeElement type : ElementFilter.typesIn(round.getRootElements())) {
+            checkImplementations(type, tableEntity);
+        }
+
+        if (found && !indexWritten) {
+            writeIndex();
+            indexWritten = true;
+        }
+        return false;
+    }
+
+    // ---- validation ----
+
+    private boolean validate(TypeElement type, TypeElement tableEntity) {
+        boolean valid = true;
+        String name = type.getQualifiedName().toString();
+
+        if (!types.isAssignable(type.asType(), types.erasure(tableEntity.asType()))) {
+            error(type, "Entity class " + name + " annotated @TableName must implement TableEntity");
+            valid = false;
+        }
+
+        List<VariableElement> columns = getColumns(type);
+        List<VariableElement> pkFields = ElementFilter.fieldsIn(type.getEnclosedElements()).stream()
+                .filter(f -> hasAnnotation(f, PRIMARY_KEY))
+                .toList();
+        if (pkFields.size() > 1) {
+            error(type, "Entity class " + name + " must have exactly one @PrimaryKey annotation on a field");
+            valid = false;
+        } else if (pkFields.size() == 1) {
+            if (!hasAnnotation(pkFields.get(0), TABLE_COLUMN)) {
+                error(pkFields.get(0), "Primary key field " + pkFields.get(0).getSimpleName() +
+                        " in " + name + " must be annotated @TableColumn");
+                valid = false;
+            }
+        } else {
+            List<ExecutableElement> pkMethods = ElementFilter.methodsIn(type.getEnclosedElements()).stream()
+                    .filter(m -> hasAnnotation(m, PRIMARY_KEY))
+                    .toList();
+            if (pkMethods.size() != 1) {
+                error(type, "Entity class " + name + " must have exactly one @PrimaryKey annotation");
+                valid = false;
+            } else if (!pkMethods.get(0).getParameters().isEmpty()) {
+                error(pkMethods.get(0), "Primary key method " + pkMethods.get(0).getSimpleName() +
+                        " in " + name + " must have no parameters");
+                valid = false;
+            }
+        }
+
+        List<VariableElement> versionFields = ElementFilter.fieldsIn(type.getEnclosedElements()).stream()
+                .filter(f -> hasAnnotation(f, VERSION))
+                .toList();
+        if (versionFields.size() > 1) {
+            error(type, "Entity class " + name + " must have at most one @Version field");
+            valid = false;
+        } else if (versionFields.size() == 1) {
+            VariableElement versionField = versionFields.get(0);
+            if (pkFields.size() != 1 || pkFields.get(0).equals(versionField)) {
+                error(versionField, "@Version field " + versionField.getSimpleName() + " in " + name +
+                        " requires a separate @PrimaryKey field");
+                valid = false;
+            } else if (!hasAnnotation(versionField, TABLE_COLUMN)
+                    || versionField.getModifiers().contains(Modifier.FINAL)
+                    || !(isType(versionField, "java.lang.Long") || isType(versionField, "java.lang.Integer"))) {
+                error(versionField, "@Version field " + versionField.getSimpleName() + " in " + name +
+                        " must be a non-final Long or Integer @TableColumn");
+                valid = false;
+            }
+        }
+
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            if (hasAnnotation(field, FOREIGN_KEY)
+                    && !types.isAssignable(types.erasure(field.asType()), types.erasure(tableEntity.asType()))) {
+                error(field, "Field " + field.getSimpleName() + " in " + name +
+                        " annotated @ForeignKey must have a type implementing TableEntity");
+                valid = false;
+            }
+            if (hasAnnotation(field, TABLE_COLUMN) && field.asType().getKind().isPrimitive()) {
+                error(field, "Field " + field.getSimpleName() + " in " + name +
+                        " annotated @TableColumn must not be a primitive type");
+                valid = false;
+            }
+        }
+
+        List<ExecutableElement> constructors = getTableConstructors(type);
+        if (constructors.size() != 1) {
+            error(type, "Entity class " + name + " must have exactly one constructor annotated @TableConstructor");
+            return false;
+        }
+        List<? extends VariableElement> parameters = constructors.get(0).getParameters();
+        if (parameters.size() != columns.size()) {
+            error(constructors.get(0), "Constructor parameter count (" + parameters.size() +
+                    ") does not match field count (" + columns.size() + ")");
+            return false;
+        }
+        for (int i = 0; i < parameters.size(); i++) {
+            TypeMirror parameterType = types.erasure(parameters.get(i).asType());
+            TypeMirror columnType = types.erasure(columns.get(i).asType());
+            if (!types.isSameType(parameterType, columnType)) {
+                error(parameters.get(i), "Parameter " + (i + 1) + " of the @TableConstructor of " + name +
+                        " is " + parameterType + " but column field " + columns.get(i).getSimpleName() +
+                        " is " + columnType + " (parameters follow the field declaration order)");
+                valid = false;
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Column annotations only have an effect on entities.
+     */
+    private void checkOwners(RoundEnvironment round) {
+        for (String annotationName : List.of(TABLE_COLUMN, TABLE_CONSTRUCTOR, PRIMARY_KEY, FOREIGN_KEY, VERSION)) {
+            TypeElement annotation = elements.getTypeElement(annotationName);
+            if (annotation == null) {
+                continue;
+            }
+            for (Element member : round.getElementsAnnotatedWith(annotation)) {
+                Element owner = member.getEnclosingElement();
+                if (owner instanceof TypeElement && !hasAnnotation(owner, TABLE_NAME)) {
+                    error(member, "@" + annotation.getSimpleName() + " on " + owner + ", which is missing @TableName");
+                }
+            }
+        }
+    }
+
+    /**
+     * Every concrete TableEntity needs @TableName (the DAO layer cannot map it otherwise).
+     */
+    private void checkImplementations(TypeElement type, TypeElement tableEntity) {
+        if (type.getKind() == ElementKind.CLASS || type.getKind() == ElementKind.RECORD) {
+            if (!type.getModifiers().contains(Modifier.ABSTRACT)
+                    && types.isAssignable(type.asType(), types.erasure(tableEntity.asType()))
+                    && !hasAnnotation(type, TABLE_NAME)) {
+                error(type, "Entity class " + type.getQualifiedName() + " is missing @TableName");
+            }
+        }
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            checkImplementations(nested, tableEntity);
+        }
+    }
+
+    // ---- generation ----
+
+    private void writeMapper(TypeElement type) {
+        String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(type).toString();
+        String simpleName = binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1).replace('$', '_')
+                + MAPPER_SUFFIX;
+        String entity = type.getQualifiedName().toString();
+
+        List<VariableElement> columns = getColumns(type);
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n * Generated by {@code ").append(EntityProcessor.class.getName()).append("}, do not edit.\n */\n");
+        source.append("@javax.annotation.processing.Generated(\"").append(EntityProcessor.class.getName()).append("\")\n");
+        source.append("public final class ").append(simpleName)
+                .append(" implements ").append(GENERATED_MAPPER).append("<").append(entity).append("> {\n\n");
+
+        source.append("    private static final java.util.List<java.util.function.Function<Object, Object>> GETTERS =\n")
+                .append("            java.util.Arrays.<java.util.function.Function<Object, Object>>asList(");
+        for (int i = 0; i < columns.size(); i++) {
+            String getter = getterExpression(type, columns.get(i));
+            source.append(i == 0 ? "\n" : ",\n").append("                    ")
+                    .append(getter == null ? "null" : "entity -> " + getter);
+        }
+        source.append(");\n\n");
+
+        source.append("    @Override\n")
+                .append("    @SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+                .append("    public ").append(entity).append(" instantiate(Object[] args) {\n")
+                .append("        return new ").append(entity).append("(");
+        for (int i = 0; i < columns.size(); i++) {
+            source.append(i == 0 ? "\n" : ",\n").append("                (")
+                    .append(types.erasure(columns.get(i).asType())).append(") args[").append(i).append("]");
+        }
+        source.append(");\n    }\n\n");
+
+        source.append("    @Override\n")
+                .append("    public java.util.function.Function<Object, Object> getter(int columnIndex) {\n")
+                .append("        return GETTERS.get(columnIndex);\n")
+                .append("    }\n\n");
+
+        String primaryKey = primaryKeyExpression(type, columns);
+        source.append("    @Override\n")
+                .append("    public java.util.function.Function<Object, Object> primaryKeyGetter() {\n")
+                .append("        return ").append(primaryKey == null ? "null" : "entity -> " + primaryKey).append(";\n")
+                .append("    }\n");
+        source.append("}\n");
+
+        write(packageName.isEmpty() ? simpleName : packageName + "." + simpleName, source.toString(), type);
+    }
+
+    private void writeIndex() {
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(INDEX_PACKAGE).append(";\n\n");
+        source.append("/**\n * Generated by {@code ").append(EntityProcessor.class.getName()).append("}, do not edit.\n */\n");
+        source.append("@javax.annotation.processing.Generated(\"").append(EntityProcessor.class.getName()).append("\")\n");
+        source.append("public final class ").append(INDEX_NAME).append(" implements ").append(ENTITY_INDEX).append(" {\n\n");
+        source.append("    @Override\n")
+                .append("    public java.util.List<Class<? extends ").append(TABLE_ENTITY).append(">> entityClasses() {\n")
+                .append("        return java.util.List.of(");
+        boolean first = true;
+        for (String entity : entities) {
+            source.append(first ? "\n" : ",\n").append("                ").append(entity).append(".class");
+            first = false;
+        }
+        source.append(");\n    }\n}\n");
+
+        write(INDEX_PACKAGE + "." + INDEX_NAME, source.toString());
+    }
+
+    private void write(String className, String source, Element... originatingElements) {
+        try (Writer writer = processingEnv.getFiler().createSourceFile(className, originatingElements).openWriter()) {
+            writer.write(source);
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Failed to write " + className + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return a Java expression reading the column from {@code entity}, or {@code null} if only reflection can
+     */
+    private String getterExpression(TypeElement type, VariableElement field) {
+        String cast = "((" + type.getQualifiedName() + ") entity)";
+        if (!field.getModifiers().contains(Modifier.PRIVATE)) {
+            return cast + "." + field.getSimpleName();
+        }
+        for (RecordComponentElement component : ElementFilter.recordComponentsIn(type.getEnclosedElements())) {
+            ExecutableElement accessor = component.getAccessor();
+            // Implicit record accessors (no source tree) just return the field; explicit ones are checked below
+            if (component.getSimpleName().contentEquals(field.getSimpleName())
+                    && trees != null && trees.getTree(accessor) == null) {
+                return cast + "." + accessor.getSimpleName() + "()";
+            }
+        }
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (!method.getModifiers().contains(Modifier.PRIVATE)
+                    && !method.getModifiers().contains(Modifier.STATIC)
+                    && method.getParameters().isEmpty()
+                    && types.isSameType(method.getReturnType(), field.asType())
+                    && returnsField(method, field)) {
+                return cast + "." + method.getSimpleName() + "()";
+            }
+        }
+        return null;
+    }
+
+    private String primaryKeyExpression(TypeElement type, List<VariableElement> columns) {
+        for (VariableElement column : columns) {
+            if (hasAnnotation(column, PRIMARY_KEY)) {
+                return getterExpression(type, column);
+            }
+        }
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (hasAnnotation(method, PRIMARY_KEY) && !method.getModifiers().contains(Modifier.PRIVATE)) {
+                return "((" + type.getQualifiedName() + ") entity)." + method.getSimpleName() + "()";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Getters may validate or convert, so only {@code return field;} (or {@code return this.field;}) bodies are
+     * used in place of the field.
+     */
+    private boolean returnsField(ExecutableElement method, VariableElement field) {
+        if (trees == null) {
+            return false;
+        }
+        MethodTree tree = trees.getTree(method);
+        if (tree == null || tree.getBody() == null || tree.getBody().getStatements().size() != 1) {
+            return false;
+        }
+        StatementTree statement = tree.getBody().getStatements().get(0);
+        if (!(statement instanceof ReturnTree returnStatement)) {
+            return false;
+        }
+        ExpressionTree expression = returnStatement.getExpression();
+        if (expression instanceof IdentifierTree identifier) {
+            return identifier.getName().contentEquals(field.getSimpleName());
+        }
+        return expression instanceof MemberSelectTree select
+                && select.getIdentifier().contentEquals(field.getSimpleName())
+                && select.getExpression() instanceof IdentifierTree target
+                && target.getName().contentEquals("this");
+    }
+
+    // ---- helpers ----
+
+    /**
+     * @return the {@code @TableColumn} fields in declaration order (== {@code @TableConstructor} parameter order)
+     */
+    private List<VariableElement> getColumns(TypeElement type) {
+        List<VariableElement> columns = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            if (hasAnnotation(field, TABLE_COLUMN)) {
+                columns.add(field);
+            }
+        }
+        return columns;
+    }
+
+    private List<ExecutableElement> getTableConstructors(TypeElement type) {
+        return ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+                .filter(c -> hasAnnotation(c, TABLE_CONSTRUCTOR))
+                .toList();
+    }
+
+    /**
+     * The generated mapper lives in the entity's package, so the entity (and its enclosing types) and its
+     * {@code @TableConstructor} must be visible there.
+     */
+    private boolean isAccessible(TypeElement type) {
+        if (getTableConstructors(type).get(0).getModifiers().contains(Modifier.PRIVATE)) {
+            return false;
+        }
+        Element current = type;
+        while (current instanceof TypeElement element) {
+            if (element.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (element.getNestingKind() == NestingKind.MEMBER && !element.getModifiers().contains(Modifier.STATIC)
+                    && element.getKind() == ElementKind.CLASS) {
+                return false;
+            }
+            if (element.getNestingKind() == NestingKind.LOCAL || element.getNestingKind() == NestingKind.ANONYMOUS) {
+                return false;
+            }
+            current = element.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private static boolean hasAnnotation(Element element, String annotationName) {
+        return element.getAnnotationMirrors().stream()
+                .anyMatch(a -> ((TypeElement) a.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName));
+    }
+
+    private boolean isType(Element element, String qualifiedName) {
+        TypeElement type = elements.getTypeElement(qualifiedName);
+        return type != null && types.isSameType(element.asType(), type.asType());
+    }
+
+    private void error(Element element, String message) {
+        messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,152 @@
+package com.mcm.backend.processor;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Unit tests for the compile-time entity checks of EntityProcessor.
+ *
+ * <p>Each test compiles a small entity together with stand-ins for the table annotations (the processor only knows
+ * them by name) and inspects the errors the processor reports.</p>
+ */
+class EntityProcessorTest {
+
+    private static final String ANNOTATIONS = "com.mcm.backend.app.database.core.annotations.table";
+
+    @TempDir
+    Path output;
+
+    /**
+     * Scenario 1: a Long @Version column next to a field primary key passes.
+     */
+    @Test
+    void numericVersionColumnPasses() {
+        List<String> errors = compile("""
+                @TableName("versioned") public class Entity implements TableEntity {
+                    @PrimaryKey @TableColumn private final java.util.UUID id;
+                    @TableColumn @Version private Long version;
+                    @TableConstructor public Entity(java.util.UUID id, Long version) { this.id = id; this.version = version; }
+                }
+                """);
+        Assertions.assertTrue(errors.stream().noneMatch(e -> e.contains("@Version")), errors::toString);
+    }
+
+    /**
+     * Scenario 2: a String @Version column is reported.
+     */
+    @Test
+    void versionColumnMustBeNumeric() {
+        List<String> errors = compile("""
+                @TableName("versioned") public class Entity implements TableEntity {
+                    @PrimaryKey @TableColumn private final java.util.UUID id;
+                    @TableColumn @Version private String version;
+                    @TableConstructor public Entity(java.util.UUID id, String version) { this.id = id; this.version = version; }
+                }
+                """);
+        assertReported(errors, "@Version field version in test.Entity must be a non-final Long or Integer @TableColumn");
+    }
+
+    /**
+     * Scenario 3: a final @Version column is reported.
+     */
+    @Test
+    void versionColumnMustNotBeFinal() {
+        List<String> errors = compile("""
+                @TableName("versioned") public class Entity implements TableEntity {
+                    @PrimaryKey @TableColumn private final java.util.UUID id;
+                    @TableColumn @Version private final Long version;
+                    @TableConstructor public Entity(java.util.UUID id, Long version) { this.id = id; this.version = version; }
+                }
+                """);
+        assertReported(errors, "@Version field version in test.Entity must be a non-final Long or Integer @TableColumn");
+    }
+
+    /**
+     * Scenario 4: two @Version columns are reported.
+     */
+    @Test
+    void atMostOneVersionColumn() {
+        List<String> errors = compile("""
+                @TableName("versioned") public class Entity implements TableEntity {
+                    @PrimaryKey @TableColumn private final java.util.UUID id;
+                    @TableColumn @Version private Long version;
+                    @TableColumn @Version private Long revision;
+                    @TableConstructor public Entity(java.util.UUID id, Long version, Long revision) {
+                        this.id = id; this.version = version; this.revision = revision;
+                    }
+                }
+                """);
+        assertReported(errors, "Entity class test.Entity must have at most one @Version field");
+    }
+
+    /**
+     * Scenario 5: the version cannot be the primary key itself.
+     */
+    @Test
+    void versionColumnRequiresSeparatePrimaryKey() {
+        List<String> errors = compile("""
+                @TableName("versioned") public class Entity implements TableEntity {
+                    @PrimaryKey @TableColumn @Version private Long version;
+                    @TableConstructor public Entity(Long version) { this.version = version; }
+                }
+                """);
+        assertReported(errors, "@Version field version in test.Entity requires a separate @PrimaryKey field");
+    }
+
+    private static void assertReported(List<String> errors, String expected) {
+        Assertions.assertTrue(errors.contains(expected), () -> "Expected \"" + expected + "\" in " + errors);
+    }
+
+    /**
+     * Runs only the processor (no class files) and returns the messages of the reported errors.
+     */
+    private List<String> compile(String entityBody) {
+        List<JavaFileObject> sources = new ArrayList<>();
+        for (String annotation : List.of("TableName", "TableColumn", "TableConstructor", "PrimaryKey", "ForeignKey", "Version")) {
+            String value = annotation.equals("TableName") ? "String value();" : "";
+            sources.add(source(ANNOTATIONS + "." + annotation, "package " + ANNOTATIONS + ";\n" +
+                    "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n" +
+                    "public @interface " + annotation + " { " + value + " }\n"));
+        }
+        sources.add(source("com.mcm.backend.app.database.core.components.tables.TableEntity",
+                "package com.mcm.backend.app.database.core.components.tables;\npublic interface TableEntity {}\n"));
+        sources.add(source("test.Entity", "package test;\n" +
+                "import " + ANNOTATIONS + ".*;\n" +
+                "import com.mcm.backend.app.database.core.components.tables.TableEntity;\n" + entityBody));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics,
+                List.of("-proc:only", "-d", output.toString(), "-s", output.toString()), null, sources);
+        task.setProcessors(List.of(new EntityProcessor()));
+        task.call();
+
+        return diagnostics.getDiagnostics().stream()
+                .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+                .map(d -> d.getMessage(Locale.ROOT))
+                .toList();
+    }
+
+    private static JavaFileObject source(String className, String code) {
+        URI uri = URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension);
+        return new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+}
@@ -1 +1,2 @@
 rootProject.name = "minecraft-manager-backend"
+include("processor")
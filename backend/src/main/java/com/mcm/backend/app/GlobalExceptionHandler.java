@@ -1,7 +1,10 @@
 package com.mcm.backend.app;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.mcm.backend.exceptions.DatabaseUnavailableException;
 import com.mcm.backend.exceptions.JsonErrorResponseException;
+import com.mcm.backend.exceptions.OptimisticLockException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -30,4 +33,19 @@ public class GlobalExceptionHandler {
                 .status(ex.getStatus())
                 .body(Map.of("error", ex.getMessage()));
     }
-}
\ No newline at end of file
+
+    @ExceptionHandler(DatabaseUnavailableException.class)
+    public ResponseEntity<Map<String, String>> handleDatabaseUnavailableException(DatabaseUnavailableException ex) {
+        logger.warn("Database unavailable: {}", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(OptimisticLockException.class)
+    public ResponseEntity<Map<String, String>> handleOptimisticLockException(OptimisticLockException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", ex.getMessage()));
+    }
+}
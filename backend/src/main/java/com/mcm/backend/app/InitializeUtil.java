@@ -2,10 +2,14 @@ package com.mcm.backend.app;
 
 import com.mcm.backend.app.api.utils.PasswordHashUtil;
 import com.mcm.backend.app.database.core.components.Database;
+import com.mcm.backend.app.database.core.components.daos.ChangeNotifier;
 import com.mcm.backend.app.database.core.components.daos.DAO;
 import com.mcm.backend.app.database.core.components.daos.querying.QueryBuilder;
 import com.mcm.backend.app.database.core.components.tables.TableEntity;
 import com.mcm.backend.app.database.core.factories.DAOFactory;
+import com.mcm.backend.app.database.core.factories.EntityIndex;
+import com.mcm.backend.app.database.core.factories.TableRegistry;
+import com.mcm.backend.app.database.models.roles.RoleLattice;
 import com.mcm.backend.app.database.models.users.Admin;
 import com.mcm.backend.app.database.models.users.User;
 import org.reflections.Reflections;
@@ -25,13 +29,25 @@ public class InitializeUtil {
         } catch (SQLException | NoSuchFieldException e) {
             throw new RuntimeException(e);
         }
+        RoleLattice.load();
+        ChangeNotifier.start();
     }
 
     /**
-     * Scan the classpath under the given base package for all TableEntity implementations
-     * and validate each one.
+     * Builds the table metadata of all TableEntity implementations ahead of the first request.
+     * <p>
+     * Entities are listed (and validated) at compile time by the entity processor; without its generated index the
+     * classpath under the models package is scanned and each entity is validated here.
      */
     private static void validateEntities() {
+        EntityIndex index = EntityIndex.load();
+        if (index != null) {
+            for (Class<? extends TableEntity> entityClass : index.entityClasses()) {
+                TableRegistry.getTable(entityClass);
+            }
+            return;
+        }
+
         // Adjust the base package to cover your entity classes
         Reflections reflections = new Reflections("com.mcm.backend.app.database.models");
         Set<Class<? extends TableEntity>> entities = reflections.getSubTypesOf(TableEntity.class);
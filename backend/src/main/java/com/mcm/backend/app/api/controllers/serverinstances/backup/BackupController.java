@@ -3,7 +3,7 @@ package com.mcm.backend.app.api.controllers.serverinstances.backup;
 import com.mcm.backend.app.api.utils.LoggingUtil;
 import com.mcm.backend.app.api.utils.annotations.CurrentUser;
 import com.mcm.backend.app.api.utils.annotations.RequireServerInstanceRole;
-import com.mcm.backend.app.database.core.components.Database;
+import com.mcm.backend.app.database.core.components.UnitOfWork;
 import com.mcm.backend.app.database.core.components.daos.DAO;
 import com.mcm.backend.app.database.core.components.daos.querying.QueryBuilder;
 import com.mcm.backend.app.database.core.factories.DAOFactory;
@@ -17,8 +17,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.sql.Connection;
-import java.sql.SQLException;
 import java.util.List;
 import java.util.UUID;
 
@@ -38,6 +36,8 @@ public class BackupController {
             try (DAO<Backup, UUID> backupDAO = DAOFactory.createDAO(Backup.class)) {
                 List<Backup> backups = new QueryBuilder<>(backupDAO)
                         .where(Backup.class.getDeclaredField("serverInstance"), serverInstanceId)
+                        .fetchJoin(Backup.class.getDeclaredField("serverInstance"))
+                        .fetchJoin(Backup.class.getDeclaredField("createdBy"))
                         .get();
 
                 return ResponseEntity.ok(backups);
@@ -48,30 +48,33 @@ public class BackupController {
     @PostMapping
     @RequireServerInstanceRole(Role.MAINTAINER)
     public ResponseEntity<?> createBackup(@PathVariable UUID serverInstanceId, @CurrentUser User user) throws JsonErrorResponseException, NoSuchFieldException {
+        ServerInstance serverInstance;
         try (DAO<ServerInstance, UUID> serverInstanceDAO = DAOFactory.createDAO(ServerInstance.class)) {
-            ServerInstance serverInstance = serverInstanceDAO.get(serverInstanceId);
+            serverInstance = serverInstanceDAO.get(serverInstanceId);
             if (serverInstance == null) {
                 throw new JsonErrorResponseException("Server instance not found", HttpStatus.NOT_FOUND);
             }
+        }
 
-            Backup backup = new Backup(serverInstance, user);
+        Backup backup = new Backup(serverInstance, user);
 
-            // Create new backup
-            backup.write();
+        // Don't hold a connection while the world is archived
+        UnitOfWork.releaseCurrent();
 
-            try (DAO<Backup, UUID> backupDAO = DAOFactory.createDAO(Backup.class)) {
-                backupDAO.add(backup);
+        // Create new backup
+        backup.write();
 
-                return ResponseEntity.ok(backup);
-            }
+        try (DAO<Backup, UUID> backupDAO = DAOFactory.createDAO(Backup.class)) {
+            backupDAO.add(backup);
+
+            return ResponseEntity.ok(backup);
         }
     }
 
     @PostMapping("/restore/{backupId}")
     @RequireServerInstanceRole(Role.MAINTAINER)
     public ResponseEntity<?> restoreBackup(@PathVariable UUID serverInstanceId, @PathVariable UUID backupId) throws JsonErrorResponseException, NoSuchFieldException {
-        try (Connection connection = Database.getConnection();
-             DAO<ServerInstance, UUID> serverInstanceDAO = DAOFactory.createDAO(connection, ServerInstance.class)) {
+        try (DAO<ServerInstance, UUID> serverInstanceDAO = DAOFactory.createDAO(ServerInstance.class)) {
 
             ServerInstance serverInstance = serverInstanceDAO.get(serverInstanceId);
             if (serverInstance == null) {
@@ -80,22 +83,23 @@ public class BackupController {
 
             Backup backup;
 
-            try (DAO<Backup, UUID> backupDAO = DAOFactory.createDAO(connection, Backup.class)) {
+            try (DAO<Backup, UUID> backupDAO = DAOFactory.createDAO(Backup.class)) {
                 backup = backupDAO.get(backupId);
                 if (backup == null) {
                     throw new JsonErrorResponseException("Backup not found", HttpStatus.NOT_FOUND);
                 }
             }
 
-            // Create new backup
+            // Don't hold a connection while the world is restored
+            UnitOfWork.releaseCurrent();
+
+            // Restore the backup
             backup.restore();
 
             // TODO Log
             // LoggingUtil.log(ActionType.Bac);
 
             return ResponseEntity.ok(backup);
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
         }
     }
 }
@@ -4,6 +4,7 @@ import com.mcm.backend.app.api.utils.process.LogEntry;
 import com.mcm.backend.app.api.utils.process.ProcessRegistry;
 import com.mcm.backend.app.api.utils.process.ProcessState;
 import com.mcm.backend.app.api.utils.process.ProcessStatus;
+import com.mcm.backend.app.database.core.components.UnitOfWork;
 import com.mcm.backend.app.database.core.components.daos.DAO;
 import com.mcm.backend.app.database.core.factories.DAOFactory;
 import com.mcm.backend.app.database.models.server.ServerInstance;
@@ -36,19 +37,20 @@ public class InitService {
             ps.getLogs().add(new LogEntry("→ building instance"));
             List<ServerInstanceProperty> properties = serverInstance.initialize(ps);
 
-            // Update EULA Accepted in DB
-            ps.getLogs().add(new LogEntry("→ updating initialization status to DB"));
-            try (DAO<ServerInstance, UUID> serverInstanceDAO = DAOFactory.createDAO(ServerInstance.class)) {
-                serverInstanceDAO.update(serverInstance);
-            }
+            // Persist the initialization status and the properties atomically
+            UnitOfWork.run(() -> {
+                // Update EULA Accepted in DB
+                ps.getLogs().add(new LogEntry("→ updating initialization status to DB"));
+                try (DAO<ServerInstance, UUID> serverInstanceDAO = DAOFactory.createDAO(ServerInstance.class)) {
+                    serverInstanceDAO.update(serverInstance);
+                }
 
-            // Save properties
-            ps.getLogs().add(new LogEntry("→ saving properties to DB"));
-            try (DAO<ServerInstanceProperty, UUID> serverInstancePropertyDAO = DAOFactory.createDAO(ServerInstanceProperty.class)) {
-                for (var property : properties) {
-                    serverInstancePropertyDAO.add(property);
+                // Save properties
+                ps.getLogs().add(new LogEntry("→ saving properties to DB"));
+                try (DAO<ServerInstanceProperty, UUID> serverInstancePropertyDAO = DAOFactory.createDAO(ServerInstanceProperty.class)) {
+                    serverInstancePropertyDAO.addAll(properties);
                 }
-            }
+            });
 
             // Complete initialization
             ps.getLogs().add(new LogEntry("Initialization complete"));
@@ -4,6 +4,7 @@ import com.mcm.backend.app.api.utils.LoggingUtil;
 import com.mcm.backend.app.api.utils.annotations.CurrentUser;
 import com.mcm.backend.app.api.utils.annotations.RequireServerInstanceRole;
 import com.mcm.backend.app.api.utils.requestbody.RequestBodyUtil;
+import com.mcm.backend.app.database.core.components.UnitOfWork;
 import com.mcm.backend.app.database.core.components.daos.DAO;
 import com.mcm.backend.app.database.core.factories.DAOFactory;
 import com.mcm.backend.app.database.models.logging.ActionType;
@@ -32,21 +33,25 @@ public class CommandController {
 
         String command = requestBodyUtil.getField("command", String.class);
 
+        ServerInstance serverInstance;
         try (DAO<ServerInstance, UUID> serverInstanceDAO = DAOFactory.createDAO(ServerInstance.class)) {
-            ServerInstance serverInstance = serverInstanceDAO.get(id);
+            serverInstance = serverInstanceDAO.get(id);
             if (serverInstance == null) {
                 throw new JsonErrorResponseException("Server Instance not found", HttpStatus.NOT_FOUND);
             }
+        }
 
-            if (!serverInstance.isRunning()) {
-                throw new JsonErrorResponseException("Server Instance not running", HttpStatus.CONFLICT);
-            }
+        if (!serverInstance.isRunning()) {
+            throw new JsonErrorResponseException("Server Instance not running", HttpStatus.CONFLICT);
+        }
 
-            String output = serverInstance.sendCommand(command);
+        // Don't hold a connection while waiting for RCON
+        UnitOfWork.releaseCurrent();
 
-            LoggingUtil.log(ActionType.EXECUTE_COMMAND, currentUser, serverInstance, Map.of("command", command));
+        String output = serverInstance.sendCommand(command);
 
-            return ResponseEntity.ok(Map.of("output", output));
-        }
+        LoggingUtil.logCompleted(ActionType.EXECUTE_COMMAND, currentUser, serverInstance, Map.of("command", command));
+
+        return ResponseEntity.ok(Map.of("output", output));
     }
 }
@@ -3,6 +3,7 @@ package com.mcm.backend.app.api.controllers.serverinstances.operational;
 import com.mcm.backend.app.api.utils.LoggingUtil;
 import com.mcm.backend.app.api.utils.annotations.CurrentUser;
 import com.mcm.backend.app.api.utils.annotations.RequireServerInstanceRole;
+import com.mcm.backend.app.database.core.components.UnitOfWork;
 import com.mcm.backend.app.database.core.components.daos.DAO;
 import com.mcm.backend.app.database.core.factories.DAOFactory;
 import com.mcm.backend.app.database.models.logging.ActionType;
@@ -26,29 +27,31 @@ public class StartController {
     @PostMapping
     @RequireServerInstanceRole(Role.OPERATOR)
     public ResponseEntity<?> startServer(@CurrentUser User currentUser, @PathVariable UUID id) throws JsonErrorResponseException {
+        ServerInstance serverInstance;
         try (DAO<ServerInstance, UUID> serverInstanceDAO = DAOFactory.createDAO(ServerInstance.class)) {
-
-            ServerInstance serverInstance = serverInstanceDAO.get(id);
+            serverInstance = serverInstanceDAO.get(id);
 
             if (serverInstance == null) {
                 throw new JsonErrorResponseException("Server Instance not found", HttpStatus.NOT_FOUND);
             }
+        }
 
-            if (!serverInstance.getEulaAccepted()) {
-                throw new JsonErrorResponseException("Server Instance not initialized", HttpStatus.CONFLICT);
-            }
+        if (!serverInstance.getEulaAccepted()) {
+            throw new JsonErrorResponseException("Server Instance not initialized", HttpStatus.CONFLICT);
+        }
 
-            // TODO Add check if port is available (both even and uneven)
+        // TODO Add check if port is available (both even and uneven)
 
-            // Start the server
-            serverInstance.start();
+        // Don't hold a connection while the server starts
+        UnitOfWork.releaseCurrent();
 
-            // Log the action
-            LoggingUtil.log(ActionType.START_SERVER, currentUser, serverInstance);
+        // Start the server
+        serverInstance.start();
 
-            // Return OK signal
-            return ResponseEntity.ok().build();
+        // Log the action
+        LoggingUtil.logCompleted(ActionType.START_SERVER, currentUser, serverInstance, null);
 
-        }
+        // Return OK signal
+        return ResponseEntity.ok().build();
     }
 }
@@ -4,6 +4,7 @@ package com.mcm.backend.app.api.controllers.serverinstances.operational;
 import com.mcm.backend.app.api.utils.LoggingUtil;
 import com.mcm.backend.app.api.utils.annotations.CurrentUser;
 import com.mcm.backend.app.api.utils.annotations.RequireServerInstanceRole;
+import com.mcm.backend.app.database.core.components.UnitOfWork;
 import com.mcm.backend.app.database.core.components.daos.DAO;
 import com.mcm.backend.app.database.core.factories.DAOFactory;
 import com.mcm.backend.app.database.models.logging.ActionType;
@@ -27,26 +28,29 @@ public class StopController {
     @PostMapping
     @RequireServerInstanceRole(Role.OPERATOR)
     public ResponseEntity<?> stopServer(@CurrentUser User currentUser, @PathVariable UUID id) throws JsonErrorResponseException {
+        ServerInstance serverInstance;
         try (DAO<ServerInstance, UUID> serverInstanceDAO = DAOFactory.createDAO(ServerInstance.class)) {
-
-            ServerInstance serverInstance = serverInstanceDAO.get(id);
+            serverInstance = serverInstanceDAO.get(id);
 
             if (serverInstance == null) {
                 throw new JsonErrorResponseException("Server Instance not found", HttpStatus.NOT_FOUND);
             }
+        }
 
-            if (!serverInstance.isRunning()) {
-                throw new JsonErrorResponseException("Server Instance not running", HttpStatus.CONFLICT);
-            }
+        if (!serverInstance.isRunning()) {
+            throw new JsonErrorResponseException("Server Instance not running", HttpStatus.CONFLICT);
+        }
 
-            // Stop the server
-            serverInstance.stop();
+        // Don't hold a connection while the server stops
+        UnitOfWork.releaseCurrent();
 
-            // Log the action
-            LoggingUtil.log(ActionType.STOP_SERVER, currentUser, serverInstance);
+        // Stop the server
+        serverInstance.stop();
 
-            // Return OK signal
-            return ResponseEntity.ok().build();
-        }
+        // Log the action
+        LoggingUtil.logCompleted(ActionType.STOP_SERVER, currentUser, serverInstance, null);
+
+        // Return OK signal
+        return ResponseEntity.ok().build();
     }
 }
@@ -52,6 +52,8 @@ public class ServerInstancePropertiesController {
     public ResponseEntity<?> setServerInstanceProperty(@PathVariable UUID serverInstanceId, @PathVariable UUID propertyId, @CurrentUser User currentUser, RequestBodyUtil requestBodyUtil) throws JsonErrorResponseException {
 
         String value = requestBodyUtil.getField("value", String.class);
+        // The version the client read; without it the update only races with concurrent writes of this request
+        Long version = requestBodyUtil.getOptionalField("version", Long.class);
 
         try (DAO<ServerInstanceProperty, UUID> sipDAO = DAOFactory.createDAO(ServerInstanceProperty.class);
              DAO<ServerInstance, UUID> serverInstanceDAO = DAOFactory.createDAO(ServerInstance.class)) {
@@ -77,6 +79,11 @@ public class ServerInstancePropertiesController {
             // Save old value for logging
             String oldValue = serverInstanceProperty.getValue();
 
+            // Only apply the change to the version the client edited (409 otherwise)
+            if (version != null) {
+                serverInstanceProperty.setVersion(version);
+            }
+
             // Update value
             serverInstanceProperty.setValue(value);
 
@@ -2,11 +2,11 @@ package com.mcm.backend.app.api.controllers.serverinstances.roles;
 
 import com.mcm.backend.app.api.utils.annotations.CurrentUser;
 import com.mcm.backend.app.api.utils.annotations.RequireRole;
-import com.mcm.backend.app.database.core.components.daos.DAO;
+import com.mcm.backend.app.database.core.components.daos.AsyncDAO;
 import com.mcm.backend.app.database.core.factories.DAOFactory;
 import com.mcm.backend.app.database.models.roles.Role;
 import com.mcm.backend.app.database.models.roles.RoleEntity;
-import com.mcm.backend.app.database.models.roles.RoleInheritance;
+import com.mcm.backend.app.database.models.roles.RoleLattice;
 import com.mcm.backend.app.database.models.server.ServerInstance;
 import com.mcm.backend.app.database.models.users.User;
 import com.mcm.backend.app.database.models.users.UserRoleAssignment;
@@ -20,6 +20,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/server-instances/me")
@@ -37,33 +38,23 @@ public class RoleMeController {
     @RequireRole(User.class)
     public ResponseEntity<List<RoleEntity>> getRoles(@PathVariable UUID id, @CurrentUser User user) throws JsonErrorResponseException, NoSuchFieldException {
 
-        // Check if server exists
-        try (DAO<ServerInstance, UUID> serverInstanceDAO = DAOFactory.createDAO(ServerInstance.class)) {
-            if (!serverInstanceDAO.existsByPrimaryKey(id)) {
-                throw new JsonErrorResponseException("Server not found", HttpStatus.NOT_FOUND);
-            }
-        }
+        // Check if server exists and get the current users role assignment for this serverInstance, in parallel
+        CompletableFuture<Boolean> serverLookup = DAOFactory.createAsyncDAO(ServerInstance.class).existsByPrimaryKey(id);
+        CompletableFuture<UserRoleAssignment> assignmentLookup = DAOFactory.<UserRoleAssignment, UUID>createAsyncDAO(UserRoleAssignment.class)
+                .run(uraDao -> RoleUtil.fetchUserRoleAssignment(user.getId(), id, uraDao));
 
-        // Get the current users role assignment for this serverInstance
-        UserRoleAssignment userRoleAssignment = RoleUtil.fetchUserRoleAssignment(user.getId(), id);
+        if (!AsyncDAO.await(serverLookup)) {
+            throw new JsonErrorResponseException("Server not found", HttpStatus.NOT_FOUND);
+        }
+        UserRoleAssignment userRoleAssignment = AsyncDAO.await(assignmentLookup);
 
         // If the user has no roles assigned; they are not permitted to view
         if (userRoleAssignment == null) {
             throw new JsonErrorResponseException("Server not found", HttpStatus.NOT_FOUND);
         }
 
-        // Build the sting to role
-        RoleEntity assignedRole;
-        List<RoleEntity> roles;
-        try (
-                DAO<RoleEntity, String> roleDAO = DAOFactory.createDAO(RoleEntity.class);
-                DAO<RoleInheritance, String> roleInheritanceDAO = DAOFactory.createDAO(RoleInheritance.class)
-        ){
-            assignedRole = roleDAO.get(userRoleAssignment.getRole());
-
-            // Get all the (Inherited) roles
-            roles = RoleUtil.fetchAllInheritedRoles(assignedRole, roleDAO, roleInheritanceDAO);
-        }
+        // Get the assigned role and all the (inherited) roles
+        List<RoleEntity> roles = RoleLattice.getInheritedRoles(userRoleAssignment.getRole());
 
         // Return a list of roles
         return ResponseEntity.ok(roles);
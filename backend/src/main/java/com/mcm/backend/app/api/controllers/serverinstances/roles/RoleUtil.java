@@ -4,8 +4,7 @@ import com.mcm.backend.app.database.core.components.daos.DAO;
 import com.mcm.backend.app.database.core.components.daos.querying.QueryBuilder;
 import com.mcm.backend.app.database.core.factories.DAOFactory;
 import com.mcm.backend.app.database.models.roles.Role;
-import com.mcm.backend.app.database.models.roles.RoleEntity;
-import com.mcm.backend.app.database.models.roles.RoleInheritance;
+import com.mcm.backend.app.database.models.roles.RoleLattice;
 import com.mcm.backend.app.database.models.server.ServerInstance;
 import com.mcm.backend.app.database.models.users.UserRoleAssignment;
 
@@ -15,48 +14,35 @@ public class RoleUtil {
 
     public static List<ServerInstance> getServerInstances(Role role, UUID userId) throws NoSuchFieldException {
 
-        List<ServerInstance> serverInstances = new ArrayList<>();
-        List<UserRoleAssignment> assignments;
+        // Every role that includes `role` (the role itself and the roles inheriting it, directly or transitively)
+        Set<String> matchingRoles = RoleLattice.getRolesIncluding(role.toString());
 
+        // Only fetch the assignments that grant one of those roles
+        List<UserRoleAssignment> assignments;
         try (DAO<UserRoleAssignment, UUID> uraDao = DAOFactory.createDAO(UserRoleAssignment.class)) {
-             assignments = new QueryBuilder<>(uraDao)
+            assignments = new QueryBuilder<>(uraDao)
                     .where(UserRoleAssignment.class.getDeclaredField("userId"), userId)
+                    .in(UserRoleAssignment.class.getDeclaredField("role"), matchingRoles)
                     .get();
         }
 
-        if (!assignments.isEmpty()) {
-            try (
-                    DAO<RoleEntity, String> roleDao = DAOFactory.createDAO(RoleEntity.class);
-                    DAO<RoleInheritance, String> roleInheritanceDao = DAOFactory.createDAO(RoleInheritance.class);
-                    DAO<ServerInstance, UUID> serverInstanceDao = DAOFactory.createDAO(ServerInstance.class);
-            ){
-                for (UserRoleAssignment assignment : assignments) {
-                    List<RoleEntity> userRoleForAssignment;
-
-                    RoleEntity assignedRole = roleDao.get(assignment.getRole());
-
-                    // Get users roles for this server instance
-                    userRoleForAssignment = fetchAllInheritedRoles(assignedRole, roleDao, roleInheritanceDao);
-
-                    // For each role
-                    for (RoleEntity roleEntity : userRoleForAssignment) {
-
-                        // If one of the assigned roles matches the role we're searching for
-                        if (role.toString().equals(roleEntity.name())) {
-
-                            ServerInstance serverInstance = serverInstanceDao.get(assignment.getInstanceId());
-
-                            // Add the server instance to the list of matches
-                            serverInstances.add(serverInstance);
+        if (assignments.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-                            // Break if found
-                            break;
-                        }
-                    }
-                }
+        // Load the matching server instances in one query, keeping the assignment order
+        List<UUID> instanceIds = assignments.stream().map(UserRoleAssignment::getInstanceId).toList();
+        Map<UUID, ServerInstance> serverInstancesById = new HashMap<>();
+        try (DAO<ServerInstance, UUID> serverInstanceDao = DAOFactory.createDAO(ServerInstance.class)) {
+            for (ServerInstance serverInstance : serverInstanceDao.getByPrimaryKeys(instanceIds)) {
+                serverInstancesById.put(serverInstance.getId(), serverInstance);
             }
         }
 
+        List<ServerInstance> serverInstances = new ArrayList<>();
+        for (UUID instanceId : instanceIds) {
+            serverInstances.add(serverInstancesById.get(instanceId));
+        }
         return serverInstances;
     }
 
@@ -66,56 +52,21 @@ public class RoleUtil {
         if (serverInstanceId == null) throw new RuntimeException("serverInstanceId cant be null");
 
         try (DAO<UserRoleAssignment, UUID> uraDao = DAOFactory.createDAO(UserRoleAssignment.class)) {
-
-            List<UserRoleAssignment> assignments = new QueryBuilder<>(uraDao)
-                    .where(UserRoleAssignment.class.getDeclaredField("userId"), userId)
-                    .and(  UserRoleAssignment.class.getDeclaredField("instanceId"), serverInstanceId)
-                    .get();
-
-            if (assignments.isEmpty()) {
-                return null;
-            }
-            return assignments.getFirst();
+            return fetchUserRoleAssignment(userId, serverInstanceId, uraDao);
         }
     }
 
-    public static List<RoleEntity> fetchAllInheritedRoles(RoleEntity baseRole, DAO<RoleEntity, String> roleDao,
-                                                          DAO<RoleInheritance, String> inheritanceDao) throws NoSuchFieldException {
-
-        if (!roleDao.exists(baseRole)) throw new RuntimeException("Role " + baseRole + " not found");
-
-        List<RoleEntity> roles = new ArrayList<>();
-        roles.add(baseRole);
-
-        Set<String> visited  = new HashSet<>();
-        RoleEntity current = baseRole;
-
+    public static UserRoleAssignment fetchUserRoleAssignment(UUID userId, UUID serverInstanceId,
+                                                             DAO<UserRoleAssignment, UUID> uraDao) throws NoSuchFieldException {
 
-        while (visited.add(current.name())) {
-            // find the next inherited role
-            RoleEntity parent = findChildRole(current, inheritanceDao, roleDao);
-            if (parent == null) {
-                break;
-            }
-            roles.add(parent);
-            current = parent;
-        }
-
-        return roles;
-    }
-
-    /**
-     * Returns the single RoleEntity that `roleName` inherits from, or null if none.
-     */
-    private static RoleEntity findChildRole(RoleEntity role, DAO<RoleInheritance, String> roleInheritanceDAO, DAO<RoleEntity, String> roleDAO) throws NoSuchFieldException {
-        List<RoleInheritance> roleInheritances = new QueryBuilder<>(roleInheritanceDAO)
-                .where(RoleInheritance.class.getDeclaredField("roleName"), role.name())
+        List<UserRoleAssignment> assignments = new QueryBuilder<>(uraDao)
+                .where(UserRoleAssignment.class.getDeclaredField("userId"), userId)
+                .and(  UserRoleAssignment.class.getDeclaredField("instanceId"), serverInstanceId)
                 .get();
 
-        if (roleInheritances.isEmpty()) {
+        if (assignments.isEmpty()) {
             return null;
         }
-
-        return roleDAO.get(roleInheritances.getFirst().inheritsRoleName());
+        return assignments.getFirst();
     }
 }
@@ -5,11 +5,14 @@ import com.mcm.backend.app.api.utils.annotations.CurrentUser;
 import com.mcm.backend.app.api.utils.annotations.RequireServerInstanceRole;
 import com.mcm.backend.app.api.utils.annotations.ValidatedBody;
 import com.mcm.backend.app.database.core.components.daos.DAO;
+import com.mcm.backend.app.database.core.components.daos.querying.QueryBuilder;
 import com.mcm.backend.app.database.core.factories.DAOFactory;
 import com.mcm.backend.app.database.models.roles.Role;
 import com.mcm.backend.app.database.models.server.ServerInstance;
+import com.mcm.backend.app.database.models.server.ServerInstanceProperty;
 import com.mcm.backend.app.database.models.server.utils.ServerCoreUtil;
 import com.mcm.backend.app.database.models.users.User;
+import com.mcm.backend.app.database.models.users.UserRoleAssignment;
 import com.mcm.backend.exceptions.JsonErrorResponseException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -69,6 +72,11 @@ public class MaintainerController {
             // Only the initializer flow can do this...
             serverInstance.setEulaAccepted(oldServerInstance.getEulaAccepted());
 
+            // Clients that don't send the version they edited overwrite the current one
+            if (serverInstance.getVersion() == null) {
+                serverInstance.setVersion(oldServerInstance.getVersion());
+            }
+
             // TODO Add logging
             //LoggingUtil.log(ActionType.);
 
@@ -81,8 +89,10 @@ public class MaintainerController {
 
     @DeleteMapping("/{id}")
     @RequireServerInstanceRole(Role.MAINTAINER)
-    public ResponseEntity<?> deleteServerInstance(@CurrentUser User currentUser, @PathVariable UUID id) throws JsonErrorResponseException {
-        try (DAO<ServerInstance, UUID> serverInstanceDAO = DAOFactory.createDAO(ServerInstance.class)) {
+    public ResponseEntity<?> deleteServerInstance(@CurrentUser User currentUser, @PathVariable UUID id) throws JsonErrorResponseException, NoSuchFieldException {
+        try (DAO<ServerInstance, UUID> serverInstanceDAO = DAOFactory.createDAO(ServerInstance.class);
+             DAO<ServerInstanceProperty, UUID> sipDAO = DAOFactory.createDAO(ServerInstanceProperty.class);
+             DAO<UserRoleAssignment, UUID> assignmentDAO = DAOFactory.createDAO(UserRoleAssignment.class)) {
             ServerInstance serverInstance = serverInstanceDAO.get(id);
 
             if (!serverInstanceDAO.exists(serverInstance)) {
@@ -94,7 +104,13 @@ public class MaintainerController {
             // Clean Dirs
             ServerCoreUtil.cleanServerInstance(serverInstance);
 
-            // Delete db info
+            // Delete db info; the cascade would do this too, but it bypasses the entity caches of both tables
+            new QueryBuilder<>(sipDAO)
+                    .where(ServerInstanceProperty.class.getDeclaredField("serverInstanceId"), id)
+                    .delete();
+            new QueryBuilder<>(assignmentDAO)
+                    .where(UserRoleAssignment.class.getDeclaredField("instanceId"), id)
+                    .delete();
             serverInstanceDAO.delete(serverInstance.getId());
 
             return ResponseEntity.ok("Server Instance deleted");
@@ -0,0 +1,81 @@
+package com.mcm.backend.app.api.controllers.system;
+
+import com.mcm.backend.app.api.utils.annotations.RequireRole;
+import com.mcm.backend.app.database.core.components.CircuitBreakerMetrics;
+import com.mcm.backend.app.database.core.components.Database;
+import com.mcm.backend.app.database.core.components.DatabaseCircuitBreaker;
+import com.mcm.backend.app.database.core.components.PoolMetrics;
+import com.mcm.backend.app.database.core.components.QueryMetrics;
+import com.mcm.backend.app.database.core.components.QueryStats;
+import com.mcm.backend.app.database.core.components.SlowQuery;
+import com.mcm.backend.app.database.core.components.StatementCache;
+import com.mcm.backend.app.database.core.components.StatementCacheMetrics;
+import com.mcm.backend.app.database.core.components.daos.EntityCache;
+import com.mcm.backend.app.database.core.components.daos.EntityCacheMetrics;
+import com.mcm.backend.app.database.models.users.Admin;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/system/database")
+public class DatabaseMetricsController {
+
+    /**
+     * Connection pool gauges (active/idle/pending connections and borrow wait times) of the request pool and the
+     * pool of AsyncDAO.
+     */
+    @GetMapping("/pool")
+    @RequireRole(Admin.class)
+    public ResponseEntity<List<PoolMetrics>> getPoolMetrics() {
+        return ResponseEntity.ok(Database.getPoolMetrics());
+    }
+
+    /**
+     * Prepared statement cache counters (cached statements, hits, misses and evictions).
+     */
+    @GetMapping("/statements")
+    @RequireRole(Admin.class)
+    public ResponseEntity<StatementCacheMetrics> getStatementCacheMetrics() {
+        return ResponseEntity.ok(StatementCache.getMetrics());
+    }
+
+    /**
+     * Entity cache counters per {@code @Cached} table.
+     */
+    @GetMapping("/cache")
+    @RequireRole(Admin.class)
+    public ResponseEntity<List<EntityCacheMetrics>> getEntityCacheMetrics() {
+        return ResponseEntity.ok(EntityCache.getMetrics());
+    }
+
+    /**
+     * Circuit breaker state and the failure/slow-call rates it decides on.
+     */
+    @GetMapping("/breaker")
+    @RequireRole(Admin.class)
+    public ResponseEntity<CircuitBreakerMetrics> getCircuitBreakerMetrics() {
+        return ResponseEntity.ok(DatabaseCircuitBreaker.getMetrics());
+    }
+
+    /**
+     * Latency percentiles and row counts per table and DAO operation, most total time first.
+     */
+    @GetMapping("/queries")
+    @RequireRole(Admin.class)
+    public ResponseEntity<List<QueryStats>> getQueryMetrics() {
+        return ResponseEntity.ok(QueryMetrics.getMetrics());
+    }
+
+    /**
+     * The latest statements slower than {@code DATASOURCE_SLOW_QUERY_MS}, newest first.
+     */
+    @GetMapping("/queries/slow")
+    @RequireRole(Admin.class)
+    public ResponseEntity<List<SlowQuery>> getSlowQueries() {
+        return ResponseEntity.ok(QueryMetrics.getSlowQueries());
+    }
+}
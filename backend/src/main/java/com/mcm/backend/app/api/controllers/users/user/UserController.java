@@ -4,6 +4,7 @@ import com.mcm.backend.app.api.utils.LoggingUtil;
 import com.mcm.backend.app.api.utils.requestbody.RequestBodyUtil;
 import com.mcm.backend.app.api.utils.annotations.CurrentUser;
 import com.mcm.backend.app.api.utils.annotations.RequireRole;
+import com.mcm.backend.app.database.core.components.daos.AsyncDAO;
 import com.mcm.backend.app.database.core.components.daos.DAO;
 import com.mcm.backend.app.database.core.factories.DAOFactory;
 import com.mcm.backend.app.database.models.logging.ActionType;
@@ -16,6 +17,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 import static com.mcm.backend.app.api.controllers.users.user.Utils.usernameInUse;
 
@@ -56,24 +58,18 @@ public class UserController {
     @GetMapping("/{id}")
     @RequireRole(Admin.class)
     public ResponseEntity<?> getUser(@PathVariable UUID id) throws JsonErrorResponseException {
-        User user;
+        // Get the user and check if they are an admin (an admin's id is the user id), in parallel
+        CompletableFuture<User> userLookup = DAOFactory.createAsyncDAO(User.class).get(id);
+        CompletableFuture<Boolean> adminLookup = DAOFactory.createAsyncDAO(Admin.class).existsByPrimaryKey(id);
 
-        // Get the user from the DB
-        try (DAO<User, UUID> userDAO = DAOFactory.createDAO(User.class)) {
-            user = userDAO.get(id);
-        }
+        User user = AsyncDAO.await(userLookup);
+        boolean isAdmin = AsyncDAO.await(adminLookup);
 
         // Handle User not found
         if (user == null) {
             throw new JsonErrorResponseException("User not found", HttpStatus.NOT_FOUND);
         }
 
-        // Check if user is an admin
-        boolean isAdmin;
-        try (DAO<Admin, UUID> adminDAO = DAOFactory.createDAO(Admin.class)) {
-            isAdmin = adminDAO.existsByPrimaryKey(user.getId());
-        }
-
         // Send data
         return ResponseEntity.ok(Map.of("user", user, "is_admin", isAdmin));
     }
@@ -232,14 +228,11 @@ public class UserController {
 
                 Admin admin = new Admin(user);
 
-                // Check if user already admin
-                if (adminDAO.exists(admin)) {
+                // Add user to admin table (promote to admin), unless the user already is an admin
+                if (!adminDAO.add(admin)) {
                     throw new JsonErrorResponseException("Admin with id " + id.toString() + " already exists", HttpStatus.CONFLICT);
                 }
 
-                // Add user to admin table (promote to admin)
-                adminDAO.add(admin);
-
                 // Log event
                 LoggingUtil.log(ActionType.USER_PROMOTE, currentUser, user);
 
@@ -262,7 +255,7 @@ public class UserController {
 
                 User user = userDAO.get(id);
 
-                userDAO.delete(id);
+                Utils.deleteUser(userDAO, id);
 
                 LoggingUtil.log(ActionType.USER_DELETE, currentUser, Map.of("deleted_user_username", user.getUsername()));
 
@@ -5,7 +5,6 @@ import com.mcm.backend.app.api.utils.PasswordHashUtil;
 import com.mcm.backend.app.api.utils.requestbody.RequestBodyUtil;
 import com.mcm.backend.app.api.utils.annotations.CurrentUser;
 import com.mcm.backend.app.api.utils.annotations.RequireRole;
-import com.mcm.backend.app.database.core.components.Database;
 import com.mcm.backend.app.database.core.components.daos.DAO;
 import com.mcm.backend.app.database.core.components.daos.querying.QueryBuilder;
 import com.mcm.backend.app.database.core.factories.DAOFactory;
@@ -19,8 +18,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.sql.Connection;
-import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -101,37 +98,43 @@ public class UserMeController {
 
     @RequireRole(User.class)
     @GetMapping("/notifications")
-    public ResponseEntity<?> getNotifications(@CurrentUser User user) throws NoSuchFieldException {
+    public ResponseEntity<?> getNotifications(@CurrentUser User user,
+                                              @RequestParam(value = "limit", required = false) Integer limit) throws NoSuchFieldException, JsonErrorResponseException {
+        if (limit != null && limit < 1) {
+            throw new JsonErrorResponseException("limit must be positive", HttpStatus.BAD_REQUEST);
+        }
 
         // Define an empty list to be populated by notifications
         ArrayList<Map<String, Object>> notifications = new ArrayList<>();
 
         // Open a new UserActionLog DAO
-        try (Connection connection = Database.getConnection();
-                DAO<ActionTypeEntity, String> actionTypeDAO = DAOFactory.createDAO(connection, ActionTypeEntity.class);
-                DAO<UserActionLog, UUID> userActionLogDAO = DAOFactory.createDAO(connection, UserActionLog.class)) {
-
-                // Build a list of UserActionLogs
-                List<UserActionLog> userActionLogs = new QueryBuilder<>(userActionLogDAO)
-                        .where(UserActionLog.class.getDeclaredField("user"), user.getId())
-                        .orderBy(UserActionLog.class.getDeclaredField("timestamp"))
-                        .desc()
-                        .get();
-
-                // Format each result using the LoggingUtil
-                for (UserActionLog userActionLog : userActionLogs) {
-                    notifications.add(Map.of(
-                            "message_template", actionTypeDAO.get(userActionLog.actionType()),
-                            "vars", LoggingUtil.getMetadata(userActionLog),
-                            "timestamp", userActionLog.timestamp()
-                    ));
-                }
-
-                // Return the formatted list of notifications
-                return ResponseEntity.ok(notifications);
-
-            } catch (SQLException e) {
-            throw new RuntimeException(e);
+        try (DAO<ActionTypeEntity, String> actionTypeDAO = DAOFactory.createDAO(ActionTypeEntity.class);
+             DAO<UserActionLog, UUID> userActionLogDAO = DAOFactory.createDAO(UserActionLog.class)) {
+
+            // Build a list of UserActionLogs (latest first, optionally only the latest `limit`)
+            QueryBuilder<UserActionLog, UUID> query = new QueryBuilder<>(userActionLogDAO)
+                    .where(UserActionLog.class.getDeclaredField("user"), user.getId())
+                    .fetchJoin(UserActionLog.class.getDeclaredField("user"))
+                    .fetchJoin(UserActionLog.class.getDeclaredField("affectedUser"))
+                    .fetchJoin(UserActionLog.class.getDeclaredField("serverInstance"))
+                    .orderBy(UserActionLog.class.getDeclaredField("timestamp"))
+                    .desc();
+            if (limit != null) {
+                query.limit(limit);
+            }
+            List<UserActionLog> userActionLogs = query.get();
+
+            // Format each result using the LoggingUtil
+            for (UserActionLog userActionLog : userActionLogs) {
+                notifications.add(Map.of(
+                        "message_template", actionTypeDAO.get(userActionLog.actionType()),
+                        "vars", LoggingUtil.getMetadata(userActionLog),
+                        "timestamp", userActionLog.timestamp()
+                ));
+            }
+
+            // Return the formatted list of notifications
+            return ResponseEntity.ok(notifications);
         }
     }
 
@@ -139,7 +142,7 @@ public class UserMeController {
     @DeleteMapping
     public ResponseEntity<?> deleteUser(@CurrentUser User user) {
         try (DAO<User, UUID> userDAO = DAOFactory.createDAO(User.class)) {
-            userDAO.delete(user.getId());
+            Utils.deleteUser(userDAO, user.getId());
 
             // TODO Revoke current Token
 
@@ -1,8 +1,13 @@
 package com.mcm.backend.app.api.controllers.users.user;
 
 import com.mcm.backend.app.database.core.components.daos.DAO;
+import com.mcm.backend.app.database.core.components.daos.querying.QueryBuilder;
+import com.mcm.backend.app.database.core.factories.DAOFactory;
+import com.mcm.backend.app.database.models.users.Admin;
 import com.mcm.backend.app.database.models.users.User;
+import com.mcm.backend.app.database.models.users.UserRoleAssignment;
 
+import java.util.List;
 import java.util.UUID;
 
 public class Utils {
@@ -29,4 +34,23 @@ public class Utils {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Helper method to delete a user together with its admin row and role assignments
+     * @param userDAO The DAO used to delete the user
+     * @param id The id of the user to delete
+     */
+    public static void deleteUser(DAO<User, UUID> userDAO, UUID id) {
+        // The cascade would do this too, but it bypasses the entity caches of both tables
+        try (DAO<Admin, UUID> adminDAO = DAOFactory.createDAO(Admin.class);
+             DAO<UserRoleAssignment, UUID> assignmentDAO = DAOFactory.createDAO(UserRoleAssignment.class)) {
+            adminDAO.deleteAll(List.of(id));
+            new QueryBuilder<>(assignmentDAO)
+                    .where(UserRoleAssignment.class.getDeclaredField("userId"), id)
+                    .delete();
+        } catch (NoSuchFieldException e) {
+            throw new RuntimeException(e);
+        }
+        userDAO.delete(id);
+    }
 }
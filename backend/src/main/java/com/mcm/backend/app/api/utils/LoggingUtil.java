@@ -1,11 +1,14 @@
 package com.mcm.backend.app.api.utils;
 
+import com.mcm.backend.app.database.core.components.UnitOfWork;
 import com.mcm.backend.app.database.core.components.daos.DAO;
 import com.mcm.backend.app.database.core.factories.DAOFactory;
 import com.mcm.backend.app.database.models.logging.ActionType;
 import com.mcm.backend.app.database.models.logging.UserActionLog;
 import com.mcm.backend.app.database.models.server.ServerInstance;
 import com.mcm.backend.app.database.models.users.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -13,6 +16,8 @@ import java.util.UUID;
 
 public class LoggingUtil {
 
+    private static final Logger logger = LoggerFactory.getLogger(LoggingUtil.class);
+
     public static void log(ActionType actionType, User user) {
         log(actionType, user, null, null, null);
     }
@@ -41,6 +46,24 @@ public class LoggingUtil {
         log(actionType, user, null, serverInstance, metadata);
     }
 
+    /**
+     * Logs an action that already took effect outside the database (a started process, an RCON command) and commits
+     * the log right away. The action cannot be undone anymore, so a failure to log it is only reported here and
+     * does not fail the request.
+     */
+    public static void logCompleted(ActionType actionType, User user, ServerInstance serverInstance, Map<String, Object> metadata) {
+        try {
+            log(actionType, user, null, serverInstance, metadata);
+            UnitOfWork.releaseCurrent();
+        } catch (RuntimeException e) {
+            logger.error("Failed to log completed action {} of user {}", actionType, user.getId(), e);
+            UnitOfWork unitOfWork = UnitOfWork.current();
+            if (unitOfWork != null) {
+                unitOfWork.rollback();
+            }
+        }
+    }
+
     // Actual impl
     public static void log(ActionType actionType, User user, User affectedUser, ServerInstance serverInstance, Map<String, Object> metadata) {
 
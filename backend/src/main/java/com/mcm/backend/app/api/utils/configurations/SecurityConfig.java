@@ -2,6 +2,7 @@
 package com.mcm.backend.app.api.utils.configurations;
 
 import com.mcm.backend.app.middlewares.jwt.JwtFilter;
+import com.mcm.backend.app.middlewares.transaction.UnitOfWorkFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -20,7 +21,9 @@ public class SecurityConfig {
                         .anyRequest().permitAll()
                 )
                 // but still run your JWT filter to set the request attribute
-                .addFilterBefore(new JwtFilter(), SecurityContextHolderFilter.class);
+                .addFilterBefore(new JwtFilter(), SecurityContextHolderFilter.class)
+                // share one connection/transaction between all DAOs of an (authenticated) request
+                .addFilterAfter(new UnitOfWorkFilter(), SecurityContextHolderFilter.class);
 
         return http.build();
     }
@@ -93,6 +93,8 @@ public class RequestBodyUtil {
             return fieldType.cast(fieldValue);
         } else if (fieldType == Double.class && fieldValue instanceof Integer) {
             return fieldType.cast(((Integer) fieldValue).doubleValue());
+        } else if (fieldType == Long.class && fieldValue instanceof Integer) {
+            return fieldType.cast(((Integer) fieldValue).longValue());
         } else if (fieldType == Timestamp.class && fieldValue instanceof String timestampString) {
             return fieldType.cast(convertStringToTimestamp(timestampString));
         } else if (fieldType == UUID.class && fieldValue instanceof String uuidString) {
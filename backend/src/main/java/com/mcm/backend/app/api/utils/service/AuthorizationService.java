@@ -1,29 +1,80 @@
 package com.mcm.backend.app.api.utils.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.mcm.backend.app.api.utils.security.SecurityContextUtil;
+import com.mcm.backend.app.database.core.components.daos.ChangeNotifier;
 import com.mcm.backend.app.database.core.components.daos.DAO;
+import com.mcm.backend.app.database.core.components.daos.querying.QueryBuilder;
 import com.mcm.backend.app.database.core.components.tables.TableEntity;
 import com.mcm.backend.app.database.core.factories.DAOFactory;
 import com.mcm.backend.app.database.models.roles.RoleEntity;
 import com.mcm.backend.app.database.models.roles.RoleInheritance;
+import com.mcm.backend.app.database.models.roles.RoleLattice;
 import com.mcm.backend.app.database.models.users.Admin;
+import com.mcm.backend.app.database.models.users.User;
 import com.mcm.backend.app.database.models.users.UserRoleAssignment;
-import com.mcm.backend.app.api.controllers.serverinstances.roles.RoleUtil;
 import com.mcm.backend.exceptions.JsonErrorResponseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 // service that does all the “DAO + inheritance + membership” logic
 public class AuthorizationService {
 
+    private static final Logger logger = LoggerFactory.getLogger(AuthorizationService.class);
+
+    private static final int MAX_CACHED_USERS = 10_000;
+    private static final Duration SNAPSHOT_TTL = Duration.ofMinutes(5);
+
+    // Effective permissions per user id; dropped when the user, their admin row or their assignments change
+    private final Cache<UUID, AuthorizationSnapshot> snapshots = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_USERS)
+            .expireAfterWrite(SNAPSHOT_TTL)
+            .evictionListener((UUID userId, AuthorizationSnapshot snapshot, RemovalCause cause) -> {
+                if (userId != null && snapshot != null) {
+                    forgetAssignments(userId, snapshot);
+                }
+            })
+            .build();
+    // The user of every assignment in a cached snapshot, so an assignment change drops only that user's snapshot
+    private final Map<UUID, UUID> userByAssignment = new ConcurrentHashMap<>();
+    // Bumped (under the lock of snapshots) by every invalidation, so a load that raced with one is not cached
+    private long generation;
+
+    public AuthorizationService() {
+        // Admin and user keys are user ids
+        ChangeNotifier.subscribe(Admin.class, this::invalidateUsers);
+        ChangeNotifier.subscribe(User.class, this::invalidateUsers);
+        ChangeNotifier.subscribe(UserRoleAssignment.class, this::invalidateAssignments);
+        // Cached closures are only valid for the role hierarchy they were built from
+        ChangeNotifier.subscribe(RoleEntity.class, ids -> invalidateAll());
+        ChangeNotifier.subscribe(RoleInheritance.class, ids -> invalidateAll());
+    }
+
     /** check that the current user has the given global role (via your RequireRole). */
     // TODO Add extends User
     public void requireUserRole(Class<? extends TableEntity> roleEntityClass) throws JsonErrorResponseException {
         UUID userId = SecurityContextUtil.getCurrentUserId();
+        if (roleEntityClass == Admin.class) {
+            if (!getSnapshot(userId).admin()) {
+                throw new JsonErrorResponseException(
+                        "User is not authorized for role: " + roleEntityClass.getSimpleName(), HttpStatus.FORBIDDEN);
+            }
+            return;
+        }
         // Assumes all normalized/requireRole's will use UUID as the root User class does.
         try (DAO<?, UUID> dao = DAOFactory.createDAO(roleEntityClass)) {
             if (!dao.existsByPrimaryKey(userId)) {
@@ -33,51 +84,161 @@ public class AuthorizationService {
         }
     }
 
-    /** check that the current user has at least `baseRole` (and any inherited) on a given instance */
-    public void requireInstanceRole(UUID serverInstanceId, String baseRoleName) throws JsonErrorResponseException, NoSuchFieldException {
-        UUID userId = SecurityContextUtil.getCurrentUserId();
+    /**
+     * check that the current user has at least `baseRole` on a given instance: the assigned role is `baseRole` or
+     * inherits it. Answered from the user's cached {@link AuthorizationSnapshot} and the in-memory
+     * {@link RoleLattice}.
+     */
+    public void requireInstanceRole(UUID serverInstanceId, String baseRoleName) throws JsonErrorResponseException {
+        AuthorizationSnapshot snapshot = getSnapshot(SecurityContextUtil.getCurrentUserId());
 
         // Admin bypass: global admins skip instance role checks
-        if (isAdmin(userId)) {
+        if (snapshot.admin()) {
             return;
         }
 
-        // Collect inherited role‐names
-        List<String> allowed;
-        try (DAO<RoleEntity, String> RoleEntityDAO = DAOFactory.createDAO(RoleEntity.class);
-             DAO<RoleInheritance, String> RoleInheritanceDAO = DAOFactory.createDAO(RoleInheritance.class)) {
-
-            // Get originally assigned role
-            RoleEntity base = RoleEntityDAO.get(baseRoleName);
+        if (!snapshot.hasInstanceRole(serverInstanceId, RoleLattice.bitOf(baseRoleName))) {
+            throw new JsonErrorResponseException("User lacks required role " + baseRoleName, HttpStatus.FORBIDDEN);
+        }
+    }
 
-            // Fetch child roles
-            List<RoleEntity> inherited = RoleUtil.fetchAllInheritedRoles(base, RoleEntityDAO, RoleInheritanceDAO);
-            allowed = inherited.stream().map(RoleEntity::name).toList();
+    /**
+     * The effective permissions of a user, loaded on a miss.
+     */
+    public AuthorizationSnapshot getSnapshot(UUID userId) {
+        AuthorizationSnapshot snapshot = snapshots.getIfPresent(userId);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        long loadGeneration;
+        synchronized (snapshots) {
+            loadGeneration = generation;
         }
+        snapshot = load(userId);
+        synchronized (snapshots) {
+            // Loaded on the request's connection: not kept while its tables have uncommitted writes
+            if (generation == loadGeneration && !ChangeNotifier.hasUncommittedWrites(
+                    Admin.class, UserRoleAssignment.class, RoleEntity.class, RoleInheritance.class)) {
+                AuthorizationSnapshot previous = snapshots.asMap().put(userId, snapshot);
+                if (previous != null) {
+                    forgetAssignments(userId, previous, snapshot);
+                }
+                // After the put, so an eviction of the previous snapshot cannot remove them again
+                for (UUID assignmentId : snapshot.assignmentIds()) {
+                    userByAssignment.put(assignmentId, userId);
+                }
+            }
+        }
+        return snapshot;
+    }
 
-        // Load all user-instance assignments
-        try (DAO<UserRoleAssignment, UUID> uraDao = DAOFactory.createDAO(UserRoleAssignment.class)) {
-            List<UserRoleAssignment> assigns = new com.mcm.backend.app.database.core.components.daos.querying.QueryBuilder<>(uraDao)
+    /**
+     * Reads the admin flag and (for non-admins) every role assignment of the user, on one connection.
+     */
+    private AuthorizationSnapshot load(UUID userId) {
+        try (DAO<Admin, UUID> adminDao = DAOFactory.createDAO(Admin.class);
+             DAO<UserRoleAssignment, UUID> uraDao = DAOFactory.createDAO(UserRoleAssignment.class)) {
+            if (adminDao.existsByPrimaryKey(userId)) {
+                return new AuthorizationSnapshot(true, Map.of(), Set.of());
+            }
+
+            List<UserRoleAssignment> assignments = new QueryBuilder<>(uraDao)
                     .where(UserRoleAssignment.class.getDeclaredField("userId"), userId)
-                    .and(UserRoleAssignment.class.getDeclaredField("instanceId"), serverInstanceId)
                     .get();
 
-            boolean allowedAccess = assigns.stream().map(UserRoleAssignment::getRole).anyMatch(allowed::contains);
-            if (!allowedAccess) {
-                throw new JsonErrorResponseException("User lacks required role " + baseRoleName, HttpStatus.FORBIDDEN);
+            Map<UUID, Long> instanceRoles = new HashMap<>();
+            Set<UUID> assignmentIds = new HashSet<>();
+            for (UserRoleAssignment assignment : assignments) {
+                instanceRoles.merge(assignment.getInstanceId(), RoleLattice.closureOf(assignment.getRole()),
+                        (a, b) -> a | b);
+                assignmentIds.add(assignment.getId());
             }
+            return new AuthorizationSnapshot(false, Map.copyOf(instanceRoles), Set.copyOf(assignmentIds));
         } catch (NoSuchFieldException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private void invalidateUsers(Set<String> userIds) {
+        if (userIds.isEmpty()) {
+            invalidateAll();
+            return;
+        }
+        synchronized (snapshots) {
+            generation++;
+            for (String userId : userIds) {
+                drop(UUID.fromString(userId));
+            }
+        }
+    }
+
     /**
-     * Check whether the current user is a global ADMIN.
-     * Admins bypass all instance-specific role checks.
+     * Assignment changes only carry the assignment ids. The snapshots that contain them are dropped, and the
+     * assignments are read again to drop the snapshot of the user they belong to now (new assignments, or ones
+     * moved to another user). Deleted assignments no snapshot contains belong to users that are not cached.
      */
-    private boolean isAdmin(UUID userId) {
-        try (DAO<Admin, UUID> adminDao = DAOFactory.createDAO(Admin.class)) {
-            return adminDao.existsByPrimaryKey(userId);
+    private void invalidateAssignments(Set<String> assignmentIds) {
+        if (assignmentIds.isEmpty()) {
+            invalidateAll();
+            return;
+        }
+        List<UUID> changed = assignmentIds.stream().map(UUID::fromString).toList();
+        synchronized (snapshots) {
+            generation++;
+            for (UUID assignmentId : changed) {
+                UUID userId = userByAssignment.get(assignmentId);
+                if (userId != null) {
+                    drop(userId);
+                }
+            }
+        }
+
+        List<UserRoleAssignment> current;
+        try (DAO<UserRoleAssignment, UUID> uraDao = DAOFactory.createDAO(UserRoleAssignment.class)) {
+            current = uraDao.getByPrimaryKeys(changed);
+        } catch (RuntimeException e) {
+            logger.warn("Could not read changed role assignments, dropping every authorization snapshot", e);
+            invalidateAll();
+            return;
+        }
+        synchronized (snapshots) {
+            generation++;
+            for (UserRoleAssignment assignment : current) {
+                drop(assignment.getUserId());
+            }
+        }
+    }
+
+    private void invalidateAll() {
+        synchronized (snapshots) {
+            generation++;
+            snapshots.invalidateAll();
+            userByAssignment.clear();
+        }
+    }
+
+    /**
+     * Drops the snapshot of the user (callers hold the lock of snapshots).
+     */
+    private void drop(UUID userId) {
+        AuthorizationSnapshot snapshot = snapshots.asMap().remove(userId);
+        if (snapshot != null) {
+            forgetAssignments(userId, snapshot);
+        }
+    }
+
+    private void forgetAssignments(UUID userId, AuthorizationSnapshot snapshot) {
+        forgetAssignments(userId, snapshot, null);
+    }
+
+    /**
+     * Removes the assignments of a snapshot that is no longer cached, except those the replacing snapshot still has.
+     */
+    private void forgetAssignments(UUID userId, AuthorizationSnapshot removed, AuthorizationSnapshot replacement) {
+        for (UUID assignmentId : removed.assignmentIds()) {
+            if (replacement == null || !replacement.assignmentIds().contains(assignmentId)) {
+                userByAssignment.remove(assignmentId, userId);
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,23 @@
+package com.mcm.backend.app.api.utils.service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The effective permissions of one user, as cached by {@link AuthorizationService}.
+ *
+ * @param admin         whether the user is a global admin (admins skip instance role checks)
+ * @param instanceRoles per server instance, the {@code RoleLattice} closure of the assigned role
+ * @param assignmentIds the user_role_assignments rows this was built from, to find it when one of them changes
+ */
+public record AuthorizationSnapshot(boolean admin, Map<UUID, Long> instanceRoles, Set<UUID> assignmentIds) {
+
+    /**
+     * @param requiredRole the {@code RoleLattice} bit of the required role
+     */
+    public boolean hasInstanceRole(UUID serverInstanceId, long requiredRole) {
+        Long closure = instanceRoles.get(serverInstanceId);
+        return closure != null && (closure & requiredRole) != 0;
+    }
+}
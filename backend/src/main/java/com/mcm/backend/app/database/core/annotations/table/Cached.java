@@ -0,0 +1,32 @@
+package com.mcm.backend.app.database.core.annotations.table;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Enables the second-level cache of the DAO layer for a {@code TableEntity}.
+ * <p>
+ * Primary key lookups ({@code get}, {@code existsByPrimaryKey}, {@code getByPrimaryKeys} and therefore foreign key
+ * resolution) and query results ({@code get(QuerySpec)}, {@code getAll}) are answered from memory; writes through
+ * any DAO of the table invalidate the affected rows and outdate every cached query on the table. Meant for tables
+ * that are read on most requests but rarely change.
+ *
+ * @see com.mcm.backend.app.database.core.components.daos.EntityCache
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Cached {
+
+    /**
+     * Seconds an entry is kept after it was loaded.
+     */
+    long ttlSeconds() default 300;
+
+    /**
+     * Maximum number of cached rows, and separately of cached query results; the least valuable ones are evicted
+     * first.
+     */
+    long maxSize() default 1000;
+}
@@ -0,0 +1,21 @@
+package com.mcm.backend.app.database.core.annotations.table;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Overrides the query timeout ({@code DATASOURCE_QUERY_TIMEOUT_SECONDS}) for every statement a DAO runs on this
+ * {@code TableEntity}'s table, e.g. a longer one for large audit tables. A single query can still set its own
+ * through {@code QueryBuilder.timeout}.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryTimeout {
+
+    /**
+     * Seconds a statement may run before it is cancelled; 0 means no timeout.
+     */
+    int seconds();
+}
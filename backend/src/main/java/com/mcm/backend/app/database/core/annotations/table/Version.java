@@ -0,0 +1,17 @@
+package com.mcm.backend.app.database.core.annotations.table;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the {@code Long} or {@code Integer} column used for optimistic locking.
+ * <p>
+ * Updates only apply to the row when its version still matches the entity's ({@code WHERE pk = ? AND version = ?})
+ * and increment it; otherwise the DAO throws an {@code OptimisticLockException} (409). Inserts start at 0.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Version {
+}
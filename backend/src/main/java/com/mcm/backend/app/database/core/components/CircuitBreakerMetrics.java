@@ -0,0 +1,17 @@
+package com.mcm.backend.app.database.core.components;
+
+/**
+ * Point-in-time state of the {@link DatabaseCircuitBreaker}.
+ *
+ * @param state         CLOSED, OPEN, HALF_OPEN or DISABLED
+ * @param calls         statements and connection acquisitions in the current window
+ * @param failureRate   share of the calls in the window that failed (0..1)
+ * @param slowCallRate  share of the calls in the window that were slow (0..1)
+ * @param rejected      calls refused while the breaker was open, since startup
+ */
+public record CircuitBreakerMetrics(String state,
+                                    int calls,
+                                    double failureRate,
+                                    double slowCallRate,
+                                    long rejected) {
+}
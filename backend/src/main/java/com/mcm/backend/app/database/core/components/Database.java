@@ -1,20 +1,242 @@
 package com.mcm.backend.app.database.core.components;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Entry point for database connections.
+ * <p>
+ * Connections are handed out by a bounded HikariCP pool, so closing a connection
+ * (e.g. through {@code DAO.close()}) returns it to the pool instead of tearing down the socket.
+ * The pool is configured through the {@code DATASOURCE_POOL_*} environment variables.
+ */
 public class Database {
 
     private static final String URL = System.getenv("DATASOURCE_URL");
     private static final String USER = System.getenv("DATASOURCE_USERNAME");
     private static final String PASSWORD = System.getenv("DATASOURCE_PASSWORD");
 
+    private static final int POOL_MAX_SIZE = DatabaseEnv.getInt("DATASOURCE_POOL_MAX_SIZE", 10);
+    private static final int POOL_MIN_IDLE = DatabaseEnv.getInt("DATASOURCE_POOL_MIN_IDLE", 2);
+    private static final long CONNECTION_TIMEOUT_MS = DatabaseEnv.getLong("DATASOURCE_POOL_CONNECTION_TIMEOUT_MS", 10_000);
+    private static final long VALIDATION_TIMEOUT_MS = DatabaseEnv.getLong("DATASOURCE_POOL_VALIDATION_TIMEOUT_MS", 3_000);
+    private static final long IDLE_TIMEOUT_MS = DatabaseEnv.getLong("DATASOURCE_POOL_IDLE_TIMEOUT_MS", 600_000);
+    private static final long KEEPALIVE_TIME_MS = DatabaseEnv.getLong("DATASOURCE_POOL_KEEPALIVE_TIME_MS", 120_000);
+    private static final long MAX_LIFETIME_MS = DatabaseEnv.getLong("DATASOURCE_POOL_MAX_LIFETIME_MS", 1_800_000);
+    // A DAO that holds its connection longer than this is reported as a (possible) leak
+    private static final long LEAK_DETECTION_MS = DatabaseEnv.getLong("DATASOURCE_POOL_LEAK_DETECTION_MS", 60_000);
+
+    // Rows per JDBC batch for the DAO bulk operations
+    private static final int BATCH_SIZE = DatabaseEnv.getInt("DATASOURCE_BATCH_SIZE", 500);
+    // Rows per round trip for DAO streams (server-side cursors)
+    private static final int FETCH_SIZE = DatabaseEnv.getInt("DATASOURCE_FETCH_SIZE", 500);
+    // Prepared statements kept per physical connection (0 disables the cache)
+    private static final int STATEMENT_CACHE_SIZE = DatabaseEnv.getInt("DATASOURCE_STATEMENT_CACHE_SIZE", 64);
+    // Separate pool for AsyncDAO, so fan-out queries never wait on connections held by request threads
+    private static final int ASYNC_POOL_MAX_SIZE = DatabaseEnv.getInt("DATASOURCE_ASYNC_POOL_MAX_SIZE", 10);
+    // Default statement timeout of DAO queries, overridable per entity (@QueryTimeout) and per query (0 disables it)
+    private static final int QUERY_TIMEOUT_SECONDS = DatabaseEnv.getInt("DATASOURCE_QUERY_TIMEOUT_SECONDS", 30);
+    // Upper bound for the database work of one HTTP request (0 disables it)
+    private static final long REQUEST_TIMEOUT_MS = DatabaseEnv.getLong("DATASOURCE_REQUEST_TIMEOUT_MS", 0);
+    // Cross-node cache invalidation through LISTEN/NOTIFY
+    private static final boolean CHANGE_NOTIFICATIONS = !"false".equalsIgnoreCase(System.getenv("DATASOURCE_CHANGE_NOTIFICATIONS"));
+
+    private static final String POOL_NAME = "mcm-pool";
+    private static final String ASYNC_POOL_NAME = "mcm-async-pool";
+
+    // Set once AsyncPool exists, so reading its metrics does not create it
+    private static volatile boolean asyncPoolCreated;
+
+    /**
+     * The request pool, created on first use, so the settings (and code that only reads them) work without a database.
+     */
+    private static class Pool {
+        private static final WaitTimeTracker waitTimeTracker = new WaitTimeTracker();
+        private static final HikariDataSource dataSource =
+                createDataSource(POOL_NAME, POOL_MAX_SIZE, POOL_MIN_IDLE, waitTimeTracker);
+    }
+
+    /**
+     * Created on first use, so nodes that never run async queries keep no extra connections.
+     */
+    private static class AsyncPool {
+        private static final WaitTimeTracker waitTimeTracker = new WaitTimeTracker();
+        private static final HikariDataSource dataSource =
+                createDataSource(ASYNC_POOL_NAME, ASYNC_POOL_MAX_SIZE, 0, waitTimeTracker);
+
+        static {
+            asyncPoolCreated = true;
+        }
+    }
+
+    /**
+     * Borrows a connection from the pool.
+     *
+     * @throws com.mcm.backend.exceptions.DatabaseUnavailableException if the circuit breaker is open or the pool
+     *                                                                 could not hand out a connection in time
+     */
     public static Connection getConnection() {
+        DatabaseCircuitBreaker.checkAvailable();
+        long start = System.nanoTime();
+        Connection connection;
+        try {
+            connection = Pool.dataSource.getConnection();
+        } catch (SQLException e) {
+            DatabaseCircuitBreaker.recordCall(System.nanoTime() - start);
+            throw DatabaseCircuitBreaker.translate(e);
+        }
+        DatabaseCircuitBreaker.recordCall(System.nanoTime() - start);
+        return connection;
+    }
+
+    /**
+     * Borrows a connection from the pool of {@code AsyncDAO}. It is separate from the request pool: a request that
+     * holds a connection while waiting for its async queries can otherwise exhaust the pool and deadlock.
+     */
+    public static Connection getAsyncConnection() {
+        DatabaseCircuitBreaker.checkAvailable();
+        long start = System.nanoTime();
+        Connection connection;
         try {
-            return DriverManager.getConnection(URL, USER, PASSWORD);
+            connection = AsyncPool.dataSource.getConnection();
         } catch (SQLException e) {
-            throw new RuntimeException(e);
+            DatabaseCircuitBreaker.recordCall(System.nanoTime() - start);
+            throw DatabaseCircuitBreaker.translate(e);
+        }
+        DatabaseCircuitBreaker.recordCall(System.nanoTime() - start);
+        return connection;
+    }
+
+    /**
+     * Opens a connection outside the pool, for long-lived sessions (e.g. {@code LISTEN}) that would otherwise hold
+     * a pool slot forever. The caller must close it.
+     */
+    public static Connection openDedicatedConnection() throws SQLException {
+        return DriverManager.getConnection(URL, USER, PASSWORD);
+    }
+
+    public static int getBatchSize() {
+        return BATCH_SIZE;
+    }
+
+    public static int getFetchSize() {
+        return FETCH_SIZE;
+    }
+
+    public static int getStatementCacheSize() {
+        return STATEMENT_CACHE_SIZE;
+    }
+
+    public static int getQueryTimeoutSeconds() {
+        return QUERY_TIMEOUT_SECONDS;
+    }
+
+    public static long getRequestTimeoutMillis() {
+        return REQUEST_TIMEOUT_MS;
+    }
+
+    public static boolean isChangeNotificationsEnabled() {
+        return CHANGE_NOTIFICATIONS;
+    }
+
+    /**
+     * Snapshot of the connection pool gauges: the request pool, then the pool of {@code AsyncDAO} (all zeros until
+     * its first use).
+     *
+     * @return the current pool metrics
+     */
+    public static List<PoolMetrics> getPoolMetrics() {
+        PoolMetrics asyncPool = asyncPoolCreated
+                ? poolMetrics(ASYNC_POOL_NAME, AsyncPool.dataSource, ASYNC_POOL_MAX_SIZE, AsyncPool.waitTimeTracker)
+                : new PoolMetrics(ASYNC_POOL_NAME, 0, 0, 0, 0, ASYNC_POOL_MAX_SIZE, 0, 0, 0, 0);
+        return List.of(poolMetrics(POOL_NAME, Pool.dataSource, POOL_MAX_SIZE, Pool.waitTimeTracker), asyncPool);
+    }
+
+    private static PoolMetrics poolMetrics(String name, HikariDataSource source, int maxSize, WaitTimeTracker tracker) {
+        HikariPoolMXBean pool = source.getHikariPoolMXBean();
+        return new PoolMetrics(
+                name,
+                pool.getActiveConnections(),
+                pool.getIdleConnections(),
+                pool.getThreadsAwaitingConnection(),
+                pool.getTotalConnections(),
+                maxSize,
+                tracker.acquisitions.sum(),
+                tracker.averageWaitMillis(),
+                tracker.maxWaitNanos.get() / 1_000_000.0,
+                tracker.timeouts.sum()
+        );
+    }
+
+    private static HikariDataSource createDataSource(String poolName, int maxSize, int minIdle, IMetricsTracker tracker) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setJdbcUrl(URL);
+        config.setUsername(USER);
+        config.setPassword(PASSWORD);
+
+        // Bounds
+        config.setMaximumPoolSize(maxSize);
+        config.setMinimumIdle(Math.min(minIdle, maxSize));
+
+        // Validation (JDBC4 isValid) on borrow and periodically for idle connections
+        config.setConnectionTimeout(CONNECTION_TIMEOUT_MS);
+        config.setValidationTimeout(VALIDATION_TIMEOUT_MS);
+        config.setKeepaliveTime(KEEPALIVE_TIME_MS);
+
+        // Eviction
+        config.setIdleTimeout(IDLE_TIMEOUT_MS);
+        config.setMaxLifetime(MAX_LIFETIME_MS);
+
+        // DAOs that are never closed keep their connection checked out
+        config.setLeakDetectionThreshold(LEAK_DETECTION_MS);
+
+        // Let the driver turn batched INSERTs into multi-row VALUES statements (DAO.addAll)
+        config.addDataSourceProperty("reWriteBatchedInserts", "true");
+
+        config.setMetricsTrackerFactory((name, poolStats) -> tracker);
+
+        HikariDataSource hikariDataSource = new HikariDataSource(config);
+        Runtime.getRuntime().addShutdownHook(new Thread(hikariDataSource::close, poolName + "-shutdown"));
+        return hikariDataSource;
+    }
+
+    /**
+     * Receives the acquire timings from the pool so the wait time can be exposed next to the pool gauges.
+     */
+    private static class WaitTimeTracker implements IMetricsTracker {
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+        private final LongAdder timeouts = new LongAdder();
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquisitions.increment();
+            totalWaitNanos.add(elapsedAcquiredNanos);
+            maxWaitNanos.accumulateAndGet(elapsedAcquiredNanos, Math::max);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+
+        private double averageWaitMillis() {
+            long count = acquisitions.sum();
+            if (count == 0) {
+                return 0;
+            }
+            return totalWaitNanos.sum() / (double) count / 1_000_000.0;
         }
     }
 }
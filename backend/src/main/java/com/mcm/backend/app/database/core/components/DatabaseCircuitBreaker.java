@@ -0,0 +1,253 @@
+package com.mcm.backend.app.database.core.components;
+
+import com.mcm.backend.exceptions.DatabaseUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.util.function.LongSupplier;
+
+/**
+ * Fails database work fast while the database is struggling, instead of letting every request thread block on it.
+ * <p>
+ * Statement executions and connection acquisitions are counted in a sliding window of one-second buckets. Once the
+ * window holds enough calls and either the share of failures (connection errors, timeouts, cancellations; not
+ * constraint violations) or the share of slow calls crosses its threshold, the breaker opens: connections and
+ * statements are refused with a {@link DatabaseUnavailableException} (503). After the open period a few trial calls
+ * are let through (half-open) while every other call is still refused; if the trial calls are healthy the breaker
+ * closes, otherwise it opens again.
+ * <p>
+ * Configured through the {@code DATASOURCE_BREAKER_*} environment variables.
+ */
+public final class DatabaseCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseCircuitBreaker.class);
+
+    private static final int WINDOW_SECONDS = DatabaseEnv.getInt("DATASOURCE_BREAKER_WINDOW_SECONDS", 10);
+    private static final int MIN_CALLS = DatabaseEnv.getInt("DATASOURCE_BREAKER_MIN_CALLS", 20);
+    private static final double FAILURE_RATE_THRESHOLD = DatabaseEnv.getInt("DATASOURCE_BREAKER_FAILURE_RATE_PERCENT", 50) / 100.0;
+    private static final long SLOW_CALL_NANOS = DatabaseEnv.getLong("DATASOURCE_BREAKER_SLOW_CALL_MS", 2_000) * 1_000_000;
+    private static final double SLOW_CALL_RATE_THRESHOLD = DatabaseEnv.getInt("DATASOURCE_BREAKER_SLOW_CALL_RATE_PERCENT", 80) / 100.0;
+    private static final long OPEN_NANOS = DatabaseEnv.getLong("DATASOURCE_BREAKER_OPEN_MS", 10_000) * 1_000_000;
+    private static final int HALF_OPEN_CALLS = DatabaseEnv.getInt("DATASOURCE_BREAKER_HALF_OPEN_CALLS", 5);
+    // Disabled with DATASOURCE_BREAKER_ENABLED=false
+    private static final boolean ENABLED = !"false".equalsIgnoreCase(System.getenv("DATASOURCE_BREAKER_ENABLED"));
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final Object lock = new Object();
+    private static final long[] bucketSecond = new long[WINDOW_SECONDS];
+    private static final int[] bucketCalls = new int[WINDOW_SECONDS];
+    private static final int[] bucketFailures = new int[WINDOW_SECONDS];
+    private static final int[] bucketSlowCalls = new int[WINDOW_SECONDS];
+
+    private static volatile State state = State.CLOSED;
+    private static long openedAt;
+    private static long halfOpenedAt;
+    private static int halfOpenPermits;
+    private static long rejected;
+    // Replaced by tests
+    private static LongSupplier clock = System::nanoTime;
+
+    private DatabaseCircuitBreaker() {
+    }
+
+    /**
+     * Called before database work starts.
+     *
+     * @throws DatabaseUnavailableException while the breaker is open
+     */
+    public static void checkAvailable() {
+        if (!ENABLED || state == State.CLOSED) {
+            return;
+        }
+        synchronized (lock) {
+            long now = clock.getAsLong();
+            if (state == State.OPEN) {
+                long remaining = OPEN_NANOS - (now - openedAt);
+                if (remaining > 0) {
+                    rejected++;
+                    throw new DatabaseUnavailableException("Database temporarily unavailable", toRetrySeconds(remaining));
+                }
+                startHalfOpen(now);
+            } else if (state == State.HALF_OPEN && halfOpenPermits == 0 && now - halfOpenedAt >= OPEN_NANOS) {
+                // Trial calls that never reported back (e.g. failed before executing) would block forever: retry
+                startHalfOpen(now);
+            }
+            if (state == State.HALF_OPEN) {
+                if (halfOpenPermits == 0) {
+                    rejected++;
+                    throw new DatabaseUnavailableException("Database temporarily unavailable", 1);
+                }
+                halfOpenPermits--;
+            }
+        }
+    }
+
+    /**
+     * Records a finished statement or connection acquisition and its duration (failed ones included).
+     */
+    public static void recordCall(long durationNanos) {
+        if (!ENABLED) {
+            return;
+        }
+        synchronized (lock) {
+            int bucket = currentBucket();
+            bucketCalls[bucket]++;
+            if (durationNanos >= SLOW_CALL_NANOS) {
+                bucketSlowCalls[bucket]++;
+            }
+            evaluate();
+        }
+    }
+
+    /**
+     * Converts a driver exception into the exception to throw; failures that say something about the health of the
+     * database (as opposed to e.g. constraint violations) are counted and become a {@link DatabaseUnavailableException}.
+     *
+     * @param message the message for other failures, or {@code null} to only wrap them
+     */
+    public static RuntimeException translate(String message, SQLException e) {
+        if (!isUnhealthy(e)) {
+            return (message == null) ? new RuntimeException(e) : new RuntimeException(message, e);
+        }
+        recordFailure();
+        String reason = "57014".equals(e.getSQLState()) ? "Database query timed out" : "Database unavailable";
+        return new DatabaseUnavailableException(reason, toRetrySeconds(OPEN_NANOS), e);
+    }
+
+    public static RuntimeException translate(SQLException e) {
+        return translate(null, e);
+    }
+
+    public static CircuitBreakerMetrics getMetrics() {
+        synchronized (lock) {
+            int calls = 0;
+            int failures = 0;
+            int slowCalls = 0;
+            long now = currentSecond();
+            for (int i = 0; i < WINDOW_SECONDS; i++) {
+                if (now - bucketSecond[i] < WINDOW_SECONDS) {
+                    calls += bucketCalls[i];
+                    failures += bucketFailures[i];
+                    slowCalls += bucketSlowCalls[i];
+                }
+            }
+            return new CircuitBreakerMetrics(
+                    ENABLED ? state.name() : "DISABLED",
+                    calls,
+                    (calls == 0) ? 0 : failures / (double) calls,
+                    (calls == 0) ? 0 : slowCalls / (double) calls,
+                    rejected
+            );
+        }
+    }
+
+    /**
+     * Back to a closed breaker with an empty window, for tests.
+     */
+    static void reset(LongSupplier testClock) {
+        synchronized (lock) {
+            clock = testClock;
+            state = State.CLOSED;
+            rejected = 0;
+            clearWindow();
+        }
+    }
+
+    private static void recordFailure() {
+        if (!ENABLED) {
+            return;
+        }
+        synchronized (lock) {
+            bucketFailures[currentBucket()]++;
+            evaluate();
+        }
+    }
+
+    /**
+     * Connection problems, timeouts/cancellations, resource exhaustion and server shutdowns.
+     */
+    private static boolean isUnhealthy(SQLException e) {
+        if (e instanceof SQLTimeoutException || e instanceof SQLTransientConnectionException
+                || e instanceof SQLRecoverableException) {
+            return true;
+        }
+        String sqlState = e.getSQLState();
+        return sqlState != null
+                && (sqlState.startsWith("08") || sqlState.startsWith("53") || sqlState.startsWith("57"));
+    }
+
+    // ---- window (callers hold the lock) ----
+
+    private static void startHalfOpen(long now) {
+        state = State.HALF_OPEN;
+        halfOpenedAt = now;
+        halfOpenPermits = HALF_OPEN_CALLS;
+        clearWindow();
+        logger.info("Database circuit breaker half-open, trying {} calls", HALF_OPEN_CALLS);
+    }
+
+    private static void evaluate() {
+        int calls = 0;
+        int failures = 0;
+        int slowCalls = 0;
+        long now = currentSecond();
+        for (int i = 0; i < WINDOW_SECONDS; i++) {
+            if (now - bucketSecond[i] < WINDOW_SECONDS) {
+                calls += bucketCalls[i];
+                failures += bucketFailures[i];
+                slowCalls += bucketSlowCalls[i];
+            }
+        }
+
+        int required = (state == State.HALF_OPEN) ? HALF_OPEN_CALLS : MIN_CALLS;
+        if (state == State.OPEN || calls < required) {
+            return;
+        }
+        double failureRate = failures / (double) calls;
+        double slowCallRate = slowCalls / (double) calls;
+        if (failureRate >= FAILURE_RATE_THRESHOLD || slowCallRate >= SLOW_CALL_RATE_THRESHOLD) {
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+            logger.warn("Database circuit breaker opened: {} calls, {}% failed, {}% slow",
+                    calls, Math.round(failureRate * 100), Math.round(slowCallRate * 100));
+        } else if (state == State.HALF_OPEN) {
+            state = State.CLOSED;
+            clearWindow();
+            logger.info("Database circuit breaker closed");
+        }
+    }
+
+    private static int currentBucket() {
+        long second = currentSecond();
+        int bucket = (int) (second % WINDOW_SECONDS);
+        if (bucketSecond[bucket] != second) {
+            bucketSecond[bucket] = second;
+            bucketCalls[bucket] = 0;
+            bucketFailures[bucket] = 0;
+            bucketSlowCalls[bucket] = 0;
+        }
+        return bucket;
+    }
+
+    private static void clearWindow() {
+        for (int i = 0; i < WINDOW_SECONDS; i++) {
+            bucketSecond[i] = -1;
+            bucketCalls[i] = 0;
+            bucketFailures[i] = 0;
+            bucketSlowCalls[i] = 0;
+        }
+    }
+
+    private static long currentSecond() {
+        return clock.getAsLong() / 1_000_000_000L;
+    }
+
+    private static long toRetrySeconds(long nanos) {
+        return Math.max(1, (nanos + 999_999_999L) / 1_000_000_000L);
+    }
+}
@@ -0,0 +1,27 @@
+package com.mcm.backend.app.database.core.components;
+
+/**
+ * Reads the numeric {@code DATASOURCE_*} settings. Kept apart from {@link Database} so reading a setting never
+ * creates the connection pools.
+ */
+final class DatabaseEnv {
+
+    private DatabaseEnv() {
+    }
+
+    static int getInt(String name, int defaultValue) {
+        return (int) getLong(name, defaultValue);
+    }
+
+    static long getLong(String name, long defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Environment variable " + name + " must be a number, got: " + value, e);
+        }
+    }
+}
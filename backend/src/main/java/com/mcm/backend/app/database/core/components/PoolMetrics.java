@@ -0,0 +1,27 @@
+package com.mcm.backend.app.database.core.components;
+
+/**
+ * Point-in-time gauges of one connection pool behind {@link Database}.
+ *
+ * @param pool              the pool name ({@code mcm-pool} for requests, {@code mcm-async-pool} for AsyncDAO)
+ * @param active            connections currently checked out (in use by a DAO)
+ * @param idle              connections sitting idle in the pool
+ * @param pending           threads waiting for a connection
+ * @param total             connections currently open (active + idle)
+ * @param maxSize           configured upper bound of the pool
+ * @param acquisitions      connections handed out since startup
+ * @param averageWaitMillis average time a caller waited for a connection
+ * @param maxWaitMillis     longest time a caller waited for a connection
+ * @param timeouts          borrow attempts that timed out waiting for a connection
+ */
+public record PoolMetrics(String pool,
+                          int active,
+                          int idle,
+                          int pending,
+                          int total,
+                          int maxSize,
+                          long acquisitions,
+                          double averageWaitMillis,
+                          double maxWaitMillis,
+                          long timeouts) {
+}
@@ -0,0 +1,155 @@
+package com.mcm.backend.app.database.core.components;
+
+import com.mcm.backend.app.database.core.components.tables.BoundQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per table and DAO operation latency histograms, plus a log of slow statements.
+ * <p>
+ * Statements leased through {@link StatementCache} by a DAO are labeled with their table and operation and recorded
+ * when the lease is closed. Filtered reads are labeled by the shape of their filter (fields and operators, never
+ * values), and foreign key resolution shows up as {@code loadReferences} on the referenced table. Statements slower
+ * than {@code DATASOURCE_SLOW_QUERY_MS} are logged with their SQL and the types of their parameters and the latest
+ * {@code DATASOURCE_SLOW_QUERY_LOG_SIZE} of them are kept for the metrics endpoint.
+ */
+public final class QueryMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryMetrics.class);
+
+    // 0 disables the slow query log
+    private static final long SLOW_QUERY_NANOS = DatabaseEnv.getLong("DATASOURCE_SLOW_QUERY_MS", 500) * 1_000_000;
+    private static final int SLOW_QUERY_LOG_SIZE = DatabaseEnv.getInt("DATASOURCE_SLOW_QUERY_LOG_SIZE", 100);
+
+    private static final Map<Key, Operation> operations = new ConcurrentHashMap<>();
+    private static final ArrayDeque<SlowQuery> slowQueries = new ArrayDeque<>();
+
+    private record Key(String table, String operation) {
+    }
+
+    private static final class Operation {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final AtomicLong maxRows = new AtomicLong();
+    }
+
+    private QueryMetrics() {
+    }
+
+    /**
+     * Records one executed statement.
+     *
+     * @param table       the table name
+     * @param operation   the DAO operation
+     * @param sql         the SQL, for the slow query log
+     * @param parameters  the bound parameters (only their types are logged), or {@code null} if unknown
+     * @param rows        rows returned or affected, or a negative number if the statement failed
+     * @param nanos       time the statement took
+     */
+    public static void record(String table, String operation, String sql, Collection<?> parameters,
+                              long rows, long nanos) {
+        Operation metrics = operations.computeIfAbsent(new Key(table, operation), key -> new Operation());
+        metrics.latency.recordNanos(nanos);
+        if (rows < 0) {
+            metrics.errors.increment();
+        } else {
+            metrics.rows.add(rows);
+            if (rows > metrics.maxRows.get()) {
+                metrics.maxRows.accumulateAndGet(rows, Math::max);
+            }
+        }
+
+        if (SLOW_QUERY_NANOS > 0 && nanos >= SLOW_QUERY_NANOS) {
+            logSlowQuery(new SlowQuery(Instant.now(), table, operation, sql, bindShape(parameters),
+                    Math.max(rows, -1), nanos / 1_000_000.0));
+        }
+    }
+
+    /**
+     * @return the statistics of every operation seen so far, most total time first
+     */
+    public static List<QueryStats> getMetrics() {
+        List<QueryStats> metrics = new ArrayList<>();
+        operations.forEach((key, operation) -> {
+            LatencyHistogram latency = operation.latency;
+            metrics.add(new QueryStats(
+                    key.table(),
+                    key.operation(),
+                    latency.getCount(),
+                    operation.errors.sum(),
+                    operation.rows.sum(),
+                    operation.maxRows.get(),
+                    latency.getTotalMillis(),
+                    latency.getMeanMillis(),
+                    latency.getPercentileMillis(50),
+                    latency.getPercentileMillis(95),
+                    latency.getPercentileMillis(99),
+                    latency.getMaxMillis()
+            ));
+        });
+        metrics.sort(Comparator.comparingDouble(QueryStats::totalMillis).reversed());
+        return metrics;
+    }
+
+    /**
+     * @return the latest slow statements, newest first
+     */
+    public static List<SlowQuery> getSlowQueries() {
+        synchronized (slowQueries) {
+            return new ArrayList<>(slowQueries);
+        }
+    }
+
+    private static void logSlowQuery(SlowQuery slowQuery) {
+        logger.warn("Slow query on {} ({}): {}ms, {} rows, binds {}: {}", slowQuery.table(), slowQuery.operation(),
+                Math.round(slowQuery.millis()), slowQuery.rows(), slowQuery.bindShape(), slowQuery.sql());
+        if (SLOW_QUERY_LOG_SIZE <= 0) {
+            return;
+        }
+        synchronized (slowQueries) {
+            if (slowQueries.size() == SLOW_QUERY_LOG_SIZE) {
+                slowQueries.removeLast();
+            }
+            slowQueries.addFirst(slowQuery);
+        }
+    }
+
+    /**
+     * Describes the parameters by type only, so no user data ends up in the log.
+     */
+    static String bindShape(Collection<?> parameters) {
+        if (parameters == null) {
+            return "?";
+        }
+        StringBuilder shape = new StringBuilder("[");
+        for (Object parameter : parameters) {
+            if (shape.length() > 1) {
+                shape.append(", ");
+            }
+            if (parameter == null) {
+                shape.append("null");
+            } else if (parameter instanceof BoundQuery.ArrayParameter array) {
+                shape.append(array.elementType()).append('[').append(array.elements().length).append(']');
+            } else if (parameter instanceof BoundQuery.JsonParameter) {
+                shape.append("json");
+            } else if (parameter instanceof Collection<?> collection) {
+                shape.append("array[").append(collection.size()).append(']');
+            } else {
+                shape.append(parameter.getClass().getSimpleName());
+            }
+        }
+        return shape.append(']').toString();
+    }
+}
@@ -0,0 +1,31 @@
+package com.mcm.backend.app.database.core.components;
+
+/**
+ * Latency and row counts of one DAO operation on one table, see {@link QueryMetrics}.
+ *
+ * @param table       the table name
+ * @param operation   the DAO operation, e.g. {@code get}, {@code loadReferences} or {@code filter[owner EQ]}
+ * @param calls       statements executed since startup
+ * @param errors      statements that failed
+ * @param rows        rows returned (reads) or affected (writes) over all calls
+ * @param maxRows     most rows a single call returned or affected
+ * @param totalMillis time spent in all calls together
+ * @param meanMillis  average time per call
+ * @param p50Millis   median time per call
+ * @param p95Millis   95th percentile time per call
+ * @param p99Millis   99th percentile time per call
+ * @param maxMillis   slowest call
+ */
+public record QueryStats(String table,
+                         String operation,
+                         long calls,
+                         long errors,
+                         long rows,
+                         long maxRows,
+                         double totalMillis,
+                         double meanMillis,
+                         double p50Millis,
+                         double p95Millis,
+                         double p99Millis,
+                         double maxMillis) {
+}
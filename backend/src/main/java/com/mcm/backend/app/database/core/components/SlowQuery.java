@@ -0,0 +1,23 @@
+package com.mcm.backend.app.database.core.components;
+
+import java.time.Instant;
+
+/**
+ * A statement that ran longer than {@code DATASOURCE_SLOW_QUERY_MS}, see {@link QueryMetrics}.
+ *
+ * @param at         when the statement finished
+ * @param table      the table name
+ * @param operation  the DAO operation
+ * @param sql        the SQL with its placeholders
+ * @param bindShape  the types of the bound parameters (never their values), e.g. {@code [String, uuid[25]]}
+ * @param rows       rows returned or affected, -1 if the statement failed
+ * @param millis     time the statement took
+ */
+public record SlowQuery(Instant at,
+                        String table,
+                        String operation,
+                        String sql,
+                        String bindShape,
+                        long rows,
+                        double millis) {
+}
@@ -0,0 +1,287 @@
+package com.mcm.backend.app.database.core.components;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of {@link PreparedStatement}s per physical connection.
+ * <p>
+ * Statements are prepared on the physical connection behind the pool proxy, because the pool closes every statement
+ * created through its proxy when the connection is returned. Reusing the same statement object lets the driver switch
+ * to a server-side prepared statement after a few executions, so Postgres skips parsing and planning.
+ * <p>
+ * A statement is leased to one caller at a time: while it is in use (e.g. a nested query with the same SQL is running
+ * while the outer ResultSet is still open) a second, uncached statement is handed out instead.
+ * The size per connection is configured through {@code DATASOURCE_STATEMENT_CACHE_SIZE}.
+ */
+public final class StatementCache {
+
+    private static final int MAX_STATEMENTS_PER_CONNECTION = Database.getStatementCacheSize();
+
+    // keyed by identity: driver connections do not override equals()
+    private static final Map<Connection, ConnectionStatements> caches = new IdentityHashMap<>();
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder evictions = new LongAdder();
+
+    private StatementCache() {
+    }
+
+    /**
+     * Leases a prepared statement for the SQL on the given (pooled) connection.
+     * Closing the lease returns the statement to the cache, or closes it if it is not cached.
+     *
+     * @param connection the connection the DAO works on
+     * @param sql        the SQL to prepare
+     * @return the lease holding the statement
+     */
+    public static Lease prepare(Connection connection, String sql) throws SQLException {
+        if (MAX_STATEMENTS_PER_CONNECTION <= 0) {
+            return new Lease(connection.prepareStatement(sql), null, sql);
+        }
+
+        Connection physical = connection.unwrap(Connection.class);
+        ConnectionStatements statements;
+        synchronized (caches) {
+            statements = caches.get(physical);
+            if (statements == null) {
+                removeClosedConnections();
+                statements = new ConnectionStatements();
+                caches.put(physical, statements);
+            }
+        }
+
+        synchronized (statements) {
+            CachedStatement cached = statements.get(sql);
+            if (cached != null && !cached.inUse) {
+                hits.increment();
+                cached.inUse = true;
+                return new Lease(cached.statement, cached, sql);
+            }
+            misses.increment();
+            if (cached != null) {
+                // Same SQL already leased further up the stack: hand out a private statement
+                return new Lease(physical.prepareStatement(sql), null, sql);
+            }
+            CachedStatement created = new CachedStatement(sql, physical.prepareStatement(sql), statements);
+            created.inUse = true;
+            statements.put(sql, created);
+            return new Lease(created.statement, created, sql);
+        }
+    }
+
+    /**
+     * @return the current cache counters
+     */
+    public static StatementCacheMetrics getMetrics() {
+        int connections;
+        int statementCount = 0;
+        synchronized (caches) {
+            connections = caches.size();
+            for (ConnectionStatements statements : caches.values()) {
+                synchronized (statements) {
+                    statementCount += statements.size();
+                }
+            }
+        }
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        return new StatementCacheMetrics(
+                connections,
+                statementCount,
+                hitCount,
+                missCount,
+                evictions.sum(),
+                total == 0 ? 0 : hitCount / (double) total
+        );
+    }
+
+    /**
+     * Drops the caches of connections the pool has closed (their statements are closed with them).
+     * Called under the {@code caches} lock whenever a new physical connection shows up.
+     */
+    private static void removeClosedConnections() {
+        Iterator<Map.Entry<Connection, ConnectionStatements>> iterator = caches.entrySet().iterator();
+        while (iterator.hasNext()) {
+            try {
+                if (iterator.next().getKey().isClosed()) {
+                    iterator.remove();
+                }
+            } catch (SQLException e) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            // The connection is broken; the pool evicts it together with its statements
+        }
+    }
+
+    /**
+     * Access-ordered statements of one connection; the least recently used one is closed when the cache is full.
+     */
+    private static final class ConnectionStatements extends LinkedHashMap<String, CachedStatement> {
+        private ConnectionStatements() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+            if (size() <= MAX_STATEMENTS_PER_CONNECTION) {
+                return false;
+            }
+            evictions.increment();
+            CachedStatement cached = eldest.getValue();
+            cached.evicted = true;
+            if (!cached.inUse) {
+                closeQuietly(cached.statement);
+            }
+            return true;
+        }
+    }
+
+    private static final class CachedStatement {
+        private final String sql;
+        private final PreparedStatement statement;
+        private final ConnectionStatements owner;
+        private boolean inUse;
+        private boolean evicted;
+
+        private CachedStatement(String sql, PreparedStatement statement, ConnectionStatements owner) {
+            this.sql = sql;
+            this.statement = statement;
+            this.owner = owner;
+        }
+    }
+
+    /**
+     * A statement borrowed from the cache. Use it in try-with-resources and do not close the statement itself.
+     * <p>
+     * A lease labeled through {@link #instrument} is recorded in the {@link QueryMetrics} when it is closed; set the
+     * row count with {@link #rows} once the statement succeeded, a lease closed without one counts as failed.
+     * Run the statement through the lease's {@code execute*} methods: only their time is reported, not the time
+     * spent reading results or binding parameters.
+     */
+    public static final class Lease implements AutoCloseable {
+        private final PreparedStatement statement;
+        private final CachedStatement cached;
+        private final String sql;
+        private long executionNanos;
+        private String table;
+        private String operation;
+        private Collection<?> parameters;
+        private long rows = -1;
+
+        private Lease(PreparedStatement statement, CachedStatement cached, String sql) {
+            this.statement = statement;
+            this.cached = cached;
+            this.sql = sql;
+        }
+
+        public PreparedStatement statement() {
+            return statement;
+        }
+
+        public ResultSet executeQuery() throws SQLException {
+            long start = System.nanoTime();
+            try {
+                return statement.executeQuery();
+            } finally {
+                executionNanos += System.nanoTime() - start;
+            }
+        }
+
+        public int executeUpdate() throws SQLException {
+            long start = System.nanoTime();
+            try {
+                return statement.executeUpdate();
+            } finally {
+                executionNanos += System.nanoTime() - start;
+            }
+        }
+
+        public int[] executeBatch() throws SQLException {
+            long start = System.nanoTime();
+            try {
+                return statement.executeBatch();
+            } finally {
+                executionNanos += System.nanoTime() - start;
+            }
+        }
+
+        /**
+         * Labels the statement for the {@link QueryMetrics}.
+         */
+        public Lease instrument(String table, String operation) {
+            this.table = table;
+            this.operation = operation;
+            return this;
+        }
+
+        /**
+         * The bound parameters, of which only the types show up in the slow query log.
+         */
+        public void parameters(Collection<?> parameters) {
+            this.parameters = parameters;
+        }
+
+        /**
+         * Marks the statement as succeeded with the given number of rows returned or affected.
+         */
+        public void rows(long rows) {
+            this.rows = rows;
+        }
+
+        /**
+         * Resets the statement and hands it back to the cache (or closes it when it is not cached). The time spent
+         * executing the statement is reported to the {@link DatabaseCircuitBreaker} and the {@link QueryMetrics}.
+         */
+        @Override
+        public void close() {
+            DatabaseCircuitBreaker.recordCall(executionNanos);
+            if (operation != null) {
+                QueryMetrics.record(table, operation, sql, parameters, rows, executionNanos);
+            }
+            if (cached == null) {
+                closeQuietly(statement);
+                return;
+            }
+
+            boolean reusable;
+            try {
+                statement.clearParameters();
+                statement.clearBatch();
+                statement.setQueryTimeout(0);
+                reusable = true;
+            } catch (SQLException e) {
+                // A statement that cannot be reset is not reused
+                reusable = false;
+            }
+
+            synchronized (cached.owner) {
+                cached.inUse = false;
+                if (!reusable && !cached.evicted) {
+                    cached.owner.remove(cached.sql);
+                    cached.evicted = true;
+                }
+                if (cached.evicted) {
+                    closeQuietly(statement);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.mcm.backend.app.database.core.components;
+
+/**
+ * Counters of the per-connection {@link StatementCache}.
+ *
+ * @param connections physical connections that currently have cached statements
+ * @param statements  statements currently cached over all connections
+ * @param hits        prepares answered from the cache
+ * @param misses      prepares that had to create a new statement
+ * @param evictions   statements closed because their connection's cache was full
+ * @param hitRate     hits / (hits + misses), 0 when nothing was prepared yet
+ */
+public record StatementCacheMetrics(int connections,
+                                    int statements,
+                                    long hits,
+                                    long misses,
+                                    long evictions,
+                                    double hitRate) {
+}
@@ -0,0 +1,307 @@
+package com.mcm.backend.app.database.core.components;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A unit of work shares one connection (and one transaction) between every DAO created on the current thread.
+ * <p>
+ * The connection is borrowed lazily from {@link Database} on first use and committed or rolled back exactly once
+ * when the unit of work is closed. HTTP requests are wrapped by the {@code UnitOfWorkFilter}; background work can use
+ * {@link #execute(Work)} / {@link #run(VoidWork)}.
+ * <p>
+ * Handlers that do long work without the database (archiving files, starting processes, RCON) {@link #release()} the
+ * transaction first, so they don't hold a pooled connection and an open transaction meanwhile.
+ */
+public class UnitOfWork implements AutoCloseable {
+
+    private static final ThreadLocal<UnitOfWork> current = new ThreadLocal<>();
+
+    private final List<Runnable> afterCommitCallbacks = new ArrayList<>();
+    private final List<Runnable> afterCompletionCallbacks = new ArrayList<>();
+    private Connection connection;
+    private boolean rollbackOnly;
+    private boolean closed;
+    private long deadlineNanos;
+    private long timeoutMillis;
+    private boolean hasDeadline;
+
+    private UnitOfWork() {
+    }
+
+    /**
+     * Starts a new unit of work bound to the current thread.
+     *
+     * @return the new unit of work, to be closed by the caller
+     * @throws IllegalStateException if the current thread already has an active unit of work
+     */
+    public static UnitOfWork begin() {
+        if (current.get() != null) {
+            throw new IllegalStateException("A unit of work is already active on this thread");
+        }
+        UnitOfWork unitOfWork = new UnitOfWork();
+        current.set(unitOfWork);
+        return unitOfWork;
+    }
+
+    /**
+     * @return the unit of work bound to the current thread, or {@code null} if there is none
+     */
+    public static UnitOfWork current() {
+        return current.get();
+    }
+
+    /**
+     * Runs the work inside the current unit of work, or inside a new one that is completed when the work returns.
+     * If the work throws, the (new or joined) unit of work is marked rollback-only.
+     *
+     * @param work the work to run
+     * @return the result of the work
+     */
+    public static <R, E extends Exception> R execute(Work<R, E> work) throws E {
+        UnitOfWork active = current.get();
+        if (active != null) {
+            try {
+                return work.run();
+            } catch (Exception | Error e) {
+                active.setRollbackOnly();
+                throw e;
+            }
+        }
+
+        UnitOfWork unitOfWork = begin();
+        R result;
+        try {
+            result = work.run();
+        } catch (Exception | Error e) {
+            unitOfWork.setRollbackOnly();
+            try {
+                unitOfWork.close();
+            } catch (RuntimeException closeException) {
+                e.addSuppressed(closeException);
+            }
+            throw e;
+        }
+        unitOfWork.close();
+        return result;
+    }
+
+    /**
+     * Void variant of {@link #execute(Work)}.
+     */
+    public static <E extends Exception> void run(VoidWork<E> work) throws E {
+        execute(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * {@link #release()}s the unit of work of the current thread, if there is one.
+     */
+    public static void releaseCurrent() {
+        UnitOfWork unitOfWork = current.get();
+        if (unitOfWork != null) {
+            unitOfWork.release();
+        }
+    }
+
+    /**
+     * Returns the shared connection, borrowing it from the pool on first use.
+     *
+     * @return the connection of this unit of work (auto-commit disabled)
+     */
+    public Connection getConnection() {
+        if (closed) {
+            throw new IllegalStateException("Unit of work already closed");
+        }
+        if (connection == null) {
+            Connection borrowed = Database.getConnection();
+            try {
+                borrowed.setAutoCommit(false);
+            } catch (SQLException e) {
+                closeQuietly(borrowed);
+                throw new RuntimeException(e);
+            }
+            connection = borrowed;
+        }
+        return connection;
+    }
+
+    /**
+     * @return true if the given connection is the shared connection of this unit of work
+     */
+    public boolean usesConnection(Connection connection) {
+        return this.connection != null && this.connection == connection;
+    }
+
+    /**
+     * Marks this unit of work so that it is rolled back instead of committed when closed.
+     */
+    public void setRollbackOnly() {
+        this.rollbackOnly = true;
+    }
+
+    public boolean isRollbackOnly() {
+        return rollbackOnly;
+    }
+
+    /**
+     * Limits the time the database work of this unit of work may take, counted from now. DAOs cap the statement
+     * timeout of every query to the time that is left, so the database cancels work nobody waits for anymore.
+     *
+     * @param millis the time budget in milliseconds
+     */
+    public void setTimeout(long millis) {
+        this.timeoutMillis = millis;
+        this.deadlineNanos = System.nanoTime() + millis * 1_000_000;
+        this.hasDeadline = true;
+    }
+
+    /**
+     * @return the milliseconds left until the deadline (negative once it passed), or {@code null} without a timeout
+     */
+    public Long getRemainingMillis() {
+        if (!hasDeadline) {
+            return null;
+        }
+        return (deadlineNanos - System.nanoTime()) / 1_000_000;
+    }
+
+    /**
+     * Registers a callback that runs after a successful commit (never after a rollback).
+     *
+     * @param callback the callback to run
+     */
+    public void afterCommit(Runnable callback) {
+        afterCommitCallbacks.add(callback);
+    }
+
+    /**
+     * Registers a callback that runs once the transaction ended, whether it was committed or rolled back.
+     *
+     * @param callback the callback to run
+     */
+    public void afterCompletion(Runnable callback) {
+        afterCompletionCallbacks.add(callback);
+    }
+
+    /**
+     * Ends the current transaction early: commits it (or rolls it back when marked rollback-only), runs its callbacks
+     * and returns the connection to the pool. The unit of work stays bound to the thread; DAOs created afterwards
+     * borrow a fresh connection for a new transaction, whose timeout starts over. DAOs created before must not be
+     * used anymore.
+     *
+     * @throws RuntimeException if the commit fails; the transaction is rolled back in that case
+     */
+    public void release() {
+        if (closed) {
+            throw new IllegalStateException("Unit of work already closed");
+        }
+        try {
+            complete(!rollbackOnly);
+        } finally {
+            if (hasDeadline) {
+                setTimeout(timeoutMillis);
+            }
+        }
+    }
+
+    /**
+     * Rolls back the current transaction and returns the connection to the pool; like {@link #release()} the unit of
+     * work stays usable for a new transaction.
+     */
+    public void rollback() {
+        if (closed) {
+            throw new IllegalStateException("Unit of work already closed");
+        }
+        complete(false);
+    }
+
+    /**
+     * Commits (or rolls back when marked rollback-only), returns the connection to the pool
+     * and unbinds this unit of work from the current thread.
+     *
+     * @throws RuntimeException if the commit fails; the transaction is rolled back in that case
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        current.remove();
+        complete(!rollbackOnly);
+    }
+
+    /**
+     * Ends the transaction of the borrowed connection (if any) and returns the connection; the callbacks of the
+     * transaction run and are cleared.
+     */
+    private void complete(boolean commit) {
+        // Nothing was borrowed, so nothing to complete
+        if (connection == null) {
+            return;
+        }
+
+        Connection completing = connection;
+        List<Runnable> commitCallbacks = new ArrayList<>(afterCommitCallbacks);
+        List<Runnable> completionCallbacks = new ArrayList<>(afterCompletionCallbacks);
+        connection = null;
+        afterCommitCallbacks.clear();
+        afterCompletionCallbacks.clear();
+
+        boolean committed = false;
+        try {
+            if (!commit) {
+                completing.rollback();
+            } else {
+                completing.commit();
+                committed = true;
+            }
+        } catch (SQLException e) {
+            try {
+                completing.rollback();
+            } catch (SQLException rollbackException) {
+                e.addSuppressed(rollbackException);
+            }
+            throw new RuntimeException("Failed to complete unit of work", e);
+        } finally {
+            try {
+                completing.setAutoCommit(true);
+            } catch (SQLException ignored) {
+                // The pool resets the auto-commit state itself when the connection is returned
+            }
+            closeQuietly(completing);
+            for (Runnable callback : completionCallbacks) {
+                callback.run();
+            }
+        }
+
+        if (committed) {
+            for (Runnable callback : commitCallbacks) {
+                callback.run();
+            }
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // Connection is already broken; the pool evicts it
+        }
+    }
+
+    @FunctionalInterface
+    public interface Work<R, E extends Exception> {
+        R run() throws E;
+    }
+
+    @FunctionalInterface
+    public interface VoidWork<E extends Exception> {
+        void run() throws E;
+    }
+}
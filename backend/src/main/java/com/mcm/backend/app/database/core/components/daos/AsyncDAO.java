@@ -0,0 +1,108 @@
+package com.mcm.backend.app.database.core.components.daos;
+
+import com.mcm.backend.app.database.core.components.Database;
+import com.mcm.backend.app.database.core.components.UnitOfWork;
+import com.mcm.backend.app.database.core.components.daos.querying.QuerySpec;
+import com.mcm.backend.app.database.core.components.tables.Table;
+import com.mcm.backend.app.database.core.components.tables.TableEntity;
+
+import java.sql.Connection;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs {@link DAO} operations on virtual threads, so independent lookups of one request can run in parallel.
+ * <p>
+ * Every operation borrows its own connection from {@link Database#getAsyncConnection()} and runs in auto-commit
+ * mode: it does not see uncommitted writes of the caller's {@code UnitOfWork}, so only use it for lookups that do not
+ * depend on them. The deadline of the caller's {@code UnitOfWork} still applies to its statements. Join the results
+ * with {@link #await}.
+ *
+ * @param <T> the entity type
+ * @param <K> the primary key type
+ */
+public final class AsyncDAO<T extends TableEntity, K> {
+
+    private static final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Table<T, K> table;
+
+    /**
+     * An operation on a DAO; checked exceptions fail the future.
+     */
+    @FunctionalInterface
+    public interface Operation<T extends TableEntity, K, R> {
+        R apply(DAO<T, K> dao) throws Exception;
+    }
+
+    public AsyncDAO(Table<T, K> table) {
+        this.table = table;
+    }
+
+    /**
+     * Runs an operation on a DAO with its own connection, within the time left to the caller's unit of work.
+     */
+    public <R> CompletableFuture<R> run(Operation<T, K, R> operation) {
+        // Taken on the calling thread: the unit of work is thread-bound
+        UnitOfWork unitOfWork = UnitOfWork.current();
+        Long remainingMillis = (unitOfWork == null) ? null : unitOfWork.getRemainingMillis();
+        Long deadlineNanos = (remainingMillis == null) ? null : System.nanoTime() + remainingMillis * 1_000_000;
+
+        return CompletableFuture.supplyAsync(() -> {
+            try (Connection connection = Database.getAsyncConnection();
+                 DAO<T, K> dao = new DAO<>(connection, table)) {
+                if (deadlineNanos != null) {
+                    dao.setDeadline(deadlineNanos);
+                }
+                return operation.apply(dao);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    public CompletableFuture<T> get(K primaryKey) {
+        return run(dao -> dao.get(primaryKey));
+    }
+
+    public CompletableFuture<Boolean> existsByPrimaryKey(K primaryKey) {
+        return run(dao -> dao.existsByPrimaryKey(primaryKey));
+    }
+
+    public CompletableFuture<List<T>> getByPrimaryKeys(Collection<?> primaryKeys) {
+        return run(dao -> dao.getByPrimaryKeys(primaryKeys));
+    }
+
+    public CompletableFuture<List<T>> get(QuerySpec query) {
+        return run(dao -> dao.get(query));
+    }
+
+    public CompletableFuture<List<T>> getAll() {
+        return run(DAO::getAll);
+    }
+
+    /**
+     * Waits for a result, rethrowing the failure of the operation as is (checked exceptions wrapped in a
+     * {@link RuntimeException}).
+     */
+    public static <R> R await(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.mcm.backend.app.database.core.components.daos;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mcm.backend.app.database.core.components.Database;
+import com.mcm.backend.app.database.core.components.StatementCache;
+import com.mcm.backend.app.database.core.components.tables.Table;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Keeps in-process caches consistent across backend nodes that share one database.
+ * <p>
+ * Every write to a {@code @Cached} table sends a {@code NOTIFY} on the {@value #CHANNEL} channel with the table and the
+ * written primary keys. It is sent on the writing connection, so Postgres only delivers it when the transaction
+ * commits. One listener thread per node ({@link #start()}) turns the notifications of other nodes into local
+ * invalidations: the table version is bumped, the keys are dropped from the {@link EntityCache} and the
+ * {@link #subscribe subscribers} are told. Local writes reach the local caches and subscribers directly.
+ * <p>
+ * If the listener connection is lost, notifications may have been missed, so every cache is flushed before
+ * listening again. Disabled with {@code DATASOURCE_CHANGE_NOTIFICATIONS=false}.
+ */
+public final class ChangeNotifier {
+
+    static final String CHANNEL = "mcm_cache";
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeNotifier.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Postgres rejects payloads of 8000 bytes or more; larger changes are sent without keys (whole table)
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+    private static final int POLL_TIMEOUT_MS = 10_000;
+    private static final long MAX_RECONNECT_DELAY_MS = 30_000;
+
+    private static final String NODE_ID = UUID.randomUUID().toString();
+    private static final Map<Class<?>, List<Consumer<Set<String>>>> subscribers = new ConcurrentHashMap<>();
+
+    private static volatile Thread listenerThread;
+
+    /**
+     * The notification payload.
+     *
+     * @param node   the node that wrote, so it can ignore its own notifications
+     * @param entity the entity class name
+     * @param table  the table name (for humans watching the channel)
+     * @param keys   the written primary keys as strings; empty when the whole table may have changed
+     */
+    record Change(String node, String entity, String table, Set<String> keys) {
+    }
+
+    private ChangeNotifier() {
+    }
+
+    /**
+     * Registers a listener for committed changes of a {@code @Cached} table, made by this or any other node.
+     *
+     * @param entityClass the entity class of the table
+     * @param listener    receives the changed primary keys (as strings), or an empty set if any row may have changed
+     */
+    public static void subscribe(Class<?> entityClass, Consumer<Set<String>> listener) {
+        subscribers.computeIfAbsent(entityClass, c -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * For subscribers that keep data built from tables: while a unit of work holds uncommitted writes to one of them,
+     * data read now may include rows that are rolled back (and then never notified), so it must not be kept.
+     *
+     * @param entityClasses the entity classes of the tables the data is built from
+     * @return true if any of the tables has uncommitted writes
+     */
+    public static boolean hasUncommittedWrites(Class<?>... entityClasses) {
+        for (Class<?> entityClass : entityClasses) {
+            if (TableVersion.of(entityClass).readStamp() < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Starts the listener thread of this node (once).
+     */
+    public static synchronized void start() {
+        if (listenerThread != null || !Database.isChangeNotificationsEnabled()) {
+            return;
+        }
+        listenerThread = new Thread(ChangeNotifier::listen, "mcm-change-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    /**
+     * Queues the notification for the other nodes on the writing connection (delivered on commit).
+     */
+    static void publish(Connection connection, Table<?, ?> table, Collection<Object> keys) {
+        if (!Database.isChangeNotificationsEnabled()) {
+            return;
+        }
+        String payload = toPayload(table, keys);
+        try (StatementCache.Lease lease = StatementCache.prepare(connection, "SELECT pg_notify(?, ?)")) {
+            PreparedStatement ps = lease.statement();
+            ps.setString(1, CHANNEL);
+            ps.setString(2, payload);
+            try (ResultSet ignored = lease.executeQuery()) {
+                // pg_notify returns void
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to publish change of " + table.getTableName(), e);
+        }
+    }
+
+    /**
+     * Tells the subscribers of this node about a committed change.
+     */
+    static void notifySubscribers(Class<?> entityClass, Set<String> keys) {
+        for (Consumer<Set<String>> listener : subscribers.getOrDefault(entityClass, List.of())) {
+            try {
+                listener.accept(keys);
+            } catch (RuntimeException e) {
+                logger.warn("Change listener for {} failed", entityClass.getSimpleName(), e);
+            }
+        }
+    }
+
+    private static String toPayload(Table<?, ?> table, Collection<Object> keys) {
+        Set<String> keyStrings = new LinkedHashSet<>();
+        for (Object key : keys) {
+            keyStrings.add(String.valueOf(key));
+        }
+        try {
+            Change change = new Change(NODE_ID, table.getEntityClass().getName(), table.getTableName(), keyStrings);
+            String payload = objectMapper.writeValueAsString(change);
+            if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+                change = new Change(NODE_ID, table.getEntityClass().getName(), table.getTableName(), Set.of());
+                payload = objectMapper.writeValueAsString(change);
+            }
+            return payload;
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize change notification", e);
+        }
+    }
+
+    private static void listen() {
+        long reconnectDelay = 1_000;
+        boolean missedChanges = false;
+        while (!Thread.currentThread().isInterrupted()) {
+            try (Connection connection = Database.openDedicatedConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if (missedChanges) {
+                    // Changes committed while we were not listening are unknown
+                    flushAll();
+                    missedChanges = false;
+                }
+                reconnectDelay = 1_000;
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (!Thread.currentThread().isInterrupted()) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        handle(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                missedChanges = true;
+                logger.warn("Change listener connection lost, reconnecting in {} ms", reconnectDelay, e);
+                try {
+                    Thread.sleep(reconnectDelay);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                reconnectDelay = Math.min(reconnectDelay * 2, MAX_RECONNECT_DELAY_MS);
+            }
+        }
+    }
+
+    private static void handle(String payload) {
+        Change change;
+        Class<?> entityClass;
+        try {
+            change = objectMapper.readValue(payload, Change.class);
+            if (NODE_ID.equals(change.node())) {
+                return;
+            }
+            entityClass = Class.forName(change.entity());
+        } catch (JsonProcessingException | ClassNotFoundException e) {
+            logger.warn("Ignoring unreadable change notification: {}", payload, e);
+            return;
+        }
+
+        TableVersion.of(entityClass).bump();
+        EntityCache cache = EntityCache.find(entityClass);
+        if (cache != null) {
+            cache.invalidateMatching(change.keys());
+        }
+        notifySubscribers(entityClass, change.keys());
+    }
+
+    private static void flushAll() {
+        TableVersion.bumpAll();
+        EntityCache.invalidateEverything();
+        for (Class<?> entityClass : subscribers.keySet()) {
+            notifySubscribers(entityClass, Set.of());
+        }
+    }
+}
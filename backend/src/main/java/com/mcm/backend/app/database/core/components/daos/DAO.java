@@ -1,23 +1,52 @@
 package com.mcm.backend.app.database.core.components.daos;
 
+import com.mcm.backend.app.database.core.annotations.table.Cached;
+import com.mcm.backend.app.database.core.annotations.table.QueryTimeout;
 import com.mcm.backend.app.database.core.annotations.table.UniqueColumn;
 import com.mcm.backend.app.database.core.components.Database;
+import com.mcm.backend.app.database.core.components.DatabaseCircuitBreaker;
+import com.mcm.backend.app.database.core.components.QueryMetrics;
+import com.mcm.backend.app.database.core.components.StatementCache;
+import com.mcm.backend.app.database.core.components.UnitOfWork;
 import com.mcm.backend.app.database.core.components.daos.querying.FilterCriterion;
 import com.mcm.backend.app.database.core.components.daos.querying.QueryBuilder;
+import com.mcm.backend.app.database.core.components.daos.querying.QuerySpec;
+import com.mcm.backend.app.database.core.components.tables.BoundQuery;
+import com.mcm.backend.app.database.core.components.tables.FetchJoin;
+import com.mcm.backend.app.database.core.components.tables.Projection;
 import com.mcm.backend.app.database.core.components.tables.Table;
 import com.mcm.backend.app.database.core.components.tables.TableEntity;
 import com.mcm.backend.app.database.core.components.tables.TableUtils;
+import com.mcm.backend.exceptions.DatabaseUnavailableException;
+import com.mcm.backend.exceptions.OptimisticLockException;
 
 import java.lang.reflect.Field;
 import java.sql.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class DAO<T, K> implements AutoCloseable {
 
+    /**
+     * Number of rows sent per JDBC batch (or per {@code ANY(?)} array) by the bulk operations,
+     * configurable through {@code DATASOURCE_BATCH_SIZE}.
+     */
+    public static final int DEFAULT_BATCH_SIZE = Database.getBatchSize();
+
+    /**
+     * Number of rows fetched per round trip by {@link #stream()}, configurable through {@code DATASOURCE_FETCH_SIZE}.
+     */
+    public static final int DEFAULT_FETCH_SIZE = Database.getFetchSize();
+
     protected final Connection connection;
     private final Boolean connectionOpened;
     private final Table<T, K> table;
+    private final EntityCache cache;
+    private final int queryTimeoutSeconds;
+    // Deadline (System.nanoTime) inherited from a unit of work on another thread, null if none (see AsyncDAO)
+    private Long deadlineNanos;
 
     /**
      * Constructs a DAO with a new database connection for the specified table.
@@ -28,6 +57,8 @@ public class DAO<T, K> implements AutoCloseable {
         this.table = table;
         this.connection = Database.getConnection();
         this.connectionOpened = true;
+        this.cache = EntityCache.of(table);
+        this.queryTimeoutSeconds = queryTimeoutOf(table);
     }
 
     /**
@@ -40,6 +71,8 @@ public class DAO<T, K> implements AutoCloseable {
         this.connection = connection;
         this.connectionOpened = false;
         this.table = table;
+        this.cache = EntityCache.of(table);
+        this.queryTimeoutSeconds = queryTimeoutOf(table);
 
         // TODO check if validation computing tax is worth it
 //        try {
@@ -63,7 +96,10 @@ public class DAO<T, K> implements AutoCloseable {
         if (primaryKey == null) {
             return false;
         }
-        return queryUniqueFieldExists(table.getPrimaryKeyColumnName(), primaryKey);
+        if (cachesRows()) {
+            return getRow(primaryKey) != null;
+        }
+        return queryExists("exists", table.getExistsByPrimaryKeyQuery(), primaryKey);
     }
 
     /**
@@ -79,26 +115,29 @@ public class DAO<T, K> implements AutoCloseable {
         if (!uniqueField.isAnnotationPresent(UniqueColumn.class)) {
             throw new RuntimeException("Field " + uniqueField.getName() + " is not annotated with @UniqueColumn");
         }
-        return queryUniqueFieldExists(table.getColumnName(uniqueField), isData);
-    }
-
-    private <D> boolean queryUniqueFieldExists(String columnName, D isData) {
         String query = String.format(
             "SELECT 1 FROM %s WHERE %s = ? LIMIT 1",
-            table.getTableName(), columnName
+            table.getTableName(), table.getColumnName(uniqueField)
         );
+        return queryExists("existsByUniqueField[" + uniqueField.getName() + "]", query, isData);
+    }
 
-        try (PreparedStatement ps = connection.prepareStatement(query)) {
+    private <D> boolean queryExists(String operation, String query, D isData) {
+        try (StatementCache.Lease lease = prepare(operation, query)) {
+            PreparedStatement ps = lease.statement();
             Object bindValue = isData;
             if (isData instanceof TableEntity) {
                 bindValue = TableUtils.getPrimaryKeyValue(isData);
             }
             ps.setObject(1, bindValue);
-            try (ResultSet rs = ps.executeQuery()) {
-                return rs.next();
+            lease.parameters(Collections.singletonList(bindValue));
+            try (ResultSet rs = lease.executeQuery()) {
+                boolean exists = rs.next();
+                lease.rows(exists ? 1 : 0);
+                return exists;
             }
         } catch (SQLException e) {
-            throw new RuntimeException(e);
+            throw DatabaseCircuitBreaker.translate(e);
         }
     }
 
@@ -117,41 +156,244 @@ public class DAO<T, K> implements AutoCloseable {
 
     /**
      * Inserts the specified entity into the table if it does not already exist.
+     * Uses {@code INSERT … ON CONFLICT (pk) DO NOTHING}, so no existence check round trip is needed.
      *
      * @param entity the entity to insert
+     * @return true if the entity was inserted; false if a record with the same primary key already exists
      */
-    public void add(T entity) {
-        if (!exists(entity)) {
-            try {
-                PreparedStatement addStatement = connection.prepareStatement(table.getInsertQuery());
-                table.prepareInsertStatement(addStatement, entity);
-                addStatement.executeUpdate();
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
-            }
+    public boolean add(T entity) {
+        boolean inserted = executeEntityUpdate("add", table.getInsertIfAbsentQuery(), entity, table::prepareInsertStatement) > 0;
+        if (inserted) {
+            written(entity);
         }
+        return inserted;
     }
 
     /**
      * Updates the specified entity in the table.
+     * For entities loaded through a DAO only the columns that changed since loading (or the last save) are written,
+     * and no statement is sent at all if nothing changed.
+     * <p>
+     * For {@code @Version}ed entities the row is only written if its version still matches the entity's, and the
+     * version of the entity is incremented with it. If the caller replaced the version the entity was loaded with
+     * (e.g. by the one a client based its change on), the version is checked even when no column changed.
      *
      * @param entity the entity to update
+     * @throws OptimisticLockException if the entity is versioned and the row was changed or deleted since it was read
      * @throws RuntimeException if the entity does not exist or a SQL error occurs
      */
     public void update(T entity) {
-        if (!exists(entity)) {
-            throw new RuntimeException("Entity does not exist.");
+        int[] changed = table.getChangedColumnIndexes(entity);
+        if (changed != null && changed.length == 0 && !table.isVersionChanged(entity)) {
+            // Loaded through a DAO and not modified since: nothing to write
+            return;
         }
-        try {
-            PreparedStatement updateStatement = connection.prepareStatement(table.getUpdateQuery());
-            table.prepareUpdateStatement(updateStatement, entity);
-            updateStatement.executeUpdate();
-            int rowsAffected = updateStatement.executeUpdate();
-            if (rowsAffected == 0) {
-                throw new RuntimeException("No rows affected");
+
+        int rowsAffected = (changed == null)
+                ? executeEntityUpdate("update", table.getUpdateQuery(), entity, table::prepareUpdateStatement)
+                : executeEntityUpdate("update", table.getUpdateQuery(changed), entity,
+                        (ps, e) -> table.prepareUpdateStatement(ps, e, changed));
+        if (rowsAffected == 0) {
+            throw notUpdated(entity);
+        }
+        table.advanceVersion(entity);
+        table.markClean(entity);
+        written(entity);
+    }
+
+    /**
+     * Inserts the entity, or updates every non-key column when a record with the same primary key exists,
+     * using a single {@code INSERT … ON CONFLICT (pk) DO UPDATE} statement.
+     * A {@code @Version} column is incremented but not checked: an upsert always wins.
+     *
+     * @param entity the entity to insert or update
+     */
+    public void upsert(T entity) {
+        executeEntityUpdate("upsert", table.getUpsertQuery(), entity, table::prepareInsertStatement);
+        written(entity);
+    }
+
+    /**
+     * Inserts all entities that do not exist yet, sending them in JDBC batches of {@link #DEFAULT_BATCH_SIZE}.
+     * The driver rewrites each batch into a multi-row {@code INSERT … VALUES (…), (…)}.
+     *
+     * @param entities the entities to insert
+     */
+    public void addAll(Collection<? extends T> entities) {
+        addAll(entities, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Same as {@link #addAll(Collection)} with an explicit chunk size.
+     *
+     * @param batchSize the maximum number of rows per round trip
+     */
+    public void addAll(Collection<? extends T> entities, int batchSize) {
+        executeEntityBatch("addAll", table.getInsertIfAbsentQuery(), entities, batchSize, table::prepareInsertStatement);
+        written(entities);
+    }
+
+    /**
+     * Updates all entities, sending them in JDBC batches of {@link #DEFAULT_BATCH_SIZE}.
+     * Like {@link #update}, only changed columns are written and unchanged entities are skipped.
+     *
+     * @param entities the entities to update
+     * @throws OptimisticLockException if any of the entities is versioned and its row was changed since it was read
+     * @throws RuntimeException if any of the entities does not exist or a SQL error occurs
+     */
+    public void updateAll(Collection<? extends T> entities) {
+        updateAll(entities, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Same as {@link #updateAll(Collection)} with an explicit chunk size.
+     *
+     * @param batchSize the maximum number of rows per round trip
+     */
+    public void updateAll(Collection<? extends T> entities, int batchSize) {
+        // One batch per set of changed columns; untracked entities write every column
+        Map<String, List<T>> batches = new LinkedHashMap<>();
+        Map<String, StatementBinder<T>> binders = new HashMap<>();
+        List<T> updated = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            int[] changed = table.getChangedColumnIndexes(entity);
+            if (changed != null && changed.length == 0 && !table.isVersionChanged(entity)) {
+                continue;
+            }
+            String query = (changed == null) ? table.getUpdateQuery() : table.getUpdateQuery(changed);
+            batches.computeIfAbsent(query, q -> new ArrayList<>()).add(entity);
+            binders.computeIfAbsent(query, q -> (changed == null)
+                    ? table::prepareUpdateStatement
+                    : (ps, e) -> table.prepareUpdateStatement(ps, e, changed));
+            updated.add(entity);
+        }
+
+        for (Map.Entry<String, List<T>> batch : batches.entrySet()) {
+            int[] rowsAffected = executeEntityBatch("updateAll", batch.getKey(), batch.getValue(), batchSize,
+                    binders.get(batch.getKey()));
+            for (int i = 0; i < rowsAffected.length; i++) {
+                if (rowsAffected[i] == 0) {
+                    throw notUpdated(batch.getValue().get(i));
+                }
             }
+        }
+        for (T entity : updated) {
+            table.advanceVersion(entity);
+            table.markClean(entity);
+        }
+        written(updated);
+    }
+
+    /**
+     * The exception for an UPDATE that matched no row. For versioned entities that is a conflict; the cached row
+     * is dropped right away, so the client's reload sees the current version.
+     */
+    private RuntimeException notUpdated(T entity) {
+        if (!table.isVersioned()) {
+            return new RuntimeException("Entity does not exist.");
+        }
+        K primaryKey = table.getPrimaryKey(entity);
+        invalidateCachedRows(List.of(ReferenceLoader.toKey(primaryKey)));
+        return new OptimisticLockException(table.getEntityClass().getSimpleName() + " " + primaryKey +
+                " was changed or deleted by someone else, reload it and try again");
+    }
+
+    /**
+     * Deletes the records with the given primary keys using {@code DELETE … WHERE pk = ANY(?)},
+     * one statement per chunk of {@link #DEFAULT_BATCH_SIZE} keys. Missing keys are ignored.
+     *
+     * @param primaryKeys the primary keys to delete
+     * @return the number of deleted records
+     */
+    public int deleteAll(Collection<? extends K> primaryKeys) {
+        return deleteAll(primaryKeys, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Same as {@link #deleteAll(Collection)} with an explicit chunk size.
+     *
+     * @param batchSize the maximum number of keys per statement
+     */
+    public int deleteAll(Collection<? extends K> primaryKeys, int batchSize) {
+        String arrayType = table.getPrimaryKeyArrayType();
+        if (arrayType == null) {
+            throw new UnsupportedOperationException("deleteAll needs a single-column primary key of a supported type");
+        }
+
+        String query = table.getDeleteByPrimaryKeysQuery();
+
+        List<Object> keys = new ArrayList<>(primaryKeys.size());
+        for (K primaryKey : primaryKeys) {
+            keys.add(primaryKey instanceof TableEntity ? TableUtils.getPrimaryKeyValue(primaryKey) : primaryKey);
+        }
+
+        int deleted = 0;
+        try (StatementCache.Lease lease = prepare("deleteAll", query)) {
+            PreparedStatement preparedStatement = lease.statement();
+            lease.parameters(Collections.singletonList(keys));
+            for (int from = 0; from < keys.size(); from += batchSize) {
+                List<Object> chunk = keys.subList(from, Math.min(from + batchSize, keys.size()));
+                Array array = connection.createArrayOf(arrayType, chunk.toArray());
+                try {
+                    preparedStatement.setArray(1, array);
+                    deleted += lease.executeUpdate();
+                } finally {
+                    array.free();
+                }
+            }
+            lease.rows(deleted);
         } catch (SQLException e) {
-            throw new RuntimeException(e);
+            throw DatabaseCircuitBreaker.translate(e);
+        }
+        writtenKeys(keys);
+        return deleted;
+    }
+
+    private int[] executeEntityBatch(String operation, String query, Collection<? extends T> entities, int batchSize,
+                                     StatementBinder<T> binder) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        int[] rowsAffected = new int[entities.size()];
+        if (entities.isEmpty()) {
+            return rowsAffected;
+        }
+
+        try (StatementCache.Lease lease = prepare(operation, query)) {
+            PreparedStatement preparedStatement = lease.statement();
+            int pending = 0;
+            int done = 0;
+            for (T entity : entities) {
+                binder.bind(preparedStatement, entity);
+                preparedStatement.addBatch();
+
+                if (++pending == batchSize) {
+                    int[] counts = lease.executeBatch();
+                    System.arraycopy(counts, 0, rowsAffected, done, counts.length);
+                    done += pending;
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                int[] counts = lease.executeBatch();
+                System.arraycopy(counts, 0, rowsAffected, done, counts.length);
+            }
+            lease.rows(entities.size());
+        } catch (SQLException e) {
+            throw DatabaseCircuitBreaker.translate(e);
+        }
+        return rowsAffected;
+    }
+
+    private int executeEntityUpdate(String operation, String query, T entity, StatementBinder<T> binder) {
+        try (StatementCache.Lease lease = prepare(operation, query)) {
+            PreparedStatement preparedStatement = lease.statement();
+            binder.bind(preparedStatement, entity);
+            int rowsAffected = lease.executeUpdate();
+            lease.rows(rowsAffected);
+            return rowsAffected;
+        } catch (SQLException e) {
+            throw DatabaseCircuitBreaker.translate(e);
         }
     }
 
@@ -162,13 +404,15 @@ public class DAO<T, K> implements AutoCloseable {
      * @return the entity if found; null otherwise
      */
     public T get(K primaryKey) {
-        T entity = null;
+        if (cachesRows()) {
+            Object[] row = getRow(primaryKey);
+            return (row == null) ? null : new ReferenceLoader(connection).materialize(table, Collections.singletonList(row)).getFirst();
+        }
 
-        String query = "SELECT * FROM %s WHERE %s = ?";
-        query = String.format(query, table.getTableName(), table.getPrimaryKeyColumnName());
+        String query = table.getSelectByPrimaryKeyQuery();
 
-        try {
-            PreparedStatement preparedStatement = connection.prepareStatement(query);
+        try (StatementCache.Lease lease = prepare("get", query)) {
+            PreparedStatement preparedStatement = lease.statement();
             // Unwrap TableEntity keys to their actual PK value if necessary
             Object bindValue = primaryKey;
             if (primaryKey instanceof TableEntity) { // If primaryKey is a foreign object
@@ -176,14 +420,107 @@ public class DAO<T, K> implements AutoCloseable {
                 bindValue = TableUtils.getPrimaryKeyValue(primaryKey);
             }
             preparedStatement.setObject(1, bindValue);
-            ResultSet resultSet = preparedStatement.executeQuery();
-            if (resultSet.next()) {
-                entity = table.buildFromTableWildcardQuery(connection, resultSet);
+            lease.parameters(Collections.singletonList(bindValue));
+            try (ResultSet resultSet = lease.executeQuery()) {
+                List<Object[]> rows = readRows(resultSet);
+                lease.rows(rows.size());
+                List<T> entities = new ReferenceLoader(connection).materialize(table, rows);
+                return entities.isEmpty() ? null : entities.getFirst();
             }
         } catch (SQLException e) {
-            throw new RuntimeException(e);
+            throw DatabaseCircuitBreaker.translate(e);
+        }
+    }
+
+    /**
+     * Retrieves the entities with the given primary keys using a single {@code pk = ANY(?)} query.
+     * Keys without a matching record are skipped, so the result may be smaller than the input.
+     *
+     * @param primaryKeys the raw primary key values
+     * @return the matching entities, in no particular order
+     */
+    public List<T> getByPrimaryKeys(Collection<?> primaryKeys) {
+        return getByPrimaryKeys(primaryKeys, new ReferenceLoader(connection), "getByPrimaryKeys");
+    }
+
+    /**
+     * @param operation the label of the query in the {@link QueryMetrics}
+     */
+    List<T> getByPrimaryKeys(Collection<?> primaryKeys, ReferenceLoader referenceLoader, String operation) {
+        if (primaryKeys.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        String arrayType = table.getPrimaryKeyArrayType();
+        if (arrayType == null) {
+            // Composite or unmapped key type: no array binding, fall back to one lookup per key
+            List<T> entities = new ArrayList<>();
+            for (Object primaryKey : primaryKeys) {
+                @SuppressWarnings("unchecked")
+                T entity = get((K) primaryKey);
+                if (entity != null) {
+                    entities.add(entity);
+                }
+            }
+            return entities;
+        }
+
+        if (cache == null) {
+            return referenceLoader.materialize(table, readRowsByPrimaryKeys(primaryKeys, arrayType, operation));
+        }
+
+        // Answer what we can from the cache, query the rest and remember which keys had no record
+        List<Object[]> rows = new ArrayList<>();
+        Set<Object> missing = new LinkedHashSet<>();
+        for (Object primaryKey : primaryKeys) {
+            Object key = ReferenceLoader.toKey(primaryKey);
+            Object[] row = cache.getRow(key);
+            if (row == null) {
+                missing.add(key);
+            } else if (row != EntityCache.ABSENT) {
+                rows.add(row);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long stamp = cache.readStamp();
+            Map<Object, Object[]> found = new HashMap<>();
+            int primaryKeyIndex = table.getPrimaryKeyColumnIndex();
+            for (Object[] row : readRowsByPrimaryKeys(missing, arrayType, operation)) {
+                found.put(row[primaryKeyIndex], row);
+            }
+            for (Object key : missing) {
+                Object[] row = found.get(key);
+                if (stamp >= 0) {
+                    cache.putRow(stamp, key, row);
+                }
+                if (row != null) {
+                    rows.add(row);
+                }
+            }
+        }
+        return referenceLoader.materialize(table, rows);
+    }
+
+    private List<Object[]> readRowsByPrimaryKeys(Collection<?> primaryKeys, String arrayType, String operation) {
+        String query = table.getSelectByPrimaryKeysQuery();
+
+        try (StatementCache.Lease lease = prepare(operation, query)) {
+            PreparedStatement preparedStatement = lease.statement();
+            lease.parameters(Collections.singletonList(primaryKeys));
+            Array keys = connection.createArrayOf(arrayType, primaryKeys.toArray());
+            try {
+                preparedStatement.setArray(1, keys);
+                try (ResultSet resultSet = lease.executeQuery()) {
+                    List<Object[]> rows = readRows(resultSet);
+                    lease.rows(rows.size());
+                    return rows;
+                }
+            } finally {
+                keys.free();
+            }
+        } catch (SQLException e) {
+            throw DatabaseCircuitBreaker.translate(e);
         }
-        return entity;
     }
 
     /**
@@ -202,25 +539,384 @@ public class DAO<T, K> implements AutoCloseable {
             Field orderByField,
             boolean ascending
     ) {
+        return get(QuerySpec.of(filters, orderByField, ascending));
+    }
+
+    /**
+     * Retrieve entities matching a query spec (filters, ordering, keyset cursor, limit and fetch joins).
+     * Entities referenced by fetch-joined {@code @ForeignKey} fields are read in the same round trip.
+     *
+     * @param query the query spec, usually built by {@link QueryBuilder}
+     * @return a List of matching entities
+     * @throws RuntimeException         if a SQL error occurs
+     * @throws IllegalArgumentException if any Field is invalid for this entity
+     */
+    public List<T> get(QuerySpec query) {
         // 1) build the SQL
-        String sql = table.buildGetQuery(filters, orderByField, ascending);
-
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            // 2) bind parameters in the same order
-            int idx = 1;
-            for (FilterCriterion<?> criterion : filters) {
-                Object value = criterion.getValue();
-                if (value != null) {
-                    ps.setObject(idx++, value);
+        List<FetchJoin> joins = table.planFetchJoins(query.getFetchJoins());
+        BoundQuery bound = table.buildSelectQuery(query, joins);
+
+        // 2) execute (or hit the query cache) and map to entities
+        return queryRows(bound, joins, query).materialize(table, joins, new ReferenceLoader(connection));
+    }
+
+    /**
+     * Retrieve only the given columns of the matching rows, as records.
+     * Foreign keys are returned as the raw referenced key, so no referenced rows are loaded.
+     *
+     * @param query  the query spec (fetch joins are ignored)
+     * @param type   the record type; its components must match the fields in order and type
+     * @param fields the fields to select
+     * @return one record per matching row
+     */
+    public <R extends Record> List<R> select(QuerySpec query, Class<R> type, List<Field> fields) {
+        Projection<R> projection = table.projection(type, fields);
+        BoundQuery bound = table.buildProjectionQuery(query, fields);
+
+        String operation = "select[" + query.getFilterShape() + "]";
+        try (StatementCache.Lease lease = prepare(operation, bound.sql(), query.getTimeoutSeconds())) {
+            PreparedStatement ps = lease.statement();
+            List<Array> arrays = bindParameters(ps, bound.parameters());
+            lease.parameters(bound.parameters());
+            try (ResultSet rs = lease.executeQuery()) {
+                List<R> results = new ArrayList<>();
+                while (rs.next()) {
+                    results.add(projection.read(rs));
                 }
+                lease.rows(results.size());
+                return results;
+            } finally {
+                free(arrays);
+            }
+        } catch (SQLException e) {
+            throw DatabaseCircuitBreaker.translate("Error executing query: " + bound.sql(), e);
+        }
+    }
+
+    /**
+     * Streams all entities of the table, see {@link #stream(QuerySpec, int)}.
+     */
+    public Stream<T> stream() {
+        return stream(new QuerySpec(), DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Lazily streams the entities matching the query from a server-side cursor, so only one chunk of
+     * {@code fetchSize} rows is held in memory at a time. Foreign keys are resolved per chunk.
+     * <p>
+     * The stream must be closed (e.g. with try-with-resources) before the DAO is closed. Outside a
+     * {@link com.mcm.backend.app.database.core.components.UnitOfWork} the cursor runs in its own read-only
+     * transaction that ends when the stream is closed.
+     *
+     * @param query     the query spec, usually built by {@link QueryBuilder}
+     * @param fetchSize the number of rows fetched per round trip
+     * @return a lazily evaluated stream of entities
+     */
+    public Stream<T> stream(QuerySpec query, int fetchSize) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("fetchSize must be positive");
+        }
+        List<FetchJoin> joins = table.planFetchJoins(query.getFetchJoins());
+        BoundQuery bound = table.buildSelectQuery(query, joins);
+
+        // Checked before touching the connection, so a refusal leaves no statement or auto-commit change behind
+        DatabaseCircuitBreaker.checkAvailable();
+        int timeout = effectiveTimeout(query.getTimeoutSeconds());
+
+        boolean restoreAutoCommit = false;
+        PreparedStatement ps = null;
+        try {
+            // The driver only uses a cursor (instead of buffering the whole result) inside a transaction
+            if (connection.getAutoCommit()) {
+                connection.setAutoCommit(false);
+                restoreAutoCommit = true;
             }
+            ps = connection.prepareStatement(bound.sql(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setQueryTimeout(timeout);
+            List<Array> arrays = bindParameters(ps, bound.parameters());
 
-            // 3) execute and map to entities
-            try (ResultSet rs = ps.executeQuery()) {
-                return getEntities(rs);
+            // Only opening the cursor (and its first round trip) is timed; the stream is consumed at the caller's pace
+            long start = System.nanoTime();
+            ResultSet resultSet;
+            try {
+                resultSet = ps.executeQuery();
+            } finally {
+                DatabaseCircuitBreaker.recordCall(System.nanoTime() - start);
+                free(arrays);
             }
+            QueryMetrics.record(table.getTableName(), "stream[" + query.getFilterShape() + "]", bound.sql(),
+                    bound.parameters(), 0, System.nanoTime() - start);
+
+            Cursor cursor = new Cursor(ps, resultSet, joins, fetchSize, restoreAutoCommit);
+            return StreamSupport.stream(cursor, false).onClose(cursor::close);
+        } catch (SQLException | RuntimeException e) {
+            RuntimeException exception = (e instanceof SQLException sqlException)
+                    ? DatabaseCircuitBreaker.translate("Error executing query: " + bound.sql(), sqlException)
+                    : (RuntimeException) e;
+            try {
+                if (ps != null) {
+                    ps.close();
+                }
+                if (restoreAutoCommit) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+            } catch (SQLException cleanupException) {
+                exception.addSuppressed(cleanupException);
+            }
+            throw exception;
+        }
+    }
+
+    /**
+     * @return true if primary key lookups of this table go through its {@link EntityCache}
+     */
+    private boolean cachesRows() {
+        return cache != null && table.hasSingleColumnKey();
+    }
+
+    /**
+     * Reads the raw row (see {@link Table#readRow}) with the given primary key through the entity cache.
+     *
+     * @return a private copy of the row, or {@code null} if there is no such record
+     */
+    private Object[] getRow(K primaryKey) {
+        Object key = ReferenceLoader.toKey(primaryKey);
+        Object[] row = cache.getRow(key);
+        if (row != null) {
+            return (row == EntityCache.ABSENT) ? null : row;
+        }
+
+        long stamp = cache.readStamp();
+        try (StatementCache.Lease lease = prepare("get", table.getSelectByPrimaryKeyQuery())) {
+            PreparedStatement preparedStatement = lease.statement();
+            preparedStatement.setObject(1, key);
+            lease.parameters(Collections.singletonList(key));
+            try (ResultSet resultSet = lease.executeQuery()) {
+                row = resultSet.next() ? table.readRow(resultSet, 1) : null;
+            }
+            lease.rows(row == null ? 0 : 1);
         } catch (SQLException e) {
-            throw new RuntimeException("Error executing query: " + sql, e);
+            throw DatabaseCircuitBreaker.translate(e);
+        }
+        if (stamp >= 0) {
+            cache.putRow(stamp, key, row);
+        }
+        return row;
+    }
+
+    private void written(T entity) {
+        writtenKeys(Collections.singletonList(table.getPrimaryKey(entity)));
+    }
+
+    private void written(Collection<? extends T> entities) {
+        List<Object> keys = new ArrayList<>(entities.size());
+        if (cache != null) {
+            for (T entity : entities) {
+                keys.add(table.getPrimaryKey(entity));
+            }
+        }
+        writtenKeys(keys);
+    }
+
+    /**
+     * Records a write: bumps the {@link TableVersion} (outdating cached query results that involve this table) and
+     * drops the written keys from the entity cache; for cached tables other nodes and subscribers are notified through
+     * the {@link ChangeNotifier}. Inside a unit of work the caches of this table are bypassed until
+     * the transaction completes, so uncommitted rows are never cached, and the same happens again afterward.
+     *
+     * @param primaryKeys the written keys, or {@code null} if they are unknown and every cached row has to go
+     */
+    private void writtenKeys(Collection<?> primaryKeys) {
+        TableVersion version = TableVersion.of(table.getEntityClass());
+        List<Object> keys = (primaryKeys == null) ? null : new ArrayList<>(primaryKeys.size());
+        if (cache != null && keys != null) {
+            for (Object primaryKey : primaryKeys) {
+                keys.add(ReferenceLoader.toKey(primaryKey));
+            }
+        }
+
+        // This node first: on the auto-commit path the row is already committed, even if publishing fails
+        UnitOfWork unitOfWork = UnitOfWork.current();
+        if (unitOfWork != null && unitOfWork.usesConnection(connection)) {
+            version.beginWrite();
+            invalidateCachedRows(keys);
+            unitOfWork.afterCompletion(() -> {
+                version.endWrite();
+                invalidateCachedRows(keys);
+            });
+            unitOfWork.afterCommit(() -> notifySubscribers(keys));
+        } else {
+            version.bump();
+            invalidateCachedRows(keys);
+            notifySubscribers(keys);
+        }
+
+        if (cache != null) {
+            // Other nodes: sent with the transaction, so delivered on commit only (no keys means all rows)
+            ChangeNotifier.publish(connection, table, (keys == null) ? List.of() : keys);
+        }
+    }
+
+    /**
+     * @param keys the written keys, or {@code null} for all rows (reported as an empty set, like by other nodes)
+     */
+    private void notifySubscribers(List<Object> keys) {
+        if (cache != null) {
+            Set<String> changed = new LinkedHashSet<>();
+            for (Object key : (keys == null) ? List.of() : keys) {
+                changed.add(String.valueOf(key));
+            }
+            ChangeNotifier.notifySubscribers(table.getEntityClass(), changed);
+        }
+    }
+
+    private void invalidateCachedRows(List<Object> keys) {
+        if (cache == null) {
+            return;
+        }
+        if (keys == null) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(keys);
+        }
+    }
+
+    /**
+     * Runs a select and reads its raw rows; for {@link Cached} tables the result is served from and stored in the
+     * query cache.
+     *
+     * @param query the spec the select was built from, or {@code null} for {@link #getAll()}
+     */
+    private ResultRows queryRows(BoundQuery bound, List<FetchJoin> joins, QuerySpec query) {
+        EntityCache.QueryKey key = (cache == null) ? null : cache.queryKey(bound, joins);
+        if (key != null) {
+            ResultRows cached = cache.getResult(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        String operation = (query == null) ? "getAll" : "filter[" + query.getFilterShape() + "]";
+        Integer timeoutSeconds = (query == null) ? null : query.getTimeoutSeconds();
+        ResultRows result;
+        try (StatementCache.Lease lease = prepare(operation, bound.sql(), timeoutSeconds)) {
+            PreparedStatement ps = lease.statement();
+            List<Array> arrays = bindParameters(ps, bound.parameters());
+            lease.parameters(bound.parameters());
+            try (ResultSet rs = lease.executeQuery()) {
+                result = ResultRows.read(table, rs, joins, 0);
+            } finally {
+                free(arrays);
+            }
+            lease.rows(result.rows().size());
+        } catch (SQLException e) {
+            throw DatabaseCircuitBreaker.translate("Error executing query: " + bound.sql(), e);
+        }
+
+        if (key != null) {
+            cache.putResult(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Leases a cached prepared statement on this DAO's connection, see {@link StatementCache}.
+     *
+     * @param operation the label of the statement in the {@link QueryMetrics}
+     */
+    private StatementCache.Lease prepare(String operation, String sql) throws SQLException {
+        return prepare(operation, sql, null);
+    }
+
+    /**
+     * Leases a cached prepared statement with its query timeout set.
+     *
+     * @param timeoutSeconds the timeout of the query, or {@code null} for the table's
+     * @throws DatabaseUnavailableException if the circuit breaker is open or the request ran out of time
+     */
+    private StatementCache.Lease prepare(String operation, String sql, Integer timeoutSeconds) throws SQLException {
+        DatabaseCircuitBreaker.checkAvailable();
+        int timeout = effectiveTimeout(timeoutSeconds);
+        StatementCache.Lease lease = StatementCache.prepare(connection, sql).instrument(table.getTableName(), operation);
+        if (timeout > 0) {
+            try {
+                lease.statement().setQueryTimeout(timeout);
+            } catch (SQLException e) {
+                lease.close();
+                throw e;
+            }
+        }
+        return lease;
+    }
+
+    /**
+     * Caps the statement timeouts of this DAO to a deadline taken over from a unit of work of another thread.
+     *
+     * @param deadlineNanos the deadline as a {@link System#nanoTime()} value
+     */
+    void setDeadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * The statement timeout in seconds (0 for none): the query's or the table's, capped to what is left of the
+     * deadline of the current {@link UnitOfWork} (or the one set by {@link #setDeadline}).
+     */
+    private int effectiveTimeout(Integer timeoutSeconds) {
+        int timeout = (timeoutSeconds != null) ? timeoutSeconds : queryTimeoutSeconds;
+
+        UnitOfWork unitOfWork = UnitOfWork.current();
+        Long remainingMillis;
+        if (deadlineNanos != null) {
+            remainingMillis = (deadlineNanos - System.nanoTime()) / 1_000_000;
+        } else {
+            remainingMillis = (unitOfWork != null && unitOfWork.usesConnection(connection))
+                    ? unitOfWork.getRemainingMillis()
+                    : null;
+        }
+        if (remainingMillis == null) {
+            return timeout;
+        }
+        if (remainingMillis <= 0) {
+            throw new DatabaseUnavailableException("Request ran out of time for database work", 1);
+        }
+        // JDBC timeouts are whole seconds
+        int remainingSeconds = (int) Math.max(1, (remainingMillis + 999) / 1000);
+        return (timeout == 0) ? remainingSeconds : Math.min(timeout, remainingSeconds);
+    }
+
+    private static int queryTimeoutOf(Table<?, ?> table) {
+        QueryTimeout annotation = table.getEntityClass().getAnnotation(QueryTimeout.class);
+        return (annotation != null) ? annotation.seconds() : Database.getQueryTimeoutSeconds();
+    }
+
+    /**
+     * Binds the parameters of a built query.
+     *
+     * @return the SQL arrays created for IN filters, to be {@link #free freed} once the statement ran
+     */
+    private List<Array> bindParameters(PreparedStatement ps, List<Object> parameters) throws SQLException {
+        List<Array> arrays = new ArrayList<>(0);
+        for (int i = 0; i < parameters.size(); i++) {
+            Object parameter = parameters.get(i);
+            if (parameter instanceof BoundQuery.ArrayParameter array) {
+                Array sqlArray = connection.createArrayOf(array.elementType(), array.elements());
+                arrays.add(sqlArray);
+                ps.setArray(i + 1, sqlArray);
+            } else if (parameter instanceof BoundQuery.JsonParameter json) {
+                ps.setObject(i + 1, json.json(), Types.OTHER);
+            } else {
+                ps.setObject(i + 1, parameter);
+            }
+        }
+        return arrays;
+    }
+
+    private static void free(List<Array> arrays) throws SQLException {
+        for (Array array : arrays) {
+            array.free();
         }
     }
 
@@ -268,22 +964,90 @@ public class DAO<T, K> implements AutoCloseable {
      * @throws RuntimeException if the record does not exist or a SQL error occurs
      */
     public void delete(K primaryKey) {
-        if (!existsByPrimaryKey(primaryKey)) {
+        String query = table.getDeleteByPrimaryKeyQuery();
+
+        int rowsAffected;
+        try (StatementCache.Lease lease = prepare("delete", query)) {
+            PreparedStatement preparedStatement = lease.statement();
+            preparedStatement.setObject(1, primaryKey);
+            lease.parameters(Collections.singletonList(primaryKey));
+            rowsAffected = lease.executeUpdate();
+            lease.rows(rowsAffected);
+        } catch (SQLException e) {
+            throw DatabaseCircuitBreaker.translate(e);
+        }
+        // The affected row count replaces an existence probe up front
+        if (rowsAffected == 0) {
             throw new RuntimeException("Record does not exist.");
         }
+        writtenKeys(Collections.singletonList(primaryKey));
+    }
 
-        String query = "DELETE FROM %s WHERE %s = ?";
-        query = String.format(query, table.getTableName(), table.getPrimaryKeyColumnName());
-
-        try {
-            PreparedStatement preparedStatement = connection.prepareStatement(query);
+    /**
+     * Deletes every row matching the filters of the query with a single {@code DELETE … WHERE} statement, without
+     * loading the entities. Cached rows of the deleted keys are invalidated like for {@link #delete(Object)}.
+     *
+     * @param query the filters, usually built by {@link QueryBuilder#delete()}; at least one has to apply
+     * @return the number of deleted rows
+     * @throws IllegalArgumentException if no filter applies or the query orders, limits, pages or fetch-joins
+     */
+    public int delete(QuerySpec query) {
+        BoundQuery bound = table.buildDeleteQuery(query, cachesRows());
+        return executeSetBased("deleteWhere[" + query.getFilterShape() + "]", bound, query);
+    }
 
-            preparedStatement.setObject(1, primaryKey);
-            preparedStatement.executeUpdate();
+    /**
+     * Sets the given columns on every row matching the filters of the query with a single
+     * {@code UPDATE … SET … WHERE} statement, without loading the entities.
+     *
+     * @param query       the filters, usually built by {@link QueryBuilder#update(Field, Object)}; at least one has
+     *                    to apply
+     * @param assignments the new value per non-key field
+     * @return the number of updated rows
+     * @throws IllegalArgumentException if a field is not a non-key column, no filter applies or the query orders,
+     *                                  limits, pages or fetch-joins
+     */
+    public int update(QuerySpec query, Map<Field, ?> assignments) {
+        BoundQuery bound = table.buildUpdateQuery(query, assignments, cachesRows());
+        return executeSetBased("updateWhere[" + query.getFilterShape() + "]", bound, query);
+    }
 
+    /**
+     * Runs a set-based DELETE/UPDATE. For cached tables the statement returns the affected keys, so only those rows
+     * are invalidated.
+     */
+    private int executeSetBased(String operation, BoundQuery bound, QuerySpec query) {
+        boolean returnsKeys = cachesRows();
+        List<Object> keys = new ArrayList<>();
+        int rowsAffected;
+        try (StatementCache.Lease lease = prepare(operation, bound.sql(), query.getTimeoutSeconds())) {
+            PreparedStatement ps = lease.statement();
+            List<Array> arrays = bindParameters(ps, bound.parameters());
+            lease.parameters(bound.parameters());
+            try {
+                if (returnsKeys) {
+                    try (ResultSet rs = lease.executeQuery()) {
+                        while (rs.next()) {
+                            keys.add(rs.getObject(1));
+                        }
+                    }
+                    rowsAffected = keys.size();
+                } else {
+                    rowsAffected = lease.executeUpdate();
+                }
+            } finally {
+                free(arrays);
+            }
+            lease.rows(rowsAffected);
         } catch (SQLException e) {
-            throw new RuntimeException(e);
+            throw DatabaseCircuitBreaker.translate("Error executing query: " + bound.sql(), e);
         }
+
+        if (rowsAffected > 0) {
+            // Cached tables with a composite key cannot name the affected rows: drop all of them
+            writtenKeys((returnsKeys || cache == null) ? keys : null);
+        }
+        return rowsAffected;
     }
 
     /**
@@ -292,33 +1056,104 @@ public class DAO<T, K> implements AutoCloseable {
      * @return a list of all entities
      */
     public List<T> getAll() {
-        String query = "SELECT * FROM %s";
-        query = String.format(query, table.getTableName());
-        List<T> entities;
-        try {
-            Statement statement = connection.createStatement();
-            entities = getEntities(statement.executeQuery(query));
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-
-        return entities;
+        BoundQuery bound = new BoundQuery(table.getSelectAllQuery(), List.of());
+        return queryRows(bound, List.of(), null).materialize(table, List.of(), new ReferenceLoader(connection));
     }
 
     /**
      * Converts the provided ResultSet into a list of entities.
+     * Foreign keys of all rows are resolved together, with one query per referenced table.
      *
-     * @param resultSet the ResultSet from a wildcard query
+     * @param resultSet the ResultSet from a query selecting {@link Table#getSelectColumns()}
      * @return a list of entities built from the ResultSet
      * @throws SQLException if a database access error occurs
      */
     protected List<T> getEntities(ResultSet resultSet) throws SQLException {
-        List<T> entities = new ArrayList<>();
+        return getEntities(resultSet, new ReferenceLoader(connection));
+    }
+
+    private List<T> getEntities(ResultSet resultSet, ReferenceLoader referenceLoader) throws SQLException {
+        return referenceLoader.materialize(table, readRows(resultSet));
+    }
+
+    private List<Object[]> readRows(ResultSet resultSet) throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
         while (resultSet.next()) {
-            T entity = table.buildFromTableWildcardQuery(connection, resultSet);
-            entities.add(entity);
+            rows.add(table.readRow(resultSet, 1));
+        }
+        return rows;
+    }
+
+    /**
+     * Converts a ResultSet built with fetch joins into entities, see {@link ResultRows#materialize}.
+     *
+     * @param maxRows the maximum number of rows to read, or 0 to read until the end of the ResultSet
+     */
+    private List<T> getJoinedEntities(ResultSet resultSet, List<FetchJoin> joins, int maxRows) throws SQLException {
+        return ResultRows.read(table, resultSet, joins, maxRows)
+                .materialize(table, joins, new ReferenceLoader(connection));
+    }
+
+    /**
+     * Binds the parameters of a write statement for one entity.
+     */
+    @FunctionalInterface
+    private interface StatementBinder<T> {
+        void bind(PreparedStatement ps, T entity) throws SQLException;
+    }
+
+    /**
+     * Lazily reads a server-side cursor in chunks of the fetch size; foreign keys are resolved per chunk.
+     * Closing the cursor closes the statement and ends the read-only transaction it may have started.
+     */
+    private class Cursor extends Spliterators.AbstractSpliterator<T> {
+        private final PreparedStatement statement;
+        private final ResultSet resultSet;
+        private final List<FetchJoin> joins;
+        private final int fetchSize;
+        private final boolean restoreAutoCommit;
+        private Iterator<T> chunk = Collections.emptyIterator();
+        private boolean exhausted;
+
+        private Cursor(PreparedStatement statement, ResultSet resultSet, List<FetchJoin> joins, int fetchSize,
+                       boolean restoreAutoCommit) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.statement = statement;
+            this.resultSet = resultSet;
+            this.joins = joins;
+            this.fetchSize = fetchSize;
+            this.restoreAutoCommit = restoreAutoCommit;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (!chunk.hasNext() && !exhausted) {
+                try {
+                    List<T> entities = getJoinedEntities(resultSet, joins, fetchSize);
+                    exhausted = entities.size() < fetchSize;
+                    chunk = entities.iterator();
+                } catch (SQLException e) {
+                    throw DatabaseCircuitBreaker.translate(e);
+                }
+            }
+            if (!chunk.hasNext()) {
+                return false;
+            }
+            action.accept(chunk.next());
+            return true;
+        }
+
+        private void close() {
+            try (statement; resultSet) {
+                if (restoreAutoCommit) {
+                    // The cursor only read data; end its transaction and hand back an auto-commit connection
+                    connection.commit();
+                    connection.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
         }
-        return entities;
     }
 
     /**
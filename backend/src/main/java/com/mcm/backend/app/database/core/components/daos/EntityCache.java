@@ -0,0 +1,211 @@
+package com.mcm.backend.app.database.core.components.daos;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mcm.backend.app.database.core.annotations.table.Cached;
+import com.mcm.backend.app.database.core.components.tables.BoundQuery;
+import com.mcm.backend.app.database.core.components.tables.FetchJoin;
+import com.mcm.backend.app.database.core.components.tables.Table;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Second-level cache of one {@link Cached} table, shared by every DAO of that table.
+ * <p>
+ * It holds two kinds of entries, both size-bounded (W-TinyLFU) and time-bounded per {@link Cached}:
+ * <ul>
+ *     <li>Rows by primary key, for {@code get}, {@code existsByPrimaryKey} and {@code getByPrimaryKeys} (and so for
+ *     foreign key resolution). Keys without a record are cached as well, because most existence checks (e.g. "is
+ *     this user an admin") answer no. Writes drop the written keys.</li>
+ *     <li>Query results, keyed by the compiled SQL, the bind values and the {@link TableVersion} stamps of the
+ *     queried and fetch-joined tables. A write to any of those tables bumps its version, so older results are
+ *     simply never looked up again and age out.</li>
+ * </ul>
+ * Entries are raw rows as read by {@link Table#readRow} (foreign keys still unresolved), so every hit builds fresh
+ * entities and non-joined references are resolved through their own table (and cache).
+ */
+public final class EntityCache {
+
+    /**
+     * Cached marker for a primary key without a record.
+     */
+    static final Object[] ABSENT = new Object[0];
+
+    private static final Map<Class<?>, Optional<EntityCache>> caches = new ConcurrentHashMap<>();
+
+    private final String tableName;
+    private final TableVersion version;
+    private final Cache<Object, Object[]> rows;
+    private final Cache<QueryKey, ResultRows> results;
+
+    /**
+     * Identity of a cached query result.
+     *
+     * @param stamps the versions of the queried table followed by those of the fetch-joined tables
+     */
+    record QueryKey(String sql, List<Object> parameters, List<Long> stamps) {
+    }
+
+    private EntityCache(Table<?, ?> table, Cached settings) {
+        this.tableName = table.getTableName();
+        this.version = TableVersion.of(table.getEntityClass());
+        this.rows = Caffeine.newBuilder()
+                .maximumSize(settings.maxSize())
+                .expireAfterWrite(Duration.ofSeconds(settings.ttlSeconds()))
+                .recordStats()
+                .build();
+        this.results = Caffeine.newBuilder()
+                .maximumSize(settings.maxSize())
+                .expireAfterWrite(Duration.ofSeconds(settings.ttlSeconds()))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @return the cache of the table, or {@code null} if its entity is not annotated with {@link Cached}
+     */
+    static EntityCache of(Table<?, ?> table) {
+        return caches.computeIfAbsent(table.getEntityClass(), clazz -> {
+            Cached settings = clazz.getAnnotation(Cached.class);
+            return (settings == null) ? Optional.empty() : Optional.of(new EntityCache(table, settings));
+        }).orElse(null);
+    }
+
+    /**
+     * @return the cache of the entity class if one was created on this node, otherwise {@code null}
+     */
+    static EntityCache find(Class<?> entityClass) {
+        return caches.getOrDefault(entityClass, Optional.empty()).orElse(null);
+    }
+
+    /**
+     * Drops every cached row of every table (e.g. after change notifications may have been missed).
+     */
+    static void invalidateEverything() {
+        for (Optional<EntityCache> cache : caches.values()) {
+            cache.ifPresent(c -> c.rows.invalidateAll());
+        }
+    }
+
+    /**
+     * Hit/miss counters of every cache created so far.
+     */
+    public static List<EntityCacheMetrics> getMetrics() {
+        List<EntityCacheMetrics> metrics = new ArrayList<>();
+        for (Optional<EntityCache> cache : caches.values()) {
+            cache.ifPresent(c -> {
+                CacheStats rowStats = c.rows.stats();
+                CacheStats resultStats = c.results.stats();
+                metrics.add(new EntityCacheMetrics(
+                        c.tableName,
+                        c.rows.estimatedSize(),
+                        rowStats.hitCount(),
+                        rowStats.missCount(),
+                        rowStats.hitRate(),
+                        c.results.estimatedSize(),
+                        resultStats.hitCount(),
+                        resultStats.missCount(),
+                        resultStats.hitRate(),
+                        rowStats.evictionCount() + resultStats.evictionCount()
+                ));
+            });
+        }
+        return metrics;
+    }
+
+    /**
+     * Starts a primary key read that may populate the cache.
+     *
+     * @return the stamp to pass to {@link #putRow}, or {@code -1} when the cache must not be populated
+     */
+    long readStamp() {
+        return version.readStamp();
+    }
+
+    /**
+     * @return a copy of the cached row, {@link #ABSENT} for a key known to have no record, or {@code null} on a miss
+     */
+    Object[] getRow(Object primaryKey) {
+        Object[] row = rows.getIfPresent(primaryKey);
+        return (row == null || row == ABSENT) ? row : row.clone();
+    }
+
+    /**
+     * Stores a row read under the given stamp, unless the table was written since; {@code null} caches the key as
+     * {@link #ABSENT}.
+     */
+    void putRow(long stamp, Object primaryKey, Object[] row) {
+        // Same lock as the version bump: a write either happens before this check or invalidates after the put
+        synchronized (version) {
+            if (version.isCurrent(stamp)) {
+                rows.put(primaryKey, (row == null) ? ABSENT : row.clone());
+            }
+        }
+    }
+
+    /**
+     * Drops written keys. Called after the table version was bumped.
+     */
+    void invalidate(Collection<?> primaryKeys) {
+        rows.invalidateAll(primaryKeys);
+    }
+
+    /**
+     * Drops every row, for writes whose keys are unknown. Called after the table version was bumped.
+     */
+    void invalidateAll() {
+        rows.invalidateAll();
+    }
+
+    /**
+     * Drops the rows whose primary key has one of the given string forms, or all rows when the set is empty.
+     * Used for changes reported by other nodes, which only know the keys as strings.
+     */
+    void invalidateMatching(Set<String> primaryKeys) {
+        if (primaryKeys.isEmpty()) {
+            rows.invalidateAll();
+        } else {
+            rows.asMap().keySet().removeIf(key -> primaryKeys.contains(String.valueOf(key)));
+        }
+    }
+
+    /**
+     * Builds the result key of a query.
+     *
+     * @return the key, or {@code null} when one of the involved tables has uncommitted writes
+     */
+    QueryKey queryKey(BoundQuery bound, List<FetchJoin> joins) {
+        List<Long> stamps = new ArrayList<>(joins.size() + 1);
+        stamps.add(version.readStamp());
+        for (FetchJoin join : joins) {
+            stamps.add(TableVersion.of(join.table().getEntityClass()).readStamp());
+        }
+        if (stamps.contains(-1L)) {
+            return null;
+        }
+        // Parameters may be null, so no List.copyOf
+        List<Object> parameters = Collections.unmodifiableList(new ArrayList<>(bound.parameters()));
+        return new QueryKey(bound.sql(), parameters, List.copyOf(stamps));
+    }
+
+    /**
+     * @return a copy of the cached result, or {@code null} on a miss
+     */
+    ResultRows getResult(QueryKey key) {
+        ResultRows result = results.getIfPresent(key);
+        return (result == null) ? null : result.copy();
+    }
+
+    void putResult(QueryKey key, ResultRows result) {
+        results.put(key, result.copy());
+    }
+}
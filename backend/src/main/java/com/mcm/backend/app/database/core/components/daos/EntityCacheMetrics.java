@@ -0,0 +1,27 @@
+package com.mcm.backend.app.database.core.components.daos;
+
+/**
+ * Counters of the {@link EntityCache} of one table.
+ *
+ * @param table         the table name
+ * @param rows          approximate number of cached rows (including keys without a record)
+ * @param rowHits       primary key lookups answered from the cache
+ * @param rowMisses     primary key lookups that went to the database
+ * @param rowHitRate    rowHits / (rowHits + rowMisses), 1 when nothing was looked up yet
+ * @param queryResults  approximate number of cached query results (including outdated ones not yet evicted)
+ * @param queryHits     queries answered from the cache
+ * @param queryMisses   queries that went to the database
+ * @param queryHitRate  queryHits / (queryHits + queryMisses), 1 when nothing was queried yet
+ * @param evictions     entries dropped because of size or age (invalidations are not counted)
+ */
+public record EntityCacheMetrics(String table,
+                                 long rows,
+                                 long rowHits,
+                                 long rowMisses,
+                                 double rowHitRate,
+                                 long queryResults,
+                                 long queryHits,
+                                 long queryMisses,
+                                 double queryHitRate,
+                                 long evictions) {
+}
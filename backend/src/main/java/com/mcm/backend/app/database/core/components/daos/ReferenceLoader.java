@@ -0,0 +1,135 @@
+package com.mcm.backend.app.database.core.components.daos;
+
+import com.mcm.backend.app.database.core.components.tables.Table;
+import com.mcm.backend.app.database.core.components.tables.TableEntity;
+import com.mcm.backend.app.database.core.components.tables.TableUtils;
+import com.mcm.backend.app.database.core.factories.DAOFactory;
+import com.mcm.backend.app.database.core.factories.TableRegistry;
+
+import java.sql.Connection;
+import java.util.*;
+
+/**
+ * Resolves the {@code @ForeignKey} columns of a whole result set at once.
+ * <p>
+ * Referenced keys are collected per entity class and loaded with a single {@code pk = ANY(?)} query per class.
+ * Loaded entities are kept in an identity map for the lifetime of the loader (one top-level query), so a row
+ * referenced many times is fetched once and shared by every entity that points to it.
+ */
+class ReferenceLoader {
+
+    private final Connection connection;
+    private final Map<Class<?>, Map<Object, Object>> identityMap = new HashMap<>();
+
+    ReferenceLoader(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Replaces the raw foreign keys in the given rows by their referenced entities and instantiates the rows.
+     *
+     * @param table the table the rows were read from
+     * @param rows  the rows as read by {@link Table#readRow}
+     * @return the entities, in row order
+     */
+    <T> List<T> materialize(Table<T, ?> table, List<Object[]> rows) {
+        int[] foreignKeyIndexes = table.getForeignKeyColumnIndexes();
+
+        if (foreignKeyIndexes.length > 0 && !rows.isEmpty()) {
+            // 1) collect the distinct keys per referenced class
+            Map<Class<? extends TableEntity>, Set<Object>> keysByClass = new LinkedHashMap<>();
+            for (Object[] row : rows) {
+                for (int index : foreignKeyIndexes) {
+                    if (row[index] != null) {
+                        keysByClass.computeIfAbsent(table.getReferencedClass(index), c -> new LinkedHashSet<>())
+                                .add(row[index]);
+                    }
+                }
+            }
+
+            // 2) one query per referenced class
+            keysByClass.forEach(this::load);
+
+            // 3) swap the keys for the (shared) entities
+            for (Object[] row : rows) {
+                for (int index : foreignKeyIndexes) {
+                    if (row[index] != null) {
+                        row[index] = identityMap.get(table.getReferencedClass(index)).get(row[index]);
+                    }
+                }
+            }
+        }
+
+        List<T> entities = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            entities.add(table.instantiate(row));
+        }
+        return entities;
+    }
+
+    /**
+     * Adds rows that were already fetched (e.g. through a {@code LEFT JOIN}) to the identity map, so that
+     * {@link #materialize} does not query them again. Their own foreign keys are resolved in batch.
+     *
+     * @param table     the table the rows belong to
+     * @param rowsByKey the raw rows by primary key; a {@code null} row marks a key without a matching record
+     */
+    <R> void register(Table<R, ?> table, Map<Object, Object[]> rowsByKey) {
+        Map<Object, Object> loaded = identityMap.computeIfAbsent(table.getEntityClass(), c -> new HashMap<>());
+
+        List<Object> keys = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        rowsByKey.forEach((key, row) -> {
+            if (loaded.containsKey(key)) {
+                return;
+            }
+            if (row == null) {
+                loaded.put(key, null);
+            } else {
+                keys.add(key);
+                rows.add(row);
+            }
+        });
+
+        List<R> entities = materialize(table, rows);
+        for (int i = 0; i < entities.size(); i++) {
+            loaded.put(keys.get(i), entities.get(i));
+        }
+    }
+
+    private <R extends TableEntity> void load(Class<R> referenceClass, Set<Object> keys) {
+        Map<Object, Object> loaded = identityMap.computeIfAbsent(referenceClass, c -> new HashMap<>());
+
+        List<Object> missing = new ArrayList<>();
+        for (Object key : keys) {
+            if (!loaded.containsKey(key)) {
+                missing.add(key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        Table<R, Object> table = TableRegistry.getTable(referenceClass);
+        try (DAO<R, Object> dao = DAOFactory.createDAO(connection, referenceClass)) {
+            for (R entity : dao.getByPrimaryKeys(missing, this, "loadReferences")) {
+                loaded.put(toKey(table.getPrimaryKey(entity)), entity);
+            }
+        }
+
+        // Dangling references resolve to null, as they did with a per-row lookup
+        for (Object key : missing) {
+            loaded.putIfAbsent(key, null);
+        }
+    }
+
+    /**
+     * Unwraps entity-valued primary keys (e.g. {@code Admin} keyed by its {@code User}) to the raw column value.
+     */
+    static Object toKey(Object primaryKey) {
+        while (primaryKey instanceof TableEntity) {
+            primaryKey = TableUtils.getPrimaryKeyValue(primaryKey);
+        }
+        return primaryKey;
+    }
+}
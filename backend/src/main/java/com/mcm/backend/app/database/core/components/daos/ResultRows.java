@@ -0,0 +1,74 @@
+package com.mcm.backend.app.database.core.components.daos;
+
+import com.mcm.backend.app.database.core.components.tables.FetchJoin;
+import com.mcm.backend.app.database.core.components.tables.Table;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The raw result of a select (see {@link Table#readRow}): the rows of the queried table plus, per fetch join, the
+ * joined rows by primary key ({@code null} for keys the join did not match).
+ * Materializing replaces foreign keys in place, so cached results are only ever handed out as {@link #copy()}.
+ */
+record ResultRows(List<Object[]> rows, List<Map<Object, Object[]>> joinedRows) {
+
+    /**
+     * Reads the result set.
+     *
+     * @param maxRows the maximum number of rows to read, or 0 to read until the end of the ResultSet
+     */
+    static ResultRows read(Table<?, ?> table, ResultSet resultSet, List<FetchJoin> joins, int maxRows)
+            throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        List<Map<Object, Object[]>> joinedRows = new ArrayList<>();
+        for (int i = 0; i < joins.size(); i++) {
+            joinedRows.add(new LinkedHashMap<>());
+        }
+
+        while ((maxRows == 0 || rows.size() < maxRows) && resultSet.next()) {
+            Object[] row = table.readRow(resultSet, 1);
+            for (int i = 0; i < joins.size(); i++) {
+                FetchJoin join = joins.get(i);
+                Object key = row[join.columnIndex()];
+                if (key != null && !joinedRows.get(i).containsKey(key)) {
+                    joinedRows.get(i).put(key, join.readRow(resultSet));
+                }
+            }
+            rows.add(row);
+        }
+        return new ResultRows(rows, joinedRows);
+    }
+
+    /**
+     * Builds the entities: joined rows are registered as already loaded, so only foreign keys that were not
+     * joined are resolved with extra queries.
+     */
+    <T> List<T> materialize(Table<T, ?> table, List<FetchJoin> joins, ReferenceLoader referenceLoader) {
+        for (int i = 0; i < joins.size(); i++) {
+            referenceLoader.register(joins.get(i).table(), joinedRows.get(i));
+        }
+        return referenceLoader.materialize(table, rows);
+    }
+
+    /**
+     * @return a deep copy whose rows can be materialized without touching this instance
+     */
+    ResultRows copy() {
+        List<Object[]> rowsCopy = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            rowsCopy.add(row.clone());
+        }
+        List<Map<Object, Object[]>> joinedCopy = new ArrayList<>(joinedRows.size());
+        for (Map<Object, Object[]> joined : joinedRows) {
+            Map<Object, Object[]> copy = new LinkedHashMap<>();
+            joined.forEach((key, row) -> copy.put(key, (row == null) ? null : row.clone()));
+            joinedCopy.add(copy);
+        }
+        return new ResultRows(rowsCopy, joinedCopy);
+    }
+}
@@ -0,0 +1,69 @@
+package com.mcm.backend.app.database.core.components.daos;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Monotonic change counter of one table, bumped by every write through a {@link DAO}.
+ * <p>
+ * Cached data is tagged with the stamp that was current before it was read, so anything read before a write
+ * completed can no longer be found (query results) or is not stored at all (rows). While a unit of work holds
+ * uncommitted writes to the table no stamp is handed out, which keeps uncommitted data out of the caches.
+ */
+final class TableVersion {
+
+    private static final Map<Class<?>, TableVersion> versions = new ConcurrentHashMap<>();
+
+    private long version;
+    private int openWrites;
+
+    private TableVersion() {
+    }
+
+    static TableVersion of(Class<?> entityClass) {
+        return versions.computeIfAbsent(entityClass, c -> new TableVersion());
+    }
+
+    /**
+     * Outdates everything cached for every table.
+     */
+    static void bumpAll() {
+        for (TableVersion version : versions.values()) {
+            version.bump();
+        }
+    }
+
+    /**
+     * @return the current stamp, or {@code -1} while uncommitted writes are open (caches must be bypassed)
+     */
+    synchronized long readStamp() {
+        return (openWrites > 0) ? -1 : version;
+    }
+
+    /**
+     * @return true if nothing was written since the stamp was taken
+     */
+    synchronized boolean isCurrent(long stamp) {
+        return stamp >= 0 && stamp == version && openWrites == 0;
+    }
+
+    /**
+     * Records a committed (auto-commit) write.
+     */
+    synchronized void bump() {
+        version++;
+    }
+
+    /**
+     * Records a write inside a transaction; must be followed by {@link #endWrite()} once it completes.
+     */
+    synchronized void beginWrite() {
+        openWrites++;
+        version++;
+    }
+
+    synchronized void endWrite() {
+        openWrites--;
+        version++;
+    }
+}
@@ -0,0 +1,7 @@
+package com.mcm.backend.app.database.core.components.daos.querying;
+
+/**
+ * A WHERE predicate: either a single {@link FilterCriterion} or a parenthesized {@link FilterGroup}.
+ */
+public sealed interface Filter permits FilterCriterion, FilterGroup {
+}
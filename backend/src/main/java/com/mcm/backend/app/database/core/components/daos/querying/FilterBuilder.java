@@ -0,0 +1,138 @@
+package com.mcm.backend.app.database.core.components.daos.querying;
+
+import com.mcm.backend.app.database.core.components.daos.querying.FilterCriterion.Operator;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The predicate methods shared by {@link QueryBuilder} and nested groups.
+ * Consecutive predicates are combined with AND, {@link #anyOf(Consumer)} opens an OR group.
+ *
+ * @param <B> the concrete builder, returned for chaining
+ */
+public abstract class FilterBuilder<B extends FilterBuilder<B>> {
+
+    /**
+     * Adds a filter to this builder's conjunction.
+     */
+    protected abstract B add(Filter filter);
+
+    /**
+     * Add an “= value” filter.
+     */
+    public <D> B where(Field field, D value) {
+        return add(new FilterCriterion<>(field, value, false));
+    }
+
+    /**
+     * Add a “LIKE value” filter.
+     */
+    public <D> B whereLike(Field field, D value) {
+        return add(new FilterCriterion<>(field, value, true));
+    }
+
+    /**
+     * Alias for where(...).
+     */
+    public <D> B and(Field field, D value) {
+        return where(field, value);
+    }
+
+    /**
+     * Alias for whereLike(...).
+     */
+    public <D> B andLike(Field field, D value) {
+        return whereLike(field, value);
+    }
+
+    /**
+     * Add an “= ANY(?)” filter: the field matches one of the values. The values are bound as a single
+     * array parameter, so the SQL is the same for any number of values. An empty collection matches nothing.
+     */
+    public B in(Field field, Collection<?> values) {
+        return add(new FilterCriterion<>(field, Operator.IN, values == null ? null : List.copyOf(values)));
+    }
+
+    /** Add a “> value” filter. */
+    public <D> B gt(Field field, D value) {
+        return add(new FilterCriterion<>(field, Operator.GT, value));
+    }
+
+    /** Add a “>= value” filter. */
+    public <D> B gte(Field field, D value) {
+        return add(new FilterCriterion<>(field, Operator.GTE, value));
+    }
+
+    /** Add a “< value” filter. */
+    public <D> B lt(Field field, D value) {
+        return add(new FilterCriterion<>(field, Operator.LT, value));
+    }
+
+    /** Add a “<= value” filter. */
+    public <D> B lte(Field field, D value) {
+        return add(new FilterCriterion<>(field, Operator.LTE, value));
+    }
+
+    /**
+     * Add an inclusive “BETWEEN low AND high” filter. A {@code null} bound leaves that side open.
+     */
+    public <D> B between(Field field, D low, D high) {
+        if (low == null) {
+            return lte(field, high);
+        }
+        if (high == null) {
+            return gte(field, low);
+        }
+        return add(new FilterCriterion<>(field, Operator.BETWEEN, low, high));
+    }
+
+    /** Add an “IS NULL” filter. */
+    public B isNull(Field field) {
+        return add(new FilterCriterion<>(field, Operator.IS_NULL, null));
+    }
+
+    /** Add an “IS NOT NULL” filter. */
+    public B isNotNull(Field field) {
+        return add(new FilterCriterion<>(field, Operator.IS_NOT_NULL, null));
+    }
+
+    /**
+     * Add a parenthesized OR group, e.g. {@code .anyOf(g -> g.isNull(a).where(b, 1))} gives “(a IS NULL OR b = ?)”.
+     */
+    public B anyOf(Consumer<Group> group) {
+        return add(buildGroup(FilterGroup.Junction.OR, group));
+    }
+
+    /**
+     * Add a parenthesized AND group, mostly useful inside {@link #anyOf(Consumer)}.
+     */
+    public B allOf(Consumer<Group> group) {
+        return add(buildGroup(FilterGroup.Junction.AND, group));
+    }
+
+    private static FilterGroup buildGroup(FilterGroup.Junction junction, Consumer<Group> group) {
+        Group builder = new Group();
+        group.accept(builder);
+        return new FilterGroup(junction, builder.filters);
+    }
+
+    /**
+     * Collects the filters of a nested group.
+     */
+    public static final class Group extends FilterBuilder<Group> {
+        private final List<Filter> filters = new ArrayList<>();
+
+        private Group() {
+        }
+
+        @Override
+        protected Group add(Filter filter) {
+            filters.add(filter);
+            return this;
+        }
+    }
+}
@@ -3,20 +3,82 @@ package com.mcm.backend.app.database.core.components.daos.querying;
 import java.lang.reflect.Field;
 
 /**
- * A single filter condition: “field [=|LIKE] value”.
+ * A single filter condition: “field &lt;operator&gt; value”.
+ * <p>
+ * Criteria whose operator takes a value are skipped when the value is {@code null}, so optional filters can be
+ * passed straight through; use {@link Operator#IS_NULL} to match SQL NULLs.
  */
-public class FilterCriterion<T> {
+public final class FilterCriterion<T> implements Filter {
+
+    public enum Operator {
+        /** {@code = ?} */
+        EQ,
+        /** {@code LIKE ?} */
+        LIKE,
+        /** {@code = ANY(?)}, value is a collection bound as one array parameter */
+        IN,
+        /** {@code > ?} */
+        GT,
+        /** {@code >= ?} */
+        GTE,
+        /** {@code < ?} */
+        LT,
+        /** {@code <= ?} */
+        LTE,
+        /** {@code BETWEEN ? AND ?}, inclusive */
+        BETWEEN,
+        /** {@code IS NULL}, no value */
+        IS_NULL,
+        /** {@code IS NOT NULL}, no value */
+        IS_NOT_NULL;
+
+        public boolean takesValue() {
+            return this != IS_NULL && this != IS_NOT_NULL;
+        }
+    }
+
     private final Field field;
+    private final Operator operator;
     private final T value;
-    private final boolean wildcard;
+    private final T upperValue;
 
     public FilterCriterion(Field field, T value, boolean wildcard) {
-        this.field     = field;
-        this.value     = value;
-        this.wildcard  = wildcard;
+        this(field, wildcard ? Operator.LIKE : Operator.EQ, value, null);
+    }
+
+    public FilterCriterion(Field field, Operator operator, T value) {
+        this(field, operator, value, null);
+    }
+
+    /**
+     * @param upperValue the upper bound for {@link Operator#BETWEEN}, otherwise {@code null}
+     */
+    public FilterCriterion(Field field, Operator operator, T value, T upperValue) {
+        if (operator == Operator.BETWEEN && (value == null) != (upperValue == null)) {
+            throw new IllegalArgumentException("BETWEEN needs both bounds (or neither, to skip the filter)");
+        }
+        this.field      = field;
+        this.operator   = operator;
+        this.value      = value;
+        this.upperValue = upperValue;
     }
 
     public Field getField()        { return field; }
+    public Operator getOperator()  { return operator; }
     public T     getValue()        { return value; }
-    public boolean isWildcard()    { return wildcard; }
+    public T     getUpperValue()   { return upperValue; }
+    public boolean isWildcard()    { return operator == Operator.LIKE; }
+
+    /**
+     * @return true if the criterion is left out of the query because its value is {@code null}
+     */
+    public boolean isSkipped() {
+        return operator.takesValue() && value == null;
+    }
+
+    @Override
+    public String toString() {
+        return field.getName() + " " + operator + (operator.takesValue() ? " " + value : "")
+                + (operator == Operator.BETWEEN ? " AND " + upperValue : "");
+    }
 }
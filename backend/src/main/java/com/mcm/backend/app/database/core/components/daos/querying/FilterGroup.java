@@ -0,0 +1,29 @@
+package com.mcm.backend.app.database.core.components.daos.querying;
+
+import java.util.List;
+
+/**
+ * A parenthesized group of filters joined by AND or OR, e.g. “(a = ? OR b IS NULL)”.
+ * Groups can be nested; a group whose filters are all skipped is skipped itself.
+ */
+public record FilterGroup(Junction junction, List<Filter> filters) implements Filter {
+
+    public enum Junction {
+        AND(" AND "),
+        OR(" OR ");
+
+        private final String sql;
+
+        Junction(String sql) {
+            this.sql = sql;
+        }
+
+        public String sql() {
+            return sql;
+        }
+    }
+
+    public FilterGroup {
+        filters = List.copyOf(filters);
+    }
+}
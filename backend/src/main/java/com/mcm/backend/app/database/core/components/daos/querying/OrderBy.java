@@ -0,0 +1,9 @@
+package com.mcm.backend.app.database.core.components.daos.querying;
+
+import java.lang.reflect.Field;
+
+/**
+ * A single ORDER BY term: “field ASC|DESC”.
+ */
+public record OrderBy(Field field, boolean ascending) {
+}
@@ -1,89 +1,180 @@
 package com.mcm.backend.app.database.core.components.daos.querying;
 
 import com.mcm.backend.app.database.core.components.daos.DAO;
-import jakarta.annotation.Nullable;
 
 import java.lang.reflect.Field;
-import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
-public class QueryBuilder<T, K> {
+public class QueryBuilder<T, K> extends FilterBuilder<QueryBuilder<T, K>> {
     private final DAO<T, K> dao;
-    private final List<FilterCriterion<?>> filters = new ArrayList<>();
-    @Nullable
-    private Field orderByField;
+    private final QuerySpec spec = new QuerySpec();
+    // direction of the first ORDER BY term when asc()/desc() is called before orderBy(...)
     private boolean ascending = true;
+    private int fetchSize = DAO.DEFAULT_FETCH_SIZE;
 
     public QueryBuilder(DAO<T, K> dao) {
         this.dao = dao;
     }
 
+    @Override
+    protected QueryBuilder<T, K> add(Filter filter) {
+        spec.getFilters().add(filter);
+        return this;
+    }
+
     /**
-     * Add an “= value” filter.
+     * Add an ORDER BY field (ascending unless followed by {@link #desc()}).
+     * Calling it again adds a tie-breaker, e.g. {@code .orderBy(timestamp).desc().orderBy(id).desc()}.
      */
-    public <D> QueryBuilder<T, K> where(Field field, D value) {
-        filters.add(new FilterCriterion<>(field, value, false));
+    public QueryBuilder<T, K> orderBy(Field field) {
+        List<OrderBy> orderBy = spec.getOrderBy();
+        orderBy.add(new OrderBy(field, orderBy.isEmpty() ? ascending : true));
+        return this;
+    }
+
+    /** Sort the last ORDER BY field (or the next one, if none is set yet) ascending. */
+    public QueryBuilder<T, K> asc() {
+        return direction(true);
+    }
+
+    /** Sort the last ORDER BY field (or the next one, if none is set yet) descending. */
+    public QueryBuilder<T, K> desc() {
+        return direction(false);
+    }
+
+    private QueryBuilder<T, K> direction(boolean ascending) {
+        List<OrderBy> orderBy = spec.getOrderBy();
+        if (orderBy.isEmpty()) {
+            this.ascending = ascending;
+        } else {
+            int last = orderBy.size() - 1;
+            orderBy.set(last, new OrderBy(orderBy.get(last).field(), ascending));
+        }
         return this;
     }
 
     /**
-     * Add a “LIKE value” filter.
+     * Return at most {@code limit} rows.
      */
-    public <D> QueryBuilder<T, K> whereLike(Field field, D value) {
-        filters.add(new FilterCriterion<>(field, value, true));
+    public QueryBuilder<T, K> limit(int limit) {
+        spec.setLimit(limit);
         return this;
     }
 
     /**
-     * Alias for where(...).
+     * Cancel the query if it runs longer than this (0 for no timeout), instead of the table's default.
      */
-    public <D> QueryBuilder<T, K> and(Field field, D value) {
-        return where(field, value);
+    public QueryBuilder<T, K> timeout(int seconds) {
+        spec.setTimeoutSeconds(seconds);
+        return this;
     }
 
     /**
-     * Alias for whereLike(...).
+     * Keyset (seek) pagination: only return rows that sort after the row with these ORDER BY values.
+     * Pass the ORDER BY values of the last row of the previous page, one per {@link #orderBy(Field)} call.
+     * Unlike OFFSET this lets an index on the ORDER BY columns jump straight to the next page.
      */
-    public <D> QueryBuilder<T, K> andLike(Field field, D value) {
-        return whereLike(field, value);
+    public QueryBuilder<T, K> after(Object... cursorValues) {
+        spec.setAfter(cursorValues);
+        return this;
     }
 
     /**
-     * Specify ORDER BY field.
+     * Fetch the entity referenced by a {@code @ForeignKey} field in the same query (LEFT JOIN)
+     * instead of resolving it afterwards.
      */
-    public QueryBuilder<T, K> orderBy(Field field) {
-        this.orderByField = field;
+    public QueryBuilder<T, K> fetchJoin(Field field) {
+        spec.getFetchJoins().add(field);
         return this;
     }
 
-    /** Subsequent .get() will sort ascending. */
-    public QueryBuilder<T, K> asc() {
-        this.ascending = true;
+    /**
+     * Rows fetched per round trip by {@link #stream()}.
+     */
+    public QueryBuilder<T, K> fetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
         return this;
     }
 
-    /** Subsequent .get() will sort descending. */
-    public QueryBuilder<T, K> desc() {
-        this.ascending = false;
-        return this;
+    /**
+     * Execute the query as a lazily evaluated stream backed by a server-side cursor.
+     * The stream must be closed, see {@link DAO#stream(QuerySpec, int)}.
+     */
+    public Stream<T> stream() {
+        return dao.stream(spec, fetchSize);
+    }
+
+    /**
+     * Execute the query selecting only the given fields, read into a lightweight record
+     * whose components match the fields in order and type.
+     */
+    public <R extends Record> List<R> select(Class<R> type, Field... fields) {
+        return dao.select(spec, type, List.of(fields));
     }
 
     /**
      * Execute the query and return matched entities.
      */
     public List<T> get() {
-        return dao.get(filters, orderByField, ascending);
+        return dao.get(spec);
     }
 
     public T getUnique() {
-        List<T> results = dao.get(filters, orderByField, ascending);
+        List<T> results = dao.get(spec);
         if (results.size() > 1) {
-            throw new IllegalStateException("Multiple results found for query: " + filters);
+            throw new IllegalStateException("Multiple results found for query: " + spec.getFilters());
         } else if (results.isEmpty()) {
             return null;
         } else {
             return results.getFirst();
         }
     }
-}
 
+    /**
+     * Delete every matching row with a single {@code DELETE … WHERE} statement, without loading the entities.
+     * At least one filter has to apply (filters with a {@code null} value are skipped), and ordering, cursors,
+     * limits and fetch joins are not allowed.
+     *
+     * @return the number of deleted rows
+     */
+    public int delete() {
+        return dao.delete(spec);
+    }
+
+    /**
+     * Start a set-based {@code UPDATE … SET field = value WHERE …} of every matching row; set more columns with
+     * {@link Update#set(Field, Object)} and run it with {@link Update#execute()}. The same restrictions as for
+     * {@link #delete()} apply.
+     */
+    public Update update(Field field, Object value) {
+        return new Update().set(field, value);
+    }
+
+    /**
+     * The SET clause of a set-based update of the rows matched by this builder.
+     */
+    public final class Update {
+        private final Map<Field, Object> assignments = new LinkedHashMap<>();
+
+        private Update() {
+        }
+
+        /**
+         * Also set {@code field} to {@code value}; entities are stored as their primary key, maps as JSON.
+         */
+        public Update set(Field field, Object value) {
+            assignments.put(field, value);
+            return this;
+        }
+
+        /**
+         * @return the number of updated rows
+         */
+        public int execute() {
+            return dao.update(spec, assignments);
+        }
+    }
+}
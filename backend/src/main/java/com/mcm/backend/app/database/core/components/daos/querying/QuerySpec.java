@@ -0,0 +1,97 @@
+package com.mcm.backend.app.database.core.components.daos.querying;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Everything a SELECT can be built from: filters, ordering, keyset cursor, limit and fetch joins.
+ * Filled by {@link QueryBuilder} and turned into SQL by the entity's {@code Table}.
+ */
+public class QuerySpec {
+    private final List<Filter> filters = new ArrayList<>();
+    private final List<OrderBy> orderBy = new ArrayList<>();
+    private final List<Field> fetchJoins = new ArrayList<>();
+    private List<Object> after = List.of();
+    private Integer limit;
+    private Integer timeoutSeconds;
+
+    /**
+     * Spec for the classic “filters + single optional ORDER BY” query.
+     */
+    public static QuerySpec of(List<FilterCriterion<?>> filters, Field orderByField, boolean ascending) {
+        QuerySpec spec = new QuerySpec();
+        spec.filters.addAll(filters);
+        if (orderByField != null) {
+            spec.orderBy.add(new OrderBy(orderByField, ascending));
+        }
+        return spec;
+    }
+
+    public List<Filter> getFilters()             { return filters; }
+    public List<OrderBy> getOrderBy()            { return orderBy; }
+    public List<Field> getFetchJoins()           { return fetchJoins; }
+    public List<Object> getAfter()               { return after; }
+    public Integer getLimit()                    { return limit; }
+    public Integer getTimeoutSeconds()           { return timeoutSeconds; }
+
+    /**
+     * The fields and operators of the applied filters, never their values, e.g. {@code owner EQ, (name LIKE OR id IN)}.
+     * Labels the query in the {@code QueryMetrics}.
+     */
+    public String getFilterShape() {
+        StringBuilder shape = new StringBuilder();
+        appendShape(shape, filters, ", ");
+        return shape.toString();
+    }
+
+    private static boolean appendShape(StringBuilder shape, List<Filter> filters, String separator) {
+        boolean appended = false;
+        for (Filter filter : filters) {
+            int mark = shape.length();
+            if (appended) {
+                shape.append(separator);
+            }
+            if (filter instanceof FilterCriterion<?> criterion && !criterion.isSkipped()) {
+                shape.append(criterion.getField().getName()).append(' ').append(criterion.getOperator());
+                appended = true;
+            } else if (filter instanceof FilterGroup group) {
+                shape.append('(');
+                if (appendShape(shape, group.filters(), group.junction().sql())) {
+                    shape.append(')');
+                    appended = true;
+                } else {
+                    shape.setLength(mark);
+                }
+            } else {
+                shape.setLength(mark);
+            }
+        }
+        return appended;
+    }
+
+    /**
+     * Seek past the row with these ORDER BY values (one per {@link #getOrderBy()} term, in the same order).
+     */
+    public void setAfter(Object... values) {
+        this.after = Arrays.asList(values);
+    }
+
+    public void setLimit(Integer limit) {
+        if (limit != null && limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative");
+        }
+        this.limit = limit;
+    }
+
+    /**
+     * Statement timeout of this query, overriding the one of the table; {@code null} keeps the table's, 0 disables it.
+     */
+    public void setTimeoutSeconds(Integer timeoutSeconds) {
+        if (timeoutSeconds != null && timeoutSeconds < 0) {
+            throw new IllegalArgumentException("timeoutSeconds must not be negative");
+        }
+        this.timeoutSeconds = timeoutSeconds;
+    }
+}
@@ -0,0 +1,46 @@
+package com.mcm.backend.app.database.core.components.tables;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Generated SQL together with its parameter values, in placeholder order.
+ * Entity-valued parameters are already unwrapped to their primary key.
+ */
+public record BoundQuery(String sql, List<Object> parameters) {
+
+    /**
+     * A parameter bound as a SQL array (for {@code = ANY(?)}), created with {@code Connection.createArrayOf}.
+     * Compared by content, so bound queries can be used as cache keys.
+     *
+     * @param elementType the PostgreSQL element type name, see {@link TableUtils#getSqlArrayType(Class)}
+     * @param elements    the array elements
+     */
+    public record ArrayParameter(String elementType, Object[] elements) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ArrayParameter other
+                    && elementType.equals(other.elementType)
+                    && Arrays.equals(elements, other.elements);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * elementType.hashCode() + Arrays.hashCode(elements);
+        }
+
+        @Override
+        public String toString() {
+            return elementType + Arrays.toString(elements);
+        }
+    }
+
+    /**
+     * A JSON column value, bound as {@code Types.OTHER} so Postgres casts the text to the column type.
+     *
+     * @param json the serialized value
+     */
+    public record JsonParameter(String json) {
+    }
+}
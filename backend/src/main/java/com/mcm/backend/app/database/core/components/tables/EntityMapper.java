@@ -0,0 +1,357 @@
+package com.mcm.backend.app.database.core.components.tables;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mcm.backend.app.database.core.annotations.table.ForeignKey;
+import com.mcm.backend.app.database.core.annotations.table.TableColumn;
+import com.mcm.backend.app.database.core.annotations.table.TableConstructor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Precompiled row ↔ entity mapper for a single {@link TableEntity} class.
+ * <p>
+ * All reflection (field/constructor lookup, annotation filtering, access checks) happens once when the mapper is
+ * built. The per-row work goes through the entity's {@link GeneratedMapper} when the build generated one, and
+ * through {@link MethodHandle}s that the JIT can inline for anything it cannot reach.
+ * Columns are addressed by ordinal: column {@code i} of the mapper is read from result column {@code offset + i},
+ * which matches the column order of {@link Table#getSelectColumns()}.
+ */
+final class EntityMapper<T> {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> JSON_MAP_TYPE = new TypeReference<>() {};
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    enum ColumnKind { VALUE, FOREIGN_KEY, JSON }
+
+    /**
+     * A single mapped column.
+     *
+     * @param field          the backing entity field
+     * @param columnName     the SQL column name
+     * @param kind           how the column is converted between JDBC and Java
+     * @param readType       the type requested from the ResultSet (the referenced PK type for foreign keys)
+     * @param referenceClass the referenced entity class for foreign keys, otherwise {@code null}
+     * @param getter         reads the field (generated accessor or method handle)
+     */
+    record Column(Field field,
+                  String columnName,
+                  ColumnKind kind,
+                  Class<?> readType,
+                  Class<? extends TableEntity> referenceClass,
+                  Function<Object, Object> getter) {
+    }
+
+    private final Class<T> clazz;
+    private final List<Column> columns;
+    private final GeneratedMapper<T> generated;
+    private final MethodHandle constructor;
+    private final Function<Object, Object> primaryKeyGetter;
+
+    @SuppressWarnings("unchecked")
+    EntityMapper(Class<T> clazz, Map<Field, String> fieldToColumnName, AccessibleObject primaryKeyMember) {
+        this.clazz = clazz;
+        this.generated = GeneratedMapper.find(clazz);
+
+        MethodHandles.Lookup lookup;
+        try {
+            lookup = MethodHandles.privateLookupIn(clazz, MethodHandles.lookup());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access " + clazz.getName(), e);
+        }
+
+        // Columns, in declaration order (== @TableConstructor parameter order)
+        List<Column> mapped = new ArrayList<>();
+        for (Field field : clazz.getDeclaredFields()) {
+            if (!field.isAnnotationPresent(TableColumn.class)) {
+                continue;
+            }
+            String columnName = fieldToColumnName.get(field);
+            Class<?> type = field.getType();
+
+            ColumnKind kind;
+            Class<?> readType = type;
+            Class<? extends TableEntity> referenceClass = null;
+            if (field.isAnnotationPresent(ForeignKey.class)) {
+                if (!TableEntity.class.isAssignableFrom(type)) {
+                    throw new IllegalArgumentException("Foreign key Class does not extend TableEntity");
+                }
+                kind = ColumnKind.FOREIGN_KEY;
+                referenceClass = (Class<? extends TableEntity>) type;
+                readType = TableUtils.getPrimaryKeyType(referenceClass);
+            } else if (Map.class.isAssignableFrom(type)) {
+                kind = ColumnKind.JSON;
+            } else {
+                kind = ColumnKind.VALUE;
+            }
+
+            Function<Object, Object> getter = (generated == null) ? null : generated.getter(mapped.size());
+            if (getter == null) {
+                try {
+                    getter = handleGetter(lookup.unreflectGetter(field).asType(GETTER_TYPE));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Cannot access field " + field.getName() + " of " + clazz.getName(), e);
+                }
+            }
+            mapped.add(new Column(field, columnName, kind, readType, referenceClass, getter));
+        }
+        this.columns = Collections.unmodifiableList(mapped);
+
+        // Constructor, spread over an Object[] of column values
+        Constructor<?> tableConstructor = Arrays.stream(clazz.getDeclaredConstructors())
+                .filter(c -> c.isAnnotationPresent(TableConstructor.class))
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("No @TableConstructor on " + clazz.getName()));
+        if (tableConstructor.getParameterCount() != columns.size()) {
+            throw new RuntimeException(
+                    "Constructor parameter count (" + tableConstructor.getParameterCount() +
+                            ") does not match field count (" + columns.size() + ")");
+        }
+        if (generated != null) {
+            this.constructor = null;
+        } else {
+            try {
+                this.constructor = lookup.unreflectConstructor(tableConstructor)
+                        .asSpreader(Object[].class, columns.size())
+                        .asType(CONSTRUCTOR_TYPE);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot access @TableConstructor of " + clazz.getName(), e);
+            }
+        }
+
+        // Primary key accessor (field or zero-arg method)
+        Function<Object, Object> pkGetter = (generated == null) ? null : generated.primaryKeyGetter();
+        if (pkGetter == null) {
+            try {
+                MethodHandle pkHandle = (primaryKeyMember instanceof Field pkField)
+                        ? lookup.unreflectGetter(pkField)
+                        : lookup.unreflect((Method) primaryKeyMember);
+                pkGetter = handleGetter(pkHandle.asType(GETTER_TYPE));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot access primary key of " + clazz.getName(), e);
+            }
+        }
+        this.primaryKeyGetter = pkGetter;
+    }
+
+    List<Column> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Reads one row into raw constructor arguments. Foreign-key slots hold the raw referenced primary key and JSON
+     * slots the JSON text (parsed by {@link #instantiate}), so raw rows are immutable values that can be cached and
+     * compared.
+     *
+     * @param rs     the result set positioned on the row
+     * @param offset the ordinal of the first column of this entity (1-based)
+     * @return the column values in constructor order
+     */
+    Object[] readRow(ResultSet rs, int offset) throws SQLException {
+        Object[] args = new Object[columns.size()];
+        for (int i = 0; i < args.length; i++) {
+            Column column = columns.get(i);
+            args[i] = (column.kind() == ColumnKind.JSON)
+                    ? rs.getString(offset + i)
+                    : rs.getObject(offset + i, column.readType());
+        }
+        return args;
+    }
+
+    /**
+     * Reads a single column value; foreign keys are returned as the raw referenced primary key.
+     *
+     * @param rs          the result set positioned on the row
+     * @param ordinal     the result column to read (1-based)
+     * @param columnIndex the mapper column the value belongs to
+     */
+    Object readColumn(ResultSet rs, int ordinal, int columnIndex) throws SQLException {
+        Column column = columns.get(columnIndex);
+        return switch (column.kind()) {
+            case JSON -> {
+                String json = rs.getString(ordinal);
+                yield (json == null) ? Collections.emptyMap() : new LazyJsonMap(json);
+            }
+            case FOREIGN_KEY, VALUE -> rs.getObject(ordinal, column.readType());
+        };
+    }
+
+    /**
+     * Invokes the {@link TableConstructor} with the given arguments, whose foreign keys are resolved.
+     * JSON text is wrapped in {@link LazyJsonMap}s, parsed on first use; the given array is not modified.
+     */
+    T instantiate(Object[] args) {
+        Object[] constructorArgs = args;
+        for (int i = 0; i < args.length; i++) {
+            if (columns.get(i).kind() == ColumnKind.JSON && !(args[i] instanceof Map)) {
+                if (constructorArgs == args) {
+                    constructorArgs = args.clone();
+                }
+                String json = (String) args[i];
+                constructorArgs[i] = (json == null) ? Collections.emptyMap() : new LazyJsonMap(json);
+            }
+        }
+        try {
+            return (generated != null)
+                    ? generated.instantiate(constructorArgs)
+                    : clazz.cast((Object) constructor.invokeExact(constructorArgs));
+        } catch (Throwable e) {
+            throw new RuntimeException("Failed to create instance of " + clazz.getName(), e);
+        }
+    }
+
+    /**
+     * Turns arguments of a freshly built entity into its snapshot: the values as they are stored, i.e. foreign keys
+     * as the referenced primary key and JSON columns as text.
+     */
+    Object[] snapshot(Object[] args) {
+        Object[] snapshot = args.clone();
+        for (int i = 0; i < snapshot.length; i++) {
+            Column column = columns.get(i);
+            if (column.kind() == ColumnKind.FOREIGN_KEY && snapshot[i] instanceof TableEntity) {
+                snapshot[i] = TableUtils.getPrimaryKeyValue(snapshot[i]);
+            } else if (column.kind() == ColumnKind.JSON && snapshot[i] instanceof Map) {
+                snapshot[i] = toJson(snapshot[i]);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return the snapshot (see {@link #snapshot}) of the entity's current state
+     */
+    Object[] snapshotOf(T entity) {
+        Object[] snapshot = new Object[columns.size()];
+        for (int i = 0; i < snapshot.length; i++) {
+            Object value = get(columns.get(i).getter(), entity);
+            snapshot[i] = switch (columns.get(i).kind()) {
+                case FOREIGN_KEY -> (value == null) ? null : TableUtils.getPrimaryKeyValue(value);
+                case JSON -> (value == null) ? null : toJson(value);
+                case VALUE -> value;
+            };
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return true if the column of the entity no longer holds its snapshot value
+     */
+    boolean isChanged(T entity, int columnIndex, Object snapshotValue) {
+        Column column = columns.get(columnIndex);
+        Object value = get(column.getter(), entity);
+        return switch (column.kind()) {
+            case FOREIGN_KEY -> !Objects.equals((value == null) ? null : TableUtils.getPrimaryKeyValue(value), snapshotValue);
+            case JSON -> isJsonChanged(value, snapshotValue);
+            case VALUE -> !Objects.deepEquals(value, snapshotValue);
+        };
+    }
+
+    private static boolean isJsonChanged(Object value, Object snapshotValue) {
+        if (value == null) {
+            return snapshotValue != null;
+        }
+        if (value instanceof LazyJsonMap lazy && lazy.getRawJson() != null && lazy.getRawJson().equals(snapshotValue)) {
+            // Untouched since it was read, no need to parse it
+            return false;
+        }
+        // Compared as maps: the database normalizes JSON text, so the text may differ for equal content
+        return !value.equals((snapshotValue == null) ? Collections.emptyMap() : readJson((String) snapshotValue));
+    }
+
+    Object getValue(T entity, int columnIndex) {
+        return get(columns.get(columnIndex).getter(), entity);
+    }
+
+    Object getPrimaryKey(Object entity) {
+        return get(primaryKeyGetter, entity);
+    }
+
+    /**
+     * Binds a column of the entity to a statement parameter, converting foreign keys to their
+     * referenced primary key and maps to JSON (untouched {@link LazyJsonMap}s without a round trip).
+     */
+    void bind(PreparedStatement ps, int parameterIndex, T entity, int columnIndex) throws SQLException {
+        Column column = columns.get(columnIndex);
+        Object value = get(column.getter(), entity);
+        switch (column.kind()) {
+            case FOREIGN_KEY -> ps.setObject(parameterIndex, (value == null) ? null : TableUtils.getPrimaryKeyValue(value));
+            case JSON -> ps.setObject(parameterIndex, (value == null) ? null : toJson(value), Types.OTHER);
+            case VALUE -> ps.setObject(parameterIndex, value);
+        }
+    }
+
+    /**
+     * Converts a value for a column into a statement parameter the way {@link #bind} does: entities become their
+     * primary key and maps a {@link BoundQuery.JsonParameter}.
+     */
+    Object toParameter(int columnIndex, Object value) {
+        if (value == null) {
+            return null;
+        }
+        return switch (columns.get(columnIndex).kind()) {
+            case FOREIGN_KEY -> (value instanceof TableEntity) ? TableUtils.getPrimaryKeyValue(value) : value;
+            case JSON -> new BoundQuery.JsonParameter(toJson(value));
+            case VALUE -> value;
+        };
+    }
+
+    private static Object get(Function<Object, Object> getter, Object entity) {
+        return getter.apply(entity);
+    }
+
+    /**
+     * @param getter an {@code (Object)Object} handle
+     */
+    private static Function<Object, Object> handleGetter(MethodHandle getter) {
+        return entity -> {
+            try {
+                return (Object) getter.invokeExact(entity);
+            } catch (Throwable e) {
+                throw new RuntimeException("Failed to access field", e);
+            }
+        };
+    }
+
+    private static Map<String, Object> readJson(String json) {
+        try {
+            return objectMapper.readValue(json, JSON_MAP_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to parse JSON column", e);
+        }
+    }
+
+    /**
+     * Serializes a map column; untouched {@link LazyJsonMap}s are passed through as read.
+     */
+    private static String toJson(Object value) {
+        if (value instanceof LazyJsonMap lazy && lazy.getRawJson() != null) {
+            return lazy.getRawJson();
+        }
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to access or serialize field", e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.mcm.backend.app.database.core.components.tables;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * A {@code @ForeignKey} column that is fetched with a {@code LEFT JOIN} in the same query as its owning entity.
+ * Created by {@link Table#planFetchJoins(java.util.List)}.
+ *
+ * @param columnIndex     the argument index (see {@link Table#readRow}) of the foreign key in the owning entity
+ * @param table           the referenced table
+ * @param alias           the SQL alias of the joined table
+ * @param offset          the ordinal of the first joined column in the select list (1-based)
+ * @param primaryKeyIndex the argument index of the primary key in the referenced entity
+ */
+public record FetchJoin(int columnIndex,
+                        Table<?, ?> table,
+                        String alias,
+                        int offset,
+                        int primaryKeyIndex) {
+
+    /**
+     * Reads the joined columns of the current row.
+     *
+     * @return the joined entity's arguments, or {@code null} if the join matched no row
+     */
+    public Object[] readRow(ResultSet rs) throws SQLException {
+        Object[] args = table.readRow(rs, offset);
+        return (args[primaryKeyIndex] == null) ? null : args;
+    }
+}
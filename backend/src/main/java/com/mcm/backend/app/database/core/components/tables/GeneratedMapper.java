@@ -0,0 +1,47 @@
+package com.mcm.backend.app.database.core.components.tables;
+
+import java.util.function.Function;
+
+/**
+ * Reflection-free constructor and accessors of one entity, generated at compile time as {@code <Entity>_Mapper}
+ * next to the entity (see the {@code processor} build module).
+ * <p>
+ * {@link EntityMapper} prefers these over method handles; columns without a generated accessor (private fields
+ * without a plain getter) still go through a method handle.
+ */
+public interface GeneratedMapper<T> {
+
+    /**
+     * Calls the {@code @TableConstructor}.
+     *
+     * @param args the column values in declaration order, foreign keys resolved
+     */
+    T instantiate(Object[] args);
+
+    /**
+     * @return the accessor of the column (declaration order), or {@code null} if the field is not directly readable
+     */
+    Function<Object, Object> getter(int columnIndex);
+
+    /**
+     * @return the accessor of the primary key, or {@code null} if it is not directly readable
+     */
+    Function<Object, Object> primaryKeyGetter();
+
+    /**
+     * @return the generated mapper of the entity, or {@code null} if the build did not generate one
+     */
+    @SuppressWarnings("unchecked")
+    static <T> GeneratedMapper<T> find(Class<T> clazz) {
+        // Nested entities are flattened: Outer$Inner -> Outer_Inner_Mapper
+        String name = clazz.getName().replace('$', '_') + "_Mapper";
+        try {
+            Class<?> mapperClass = Class.forName(name, true, clazz.getClassLoader());
+            return (GeneratedMapper<T>) mapperClass.getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create generated mapper " + name, e);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.mcm.backend.app.database.core.components.tables;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@code Map<String, Object>} value of a JSON column that keeps the JSON text as read and only parses it when the
+ * map is first used.
+ * <p>
+ * Entities that never look at the column (e.g. when listing audit logs) cost no parsing at all: while the map is
+ * untouched it is written back to the database, and serialized in API responses, as the original text. Reading a
+ * single top-level scalar of a large document streams over the text instead of building the whole map.
+ * <p>
+ * Like {@link java.util.HashMap} it is not thread-safe.
+ */
+@JsonSerialize(using = LazyJsonMap.Serializer.class)
+public final class LazyJsonMap extends AbstractMap<String, Object> {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final ObjectReader MAP_READER = objectMapper.readerFor(new TypeReference<LinkedHashMap<String, Object>>() {});
+
+    // Below this length parsing the whole document is cheaper than scanning it for each key
+    static final int STREAMING_THRESHOLD = 16 * 1024;
+
+    private final String json;
+    private Map<String, Object> map;
+
+    /**
+     * @param json the JSON object text as stored
+     */
+    public LazyJsonMap(String json) {
+        this.json = json;
+    }
+
+    /**
+     * @return true once the map was parsed, after which it may have been modified
+     */
+    public boolean isParsed() {
+        return map != null;
+    }
+
+    /**
+     * @return the JSON text as read, or {@code null} once the map was parsed (its text is no longer authoritative)
+     */
+    public String getRawJson() {
+        return (map == null) ? json : null;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (map == null && json.length() >= STREAMING_THRESHOLD && key instanceof String name) {
+            return stream(name);
+        }
+        return map().get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map().containsKey(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        return map().put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        return map().remove(key);
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ?> values) {
+        map().putAll(values);
+    }
+
+    @Override
+    public void clear() {
+        map().clear();
+    }
+
+    @Override
+    public int size() {
+        return map().size();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return map().entrySet();
+    }
+
+    private Map<String, Object> map() {
+        if (map == null) {
+            try {
+                map = MAP_READER.readValue(json);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to parse JSON column", e);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Looks up a top-level field without parsing the rest of the document. Objects and arrays are mutable, so for
+     * those the whole map is parsed and the value is returned from it (changes to it are then written back).
+     */
+    private Object stream(String key) {
+        try (JsonParser parser = objectMapper.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return map().get(key);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (name.equals(key)) {
+                    return value.isStructStart() ? map().get(key) : parser.readValueAs(Object.class);
+                }
+                parser.skipChildren();
+            }
+            return null;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to parse JSON column", e);
+        }
+    }
+
+    /**
+     * Writes untouched maps as their original text.
+     */
+    public static final class Serializer extends StdSerializer<LazyJsonMap> {
+
+        public Serializer() {
+            super(LazyJsonMap.class);
+        }
+
+        @Override
+        public void serialize(LazyJsonMap value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (value.map == null) {
+                gen.writeRawValue(value.json);
+            } else {
+                provider.defaultSerializeValue(value.map, gen);
+            }
+        }
+    }
+}
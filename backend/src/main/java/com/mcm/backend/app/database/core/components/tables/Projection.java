@@ -0,0 +1,72 @@
+package com.mcm.backend.app.database.core.components.tables;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.RecordComponent;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Reads a subset of an entity's columns into a lightweight record, see {@link Table#projection}.
+ * Foreign keys are projected as the raw referenced primary key (no lookup), JSON columns as maps.
+ */
+public final class Projection<R extends Record> {
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    private final Class<R> type;
+    private final EntityMapper<?> mapper;
+    private final int[] columnIndexes;
+    private final MethodHandle constructor;
+
+    Projection(Class<R> type, EntityMapper<?> mapper, int[] columnIndexes) {
+        this.type = type;
+        this.mapper = mapper;
+        this.columnIndexes = columnIndexes;
+
+        RecordComponent[] components = type.getRecordComponents();
+        if (components.length != columnIndexes.length) {
+            throw new IllegalArgumentException(
+                    "Record " + type.getName() + " has " + components.length +
+                            " components but " + columnIndexes.length + " fields are selected");
+        }
+        for (int i = 0; i < components.length; i++) {
+            EntityMapper.Column column = mapper.getColumns().get(columnIndexes[i]);
+            Class<?> valueType = (column.kind() == EntityMapper.ColumnKind.JSON) ? Map.class : column.readType();
+            Class<?> componentType = MethodType.methodType(components[i].getType()).wrap().returnType();
+            if (!componentType.isAssignableFrom(valueType)) {
+                throw new IllegalArgumentException(
+                        "Component " + components[i].getName() + " of " + type.getName() +
+                                " cannot hold column " + column.columnName() + " (" + valueType.getSimpleName() + ")");
+            }
+        }
+
+        try {
+            Class<?>[] parameterTypes = Arrays.stream(components).map(RecordComponent::getType).toArray(Class<?>[]::new);
+            this.constructor = MethodHandles.privateLookupIn(type, MethodHandles.lookup())
+                    .unreflectConstructor(type.getDeclaredConstructor(parameterTypes))
+                    .asSpreader(Object[].class, parameterTypes.length)
+                    .asType(CONSTRUCTOR_TYPE);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot access canonical constructor of " + type.getName(), e);
+        }
+    }
+
+    /**
+     * Builds a record from the current row, whose columns are the projected fields in order.
+     */
+    public R read(ResultSet rs) throws SQLException {
+        Object[] args = new Object[columnIndexes.length];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = mapper.readColumn(rs, i + 1, columnIndexes[i]);
+        }
+        try {
+            return type.cast((Object) constructor.invokeExact(args));
+        } catch (Throwable e) {
+            throw new RuntimeException("Failed to create instance of " + type.getName(), e);
+        }
+    }
+}
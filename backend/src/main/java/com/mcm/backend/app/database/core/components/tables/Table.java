@@ -1,34 +1,67 @@
 package com.mcm.backend.app.database.core.components.tables;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.mcm.backend.app.database.core.annotations.table.ForeignKey;
-import com.mcm.backend.app.database.core.annotations.table.TableConstructor;
-import com.mcm.backend.app.database.core.annotations.table.TableColumn;
-import com.mcm.backend.app.database.core.components.daos.DAO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mcm.backend.app.database.core.components.daos.querying.Filter;
 import com.mcm.backend.app.database.core.components.daos.querying.FilterCriterion;
-import com.mcm.backend.app.database.core.factories.DAOFactory;
+import com.mcm.backend.app.database.core.components.daos.querying.FilterGroup;
+import com.mcm.backend.app.database.core.components.daos.querying.OrderBy;
+import com.mcm.backend.app.database.core.components.daos.querying.QuerySpec;
+import com.mcm.backend.app.database.core.factories.TableRegistry;
 
 import java.lang.reflect.*;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 public class Table<T, K> {
 
-    private static final ObjectMapper objectMapper = new ObjectMapper();
-
     private final Class<T> clazz;
     private final AccessibleObject primaryKeyMember;
     private final Class<K> primaryKeyDataType;
     private final Map<Field, String> fieldToColumnName;
     private final List<Field> nonPkFields;
     private final List<Field> pkFields;
+    private final EntityMapper<T> mapper;
+    // mapper column indexes bound by UPDATE: SET columns first, then the WHERE (PK, version) columns
+    private final int[] updateColumnIndexes;
+    // the @Version field and its mapper column index, null / -1 without optimistic locking
+    private final Field versionField;
+    private final int versionColumnIndex;
+    // mapper column indexes holding a @ForeignKey
+    private final int[] foreignKeyColumnIndexes;
+    // mapper column index of a single-column PK, -1 for composite keys
+    private final int primaryKeyColumnIndex;
+
+    private static final String ROOT_ALIAS = "t0";
+    // upper bound of distinct query shapes remembered per table
+    private static final int MAX_COMPILED_QUERIES = 256;
+
+    private final Map<QueryShape, CompiledQuery> compiledQueries = new ConcurrentHashMap<>();
+    // Column values of every entity built by instantiate(), by identity and weakly held; null if not tracked
+    private final Cache<Object, Object[]> snapshots;
+    // partial UPDATE statements by bitmask of the SET columns
+    private final Map<Long, String> partialUpdateQueries = new ConcurrentHashMap<>();
+    // SQL array element type per column (for IN filters), absent if the type has no array mapping
+    private final Map<Field, String> arrayTypes = new HashMap<>();
 
     protected final String tableName;
+    protected final String selectColumns;
     protected final String insertQuery;
     protected final String updateQuery;
+    protected final String insertIfAbsentQuery;
+    protected final String upsertQuery;
+    protected final String primaryKeyArrayType;
+    protected final String selectAllQuery;
+    // primary-key statements, null for composite keys
+    protected final String selectByPrimaryKeyQuery;
+    protected final String selectByPrimaryKeysQuery;
+    protected final String existsByPrimaryKeyQuery;
+    protected final String deleteByPrimaryKeyQuery;
+    protected final String deleteByPrimaryKeysQuery;
 
     @SuppressWarnings("unchecked")
     public Table(Class<T> clazz) {
@@ -50,17 +83,77 @@ public class Table<T, K> {
             this.pkFields = new ArrayList<>(fieldToColumnName.keySet());
         }
 
+        // @Version column: incremented by the UPDATE itself and compared in its WHERE
+        this.versionField = TableUtils.getVersionField(clazz);
+        if (versionField != null) {
+            versionField.setAccessible(true);
+        }
+
         // fields to SET in UPDATE
         this.nonPkFields = fieldToColumnName.keySet().stream()
-                .filter(f -> !pkFields.contains(f))
+                .filter(f -> !pkFields.contains(f) && !f.equals(versionField))
                 .collect(Collectors.toList());
 
+        // precompiled accessors + constructor
+        this.mapper = new EntityMapper<>(clazz, fieldToColumnName, primaryKeyMember);
+        List<Field> mappedFields = mapper.getColumns().stream().map(EntityMapper.Column::field).toList();
+        this.updateColumnIndexes = Stream.of(nonPkFields.stream(), pkFields.stream(), Stream.ofNullable(versionField))
+                .flatMap(fields -> fields)
+                .mapToInt(mappedFields::indexOf)
+                .toArray();
+        this.versionColumnIndex = (versionField == null) ? -1 : mappedFields.indexOf(versionField);
+        this.foreignKeyColumnIndexes = IntStream.range(0, mapper.getColumns().size())
+                .filter(i -> mapper.getColumns().get(i).kind() == EntityMapper.ColumnKind.FOREIGN_KEY)
+                .toArray();
+
+        this.primaryKeyColumnIndex = mappedFields.indexOf(primaryKeyMember);
+
+        // Dirty tracking needs a single-column key and a column set that fits the bitmask
+        this.snapshots = (primaryKeyMember instanceof Field && !nonPkFields.isEmpty() && mappedFields.size() < Long.SIZE)
+                ? Caffeine.newBuilder().weakKeys().build()
+                : null;
+
+        for (EntityMapper.Column column : mapper.getColumns()) {
+            String arrayType = TableUtils.getSqlArrayType(column.readType());
+            if (arrayType != null) {
+                arrayTypes.put(column.field(), arrayType);
+            }
+        }
+
+        // SQL array type of a single-column PK, used for "pk = ANY(?)" lookups (null for composite keys)
+        this.primaryKeyArrayType = (primaryKeyMember instanceof Field)
+                ? TableUtils.getSqlArrayType(mapper.getColumns().get(primaryKeyColumnIndex).readType())
+                : null;
+
         // build SQL
+        this.selectColumns = String.join(", ", fieldToColumnName.values());
         this.insertQuery = TableUtils.buildInsertQuery(
                 tableName,
                 fieldToColumnName.values()
         );
         this.updateQuery = TableUtils.buildUpdateQuery(clazz);
+        List<String> pkColumns = pkFields.stream().map(fieldToColumnName::get).toList();
+        List<String> nonPkColumns = nonPkFields.stream().map(fieldToColumnName::get).toList();
+        this.insertIfAbsentQuery = TableUtils.buildUpsertQuery(
+                tableName, fieldToColumnName.values(), pkColumns, List.of());
+        this.upsertQuery = TableUtils.buildUpsertQuery(
+                tableName, fieldToColumnName.values(), pkColumns, nonPkColumns)
+                + ((versionField == null || nonPkColumns.isEmpty()) ? "" : ", " + versionIncrement(tableName + "."));
+        this.selectAllQuery = "SELECT " + selectColumns + " FROM " + tableName;
+        if (primaryKeyMember instanceof Field) {
+            String pkColumn = fieldToColumnName.get(primaryKeyMember);
+            this.selectByPrimaryKeyQuery = selectAllQuery + " WHERE " + pkColumn + " = ?";
+            this.selectByPrimaryKeysQuery = selectAllQuery + " WHERE " + pkColumn + " = ANY(?)";
+            this.existsByPrimaryKeyQuery = "SELECT 1 FROM " + tableName + " WHERE " + pkColumn + " = ? LIMIT 1";
+            this.deleteByPrimaryKeyQuery = "DELETE FROM " + tableName + " WHERE " + pkColumn + " = ?";
+            this.deleteByPrimaryKeysQuery = "DELETE FROM " + tableName + " WHERE " + pkColumn + " = ANY(?)";
+        } else {
+            this.selectByPrimaryKeyQuery = null;
+            this.selectByPrimaryKeysQuery = null;
+            this.existsByPrimaryKeyQuery = null;
+            this.deleteByPrimaryKeyQuery = null;
+            this.deleteByPrimaryKeysQuery = null;
+        }
     }
 
     // ——————————————————————————————————————————————————————————
@@ -71,7 +164,7 @@ public class Table<T, K> {
      * Build a SELECT … WHERE … [AND …] [ORDER BY …] query,
      * using the given filter list and sort.
      *
-     * @param filters       list of FilterCriterion; null-valued criteria are skipped
+     * @param filters       list of FilterCriterion; criteria with a null value are skipped
      * @param orderByField  optional Field to ORDER BY
      * @param ascending     true for ASC, false for DESC
      * @return the SQL string with “?” placeholders for each non-null value
@@ -82,184 +175,720 @@ public class Table<T, K> {
             Field orderByField,
             boolean ascending
     ) {
-        // unchanged from your original
-        StringBuilder sql = new StringBuilder("SELECT * FROM ")
+        return buildSelectQuery(QuerySpec.of(filters, orderByField, ascending), List.of()).sql();
+    }
+
+    /**
+     * Build a SELECT for the given spec:
+     * {@code SELECT … [LEFT JOIN …] WHERE filters [AND keyset] ORDER BY … LIMIT ?}.
+     * <p>
+     * With fetch joins this table is aliased {@code t0} and the joined columns follow this table's columns in the
+     * select list, at the offsets recorded in each {@link FetchJoin}.
+     *
+     * @param spec  filters, ordering, keyset cursor and limit
+     * @param joins the joins planned by {@link #planFetchJoins(List)}
+     * @return the SQL and its parameters
+     * @throws IllegalArgumentException if any Field isn’t part of this table’s entity
+     */
+    public BoundQuery buildSelectQuery(QuerySpec spec, List<FetchJoin> joins) {
+        QueryShape shape = QueryShape.of(spec, null, joins);
+        CompiledQuery compiled = compiledQueries.get(shape);
+        if (compiled != null) {
+            return compiled.bind(this, spec);
+        }
+
+        String columnPrefix = joins.isEmpty() ? "" : ROOT_ALIAS + ".";
+
+        StringBuilder sql = new StringBuilder("SELECT ");
+        if (joins.isEmpty()) {
+            sql.append(selectColumns)
+                    .append(" FROM ")
+                    .append(tableName);
+        } else {
+            sql.append(qualifiedSelectColumns(ROOT_ALIAS, false));
+            for (FetchJoin join : joins) {
+                sql.append(", ").append(join.table().qualifiedSelectColumns(join.alias(), true));
+            }
+            sql.append(" FROM ").append(tableName).append(' ').append(ROOT_ALIAS);
+            for (FetchJoin join : joins) {
+                Table<?, ?> joined = join.table();
+                sql.append(" LEFT JOIN ")
+                        .append(joined.getTableName()).append(' ').append(join.alias())
+                        .append(" ON ")
+                        .append(join.alias()).append('.').append(joined.getPrimaryKeyColumnName())
+                        .append(" = ")
+                        .append(ROOT_ALIAS).append('.').append(mapper.getColumns().get(join.columnIndex()).columnName());
+            }
+        }
+
+        List<Object> parameters = new ArrayList<>();
+        appendConditions(sql, parameters, spec, columnPrefix);
+        return compile(shape, sql.toString(), parameters);
+    }
+
+    /**
+     * Build a SELECT of only the given columns, for projections (see {@link #projection(Class, List)}).
+     *
+     * @param spec   filters, ordering, keyset cursor and limit
+     * @param fields the selected fields, in result column order
+     * @return the SQL and its parameters
+     */
+    public BoundQuery buildProjectionQuery(QuerySpec spec, List<Field> fields) {
+        QueryShape shape = QueryShape.of(spec, fields, List.of());
+        CompiledQuery compiled = compiledQueries.get(shape);
+        if (compiled != null) {
+            return compiled.bind(this, spec);
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(fields.stream().map(f -> resolveColumn(f, "Projected")).collect(Collectors.joining(", ")))
+                .append(" FROM ")
                 .append(tableName);
 
-        boolean first = true;
-        for (FilterCriterion<?> criterion : filters) {
-            Field f = criterion.getField();
-            Object v = criterion.getValue();
+        List<Object> parameters = new ArrayList<>();
+        appendConditions(sql, parameters, spec, "");
+        return compile(shape, sql.toString(), parameters);
+    }
 
-            // skip null filters
-            if (v == null) continue;
+    /**
+     * Build a set-based {@code DELETE FROM … WHERE …} for the filters of the spec.
+     *
+     * @param spec              the filters; ordering, keyset cursors, limits and fetch joins are not allowed
+     * @param returnPrimaryKeys true to add {@code RETURNING pk}, so the deleted keys can be invalidated in caches
+     * @return the SQL and its parameters
+     * @throws IllegalArgumentException if the spec is not set-based or no filter applies
+     */
+    public BoundQuery buildDeleteQuery(QuerySpec spec, boolean returnPrimaryKeys) {
+        StringBuilder sql = new StringBuilder("DELETE FROM ").append(tableName);
+        List<Object> parameters = new ArrayList<>();
+        appendSetBasedConditions(sql, parameters, spec, "delete", returnPrimaryKeys);
+        return new BoundQuery(sql.toString(), parameters);
+    }
 
-            // validate field belongs to this entity
-            if (!f.getDeclaringClass().equals(clazz)) {
+    /**
+     * Build a set-based {@code UPDATE … SET column = ?, … WHERE …} for the filters of the spec.
+     * Values are converted like entity columns: entities become their primary key and maps JSON.
+     *
+     * @param spec              the filters; ordering, keyset cursors, limits and fetch joins are not allowed
+     * @param assignments       the new value per non-key field, in SET order
+     * @param returnPrimaryKeys true to add {@code RETURNING pk}, so the updated keys can be invalidated in caches
+     * @return the SQL and its parameters
+     * @throws IllegalArgumentException if a field is not a non-key column, the spec is not set-based or no filter
+     *                                  applies
+     */
+    public BoundQuery buildUpdateQuery(QuerySpec spec, Map<Field, ?> assignments, boolean returnPrimaryKeys) {
+        if (assignments.isEmpty()) {
+            throw new IllegalArgumentException("Update of " + tableName + " sets no columns");
+        }
+        List<Field> mappedFields = mapper.getColumns().stream().map(EntityMapper.Column::field).toList();
+
+        StringBuilder sql = new StringBuilder("UPDATE ").append(tableName).append(" SET ");
+        List<Object> parameters = new ArrayList<>();
+        boolean first = true;
+        for (Map.Entry<Field, ?> assignment : assignments.entrySet()) {
+            Field field = assignment.getKey();
+            if (!nonPkFields.contains(field)) {
                 throw new IllegalArgumentException(
-                        "Field " + f.getName() + " not from " + clazz.getName());
+                        "Updated field " + field.getName() + " is not a non-key column in table " + tableName);
             }
+            if (!first) {
+                sql.append(", ");
+            }
+            sql.append(fieldToColumnName.get(field)).append(" = ?");
+            parameters.add(mapper.toParameter(mappedFields.indexOf(field), assignment.getValue()));
+            first = false;
+        }
+        if (versionField != null) {
+            sql.append(", ").append(versionIncrement(""));
+        }
 
-            String col = fieldToColumnName.get(f);
-            if (col == null) {
-                throw new IllegalArgumentException(
-                        "Missing field " + f.getName() + " in table " + tableName);
+        appendSetBasedConditions(sql, parameters, spec, "update", returnPrimaryKeys);
+        return new BoundQuery(sql.toString(), parameters);
+    }
+
+    /**
+     * Appends the WHERE of a set-based statement (and {@code RETURNING pk} if requested). An empty WHERE is refused,
+     * so a filter whose value happens to be {@code null} never turns into a statement on every row.
+     */
+    private void appendSetBasedConditions(StringBuilder sql, List<Object> parameters, QuerySpec spec,
+                                          String statement, boolean returnPrimaryKeys) {
+        if (!spec.getOrderBy().isEmpty() || !spec.getAfter().isEmpty() || spec.getLimit() != null
+                || !spec.getFetchJoins().isEmpty()) {
+            throw new IllegalArgumentException(
+                    "A set-based " + statement + " only takes filters (no order, cursor, limit or fetch joins)");
+        }
+        int length = sql.length();
+        appendConditions(sql, parameters, spec, "");
+        if (sql.length() == length) {
+            throw new IllegalArgumentException(
+                    "Refusing to " + statement + " every row of " + tableName + ": no filter applies");
+        }
+        if (returnPrimaryKeys) {
+            sql.append(" RETURNING ").append(getPrimaryKeyColumnName());
+        }
+    }
+
+    /**
+     * Remembers freshly generated SQL for its shape (up to {@link #MAX_COMPILED_QUERIES} shapes per table).
+     */
+    private BoundQuery compile(QueryShape shape, String sql, List<Object> parameters) {
+        if (compiledQueries.size() < MAX_COMPILED_QUERIES) {
+            compiledQueries.putIfAbsent(shape, new CompiledQuery(sql, parameters.size()));
+        }
+        return new BoundQuery(sql, parameters);
+    }
+
+    /**
+     * SQL generated for one query shape. The shape was validated when it was compiled, so binding only has to
+     * collect the parameter values in placeholder order, see {@link #collectParameters(QuerySpec, List)}.
+     */
+    private record CompiledQuery(String sql, int parameterCount) {
+        BoundQuery bind(Table<?, ?> table, QuerySpec spec) {
+            List<Object> parameters = new ArrayList<>(parameterCount);
+            table.collectParameters(spec, parameters);
+            return new BoundQuery(sql, parameters);
+        }
+    }
+
+    /**
+     * Everything that influences the generated SQL text (but not the parameter values): selected columns,
+     * fetch joins, the filter tree with operators and skipped criteria, ORDER BY terms, keyset width and LIMIT.
+     */
+    private record QueryShape(List<Field> projection,
+                              List<FetchJoin> joins,
+                              List<Object> filters,
+                              List<OrderBy> orderBy,
+                              int afterCount,
+                              boolean limited) {
+
+        private record CriterionShape(Field field, FilterCriterion.Operator operator, boolean skipped) {
+        }
+
+        private record GroupShape(FilterGroup.Junction junction, List<Object> filters) {
+        }
+
+        static QueryShape of(QuerySpec spec, List<Field> projection, List<FetchJoin> joins) {
+            return new QueryShape(
+                    projection == null ? null : List.copyOf(projection),
+                    List.copyOf(joins),
+                    shapeOf(spec.getFilters()),
+                    List.copyOf(spec.getOrderBy()),
+                    spec.getAfter().size(),
+                    spec.getLimit() != null);
+        }
+
+        private static List<Object> shapeOf(List<Filter> filters) {
+            List<Object> shape = new ArrayList<>(filters.size());
+            for (Filter filter : filters) {
+                if (filter instanceof FilterGroup group) {
+                    shape.add(new GroupShape(group.junction(), shapeOf(group.filters())));
+                } else {
+                    FilterCriterion<?> criterion = (FilterCriterion<?>) filter;
+                    shape.add(new CriterionShape(criterion.getField(), criterion.getOperator(), criterion.isSkipped()));
+                }
             }
+            return shape;
+        }
+    }
 
-            sql.append(first ? " WHERE " : " AND ")
-                    .append(col)
-                    .append(criterion.isWildcard() ? " LIKE ?" : " = ?");
-            first = false;
+    /**
+     * Collects the parameter values of a spec in the order {@link #appendConditions} emits their placeholders.
+     */
+    private void collectParameters(QuerySpec spec, List<Object> parameters) {
+        if (spec.getAfter().contains(null)) {
+            throw new IllegalArgumentException("Keyset cursor values must not be null");
+        }
+        for (Filter filter : spec.getFilters()) {
+            collectFilterParameters(filter, parameters);
         }
 
-        // append ORDER BY if requested
-        if (orderByField != null) {
-            if (!orderByField.getDeclaringClass().equals(clazz)) {
-                throw new IllegalArgumentException(
-                        "Order-by field " + orderByField.getName() +
-                                " not from " + clazz.getName());
+        List<Object> after = spec.getAfter();
+        if (!after.isEmpty()) {
+            List<OrderBy> orderBy = spec.getOrderBy();
+            boolean uniform = orderBy.stream().allMatch(o -> o.ascending() == orderBy.getFirst().ascending());
+            if (uniform) {
+                after.forEach(v -> parameters.add(toParameter(v)));
+            } else {
+                for (int i = 0; i < after.size(); i++) {
+                    for (int j = 0; j <= i; j++) {
+                        parameters.add(toParameter(after.get(j)));
+                    }
+                }
+            }
+        }
+
+        if (spec.getLimit() != null) {
+            parameters.add(spec.getLimit());
+        }
+    }
+
+    private void collectFilterParameters(Filter filter, List<Object> parameters) {
+        if (filter instanceof FilterGroup group) {
+            for (Filter child : group.filters()) {
+                collectFilterParameters(child, parameters);
+            }
+            return;
+        }
+        FilterCriterion<?> criterion = (FilterCriterion<?>) filter;
+        if (criterion.isSkipped()) {
+            return;
+        }
+        switch (criterion.getOperator()) {
+            case IN -> parameters.add(toArrayParameter(criterion.getField(), (Collection<?>) criterion.getValue()));
+            case BETWEEN -> {
+                parameters.add(toParameter(criterion.getValue()));
+                parameters.add(toParameter(criterion.getUpperValue()));
+            }
+            case IS_NULL, IS_NOT_NULL -> { }
+            default -> parameters.add(toParameter(criterion.getValue()));
+        }
+    }
+
+    /**
+     * Appends WHERE (filters and keyset seek), ORDER BY and LIMIT, collecting the parameter values in order.
+     */
+    private void appendConditions(StringBuilder sql, List<Object> parameters, QuerySpec spec, String columnPrefix) {
+        boolean first = true;
+        for (Filter filter : spec.getFilters()) {
+            int mark = sql.length();
+            sql.append(first ? " WHERE " : " AND ");
+            if (appendFilter(sql, parameters, filter, columnPrefix)) {
+                first = false;
+            } else {
+                sql.setLength(mark);
             }
-            String orderCol = fieldToColumnName.get(orderByField);
-            if (orderCol == null) {
+        }
+
+        List<OrderBy> orderBy = spec.getOrderBy();
+        List<Object> after = spec.getAfter();
+
+        // keyset seek: rows strictly after the cursor in ORDER BY order
+        if (!after.isEmpty()) {
+            if (after.size() != orderBy.size()) {
                 throw new IllegalArgumentException(
-                        "Missing order-by field " + orderByField.getName());
+                        "Keyset cursor has " + after.size() + " values but the query orders by " + orderBy.size() + " fields");
+            }
+            if (after.contains(null)) {
+                throw new IllegalArgumentException("Keyset cursor values must not be null");
             }
+            sql.append(first ? " WHERE " : " AND ");
+            appendKeysetCondition(sql, parameters, orderBy, after, columnPrefix);
+        }
+
+        // append ORDER BY if requested
+        if (!orderBy.isEmpty()) {
             sql.append(" ORDER BY ")
-                    .append(orderCol)
-                    .append(ascending ? " ASC" : " DESC");
+                    .append(orderBy.stream()
+                            .map(o -> columnPrefix + resolveColumn(o.field(), "Order-by") + (o.ascending() ? " ASC" : " DESC"))
+                            .collect(Collectors.joining(", ")));
         }
 
-        return sql.toString();
+        if (spec.getLimit() != null) {
+            sql.append(" LIMIT ?");
+            parameters.add(spec.getLimit());
+        }
     }
 
-    public void prepareInsertStatement(PreparedStatement ps, T entity) throws SQLException {
-        try {
-            int idx = 1;
-            for (Field field : fieldToColumnName.keySet()) {
-                field.setAccessible(true);
-                if (field.isAnnotationPresent(ForeignKey.class)) {
-                    Object refObj = field.get(entity);
-                    Object fkValue = (refObj == null) ? null : TableUtils.getPrimaryKeyValue(refObj);
-                    ps.setObject(idx++, fkValue);
+    /**
+     * Appends a single filter or a parenthesized group.
+     *
+     * @return false if nothing was appended because the filter (or every filter of the group) is skipped
+     */
+    private boolean appendFilter(StringBuilder sql, List<Object> parameters, Filter filter, String columnPrefix) {
+        if (filter instanceof FilterGroup group) {
+            int start = sql.length();
+            sql.append('(');
+            boolean empty = true;
+            for (Filter child : group.filters()) {
+                int mark = sql.length();
+                if (!empty) sql.append(group.junction().sql());
+                if (appendFilter(sql, parameters, child, columnPrefix)) {
+                    empty = false;
                 } else {
-                    Object value = field.get(entity);
-                    if (value instanceof Map) {
-                        String json = objectMapper.writeValueAsString(value);
-                        ps.setObject(idx++, json, Types.OTHER);
-                    } else {
-                        ps.setObject(idx++, value);
-                    }
+                    sql.setLength(mark);
                 }
             }
-        } catch (IllegalAccessException | JsonProcessingException e) {
-            throw new RuntimeException("Failed to access or serialize field", e);
+            if (empty) {
+                sql.setLength(start);
+                return false;
+            }
+            sql.append(')');
+            return true;
+        }
+
+        FilterCriterion<?> criterion = (FilterCriterion<?>) filter;
+
+        // skip null filters
+        if (criterion.isSkipped()) {
+            return false;
+        }
+
+        Field field = criterion.getField();
+        String col = columnPrefix + resolveColumn(field, "Filter");
+        switch (criterion.getOperator()) {
+            case EQ -> sql.append(col).append(" = ?");
+            case LIKE -> sql.append(col).append(" LIKE ?");
+            case GT -> sql.append(col).append(" > ?");
+            case GTE -> sql.append(col).append(" >= ?");
+            case LT -> sql.append(col).append(" < ?");
+            case LTE -> sql.append(col).append(" <= ?");
+            case BETWEEN -> sql.append(col).append(" BETWEEN ? AND ?");
+            case IN -> sql.append(col).append(" = ANY(?)");
+            case IS_NULL -> sql.append(col).append(" IS NULL");
+            case IS_NOT_NULL -> sql.append(col).append(" IS NOT NULL");
+        }
+
+        switch (criterion.getOperator()) {
+            case IN -> parameters.add(toArrayParameter(field, (Collection<?>) criterion.getValue()));
+            case BETWEEN -> {
+                parameters.add(toParameter(criterion.getValue()));
+                parameters.add(toParameter(criterion.getUpperValue()));
+            }
+            case IS_NULL, IS_NOT_NULL -> { }
+            default -> parameters.add(toParameter(criterion.getValue()));
         }
+        return true;
     }
 
-    public void prepareUpdateStatement(PreparedStatement ps, T entity) throws SQLException {
-        try {
-            int idx = 1;
-            // 1) SET clauses
-            for (Field field : nonPkFields) {
-                field.setAccessible(true);
-                if (field.isAnnotationPresent(ForeignKey.class)) {
-                    Object refObj = field.get(entity);
-                    Object fkValue = (refObj == null) ? null : TableUtils.getPrimaryKeyValue(refObj);
-                    ps.setObject(idx++, fkValue);
-                } else {
-                    Object value = field.get(entity);
-                    if (value instanceof Map) {
-                        String json = objectMapper.writeValueAsString(value);
-                        ps.setObject(idx++, json, Types.OTHER);
-                    } else {
-                        ps.setObject(idx++, value);
-                    }
+    private BoundQuery.ArrayParameter toArrayParameter(Field field, Collection<?> values) {
+        String elementType = arrayTypes.get(field);
+        if (elementType == null) {
+            throw new IllegalArgumentException(
+                    "IN filter is not supported for field " + field.getName() + " of " + clazz.getName());
+        }
+        return new BoundQuery.ArrayParameter(elementType, values.stream().map(Table::toParameter).toArray());
+    }
+
+    /**
+     * When every term sorts the same way the seek is a row-value comparison, {@code (a, b) > (?, ?)}, which
+     * Postgres can answer with a single index range scan. Mixed directions need the expanded form
+     * {@code (a > ?) OR (a = ? AND b < ?)}.
+     */
+    private void appendKeysetCondition(StringBuilder sql,
+                                       List<Object> parameters,
+                                       List<OrderBy> orderBy,
+                                       List<Object> after,
+                                       String columnPrefix) {
+        List<String> columns = orderBy.stream()
+                .map(o -> columnPrefix + resolveColumn(o.field(), "Order-by"))
+                .toList();
+        boolean uniform = orderBy.stream().allMatch(o -> o.ascending() == orderBy.getFirst().ascending());
+
+        if (uniform) {
+            String op = orderBy.getFirst().ascending() ? " > " : " < ";
+            if (columns.size() == 1) {
+                sql.append(columns.getFirst()).append(op).append('?');
+            } else {
+                sql.append('(').append(String.join(", ", columns)).append(')')
+                        .append(op)
+                        .append('(').append(String.join(", ", Collections.nCopies(columns.size(), "?"))).append(')');
+            }
+            after.forEach(v -> parameters.add(toParameter(v)));
+            return;
+        }
+
+        sql.append('(');
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) sql.append(" OR ");
+            sql.append('(');
+            for (int j = 0; j < i; j++) {
+                sql.append(columns.get(j)).append(" = ? AND ");
+                parameters.add(toParameter(after.get(j)));
+            }
+            sql.append(columns.get(i)).append(orderBy.get(i).ascending() ? " > ?" : " < ?");
+            parameters.add(toParameter(after.get(i)));
+            sql.append(')');
+        }
+        sql.append(')');
+    }
+
+    private String resolveColumn(Field field, String role) {
+        // validate field belongs to this entity
+        if (!field.getDeclaringClass().equals(clazz)) {
+            throw new IllegalArgumentException(
+                    role + " field " + field.getName() + " not from " + clazz.getName());
+        }
+        String col = fieldToColumnName.get(field);
+        if (col == null) {
+            throw new IllegalArgumentException(
+                    "Missing " + role.toLowerCase() + " field " + field.getName() + " in table " + tableName);
+        }
+        return col;
+    }
+
+    private static Object toParameter(Object value) {
+        return (value instanceof TableEntity) ? TableUtils.getPrimaryKeyValue(value) : value;
+    }
+
+    /**
+     * Creates a mapper that reads the given columns of this table into a record.
+     *
+     * @param type   the record type; its components must match the fields in order and type
+     * @param fields the selected fields of this entity
+     */
+    public <R extends Record> Projection<R> projection(Class<R> type, List<Field> fields) {
+        List<Field> mappedFields = mapper.getColumns().stream().map(EntityMapper.Column::field).toList();
+        int[] columnIndexes = new int[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            resolveColumn(fields.get(i), "Projected");
+            columnIndexes[i] = mappedFields.indexOf(fields.get(i));
+        }
+        return new Projection<>(type, mapper, columnIndexes);
+    }
+
+    /**
+     * Plans a {@code LEFT JOIN} for each of the given {@code @ForeignKey} fields (duplicates are ignored).
+     *
+     * @param fetchJoinFields foreign-key fields of this entity
+     * @return the joins, in the order they appear in the select list
+     * @throws IllegalArgumentException if a field is not a foreign-key column of this entity
+     */
+    public List<FetchJoin> planFetchJoins(List<Field> fetchJoinFields) {
+        if (fetchJoinFields.isEmpty()) {
+            return List.of();
+        }
+
+        List<EntityMapper.Column> columns = mapper.getColumns();
+        List<FetchJoin> joins = new ArrayList<>();
+        Set<Integer> seen = new HashSet<>();
+        int offset = 1 + columns.size();
+
+        for (Field field : fetchJoinFields) {
+            int columnIndex = -1;
+            for (int i = 0; i < columns.size(); i++) {
+                if (columns.get(i).field().equals(field)) {
+                    columnIndex = i;
+                    break;
                 }
             }
-            // 2) WHERE clauses (all PK fields, in declaration order)
-            for (Field pkField : pkFields) {
-                pkField.setAccessible(true);
-                ps.setObject(idx++, pkField.get(entity));
+            if (columnIndex < 0 || columns.get(columnIndex).kind() != EntityMapper.ColumnKind.FOREIGN_KEY) {
+                throw new IllegalArgumentException(
+                        "Field " + field.getName() + " is not a @ForeignKey column of " + clazz.getName());
+            }
+            if (!seen.add(columnIndex)) {
+                continue;
             }
-        } catch (IllegalAccessException | JsonProcessingException e) {
-            throw new RuntimeException("Failed to access or serialize field", e);
+
+            Table<?, ?> joined = TableRegistry.getTable(columns.get(columnIndex).referenceClass());
+            joins.add(new FetchJoin(columnIndex, joined, "t" + (joins.size() + 1), offset, joined.getPrimaryKeyColumnIndex()));
+            offset += joined.getColumnCount();
+        }
+        return joins;
+    }
+
+    private String qualifiedSelectColumns(String alias, boolean aliasColumns) {
+        return fieldToColumnName.values().stream()
+                .map(col -> alias + "." + col + (aliasColumns ? " AS " + alias + "_" + col : ""))
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Binds every column in declaration order; used for {@link #getInsertQuery()},
+     * {@link #getInsertIfAbsentQuery()} and {@link #getUpsertQuery()}.
+     */
+    public void prepareInsertStatement(PreparedStatement ps, T entity) throws SQLException {
+        if (versionField != null && mapper.getValue(entity, versionColumnIndex) == null) {
+            setVersion(entity, 0L);
+        }
+        int columnCount = mapper.getColumns().size();
+        for (int i = 0; i < columnCount; i++) {
+            mapper.bind(ps, i + 1, entity, i);
+        }
+    }
+
+    public void prepareUpdateStatement(PreparedStatement ps, T entity) throws SQLException {
+        // SET clauses followed by the WHERE clauses (all PK fields, in declaration order, then the version)
+        for (int i = 0; i < updateColumnIndexes.length; i++) {
+            mapper.bind(ps, i + 1, entity, updateColumnIndexes[i]);
         }
     }
 
     // ——————————————————————————————————————————————————————————
-    //  ResultSet → entity
+    //  Dirty tracking
     // ——————————————————————————————————————————————————————————
 
-    public T buildFromTableWildcardQuery(Connection connection, ResultSet rs) throws SQLException {
-        try {
-            // changed line to only include @TableField fields
-            Field[] fields = Arrays.stream(clazz.getDeclaredFields())
-                    .filter(f -> f.isAnnotationPresent(TableColumn.class))
-                    .toArray(Field[]::new);
-            Constructor<?> constructor = Arrays.stream(clazz.getDeclaredConstructors())
-                    .filter(c -> c.isAnnotationPresent(TableConstructor.class))
-                    .findFirst()
-                    .orElseThrow(() ->
-                            new RuntimeException("No @TableConstructor on " + clazz.getName()));
-            constructor.setAccessible(true);
-
-            // Match up fields ↔ constructor parameters
-            Parameter[] params = constructor.getParameters();
-            if (params.length != fields.length) {
-                throw new RuntimeException(
-                        "Constructor parameter count (" + params.length +
-                                ") does not match field count (" + fields.length + ")");
+    /**
+     * Compares the entity with the snapshot taken when it was built by {@link #instantiate} (or last saved).
+     *
+     * @return the argument indexes of the changed non-key columns (empty if nothing changed), or {@code null} when
+     * the entity is not tracked (e.g. created with {@code new}) and every column has to be written
+     */
+    public int[] getChangedColumnIndexes(T entity) {
+        Object[] snapshot = (snapshots == null) ? null : snapshots.getIfPresent(entity);
+        if (snapshot == null) {
+            return null;
+        }
+        int changedCount = 0;
+        int[] changed = new int[nonPkFields.size()];
+        for (int i = 0; i < nonPkFields.size(); i++) {
+            int columnIndex = updateColumnIndexes[i];
+            if (mapper.isChanged(entity, columnIndex, snapshot[columnIndex])) {
+                changed[changedCount++] = columnIndex;
             }
+        }
+        return Arrays.copyOf(changed, changedCount);
+    }
 
-            // Read each column into an argument array
-            Object[] args = new Object[params.length];
-            for (int i = 0; i < params.length; i++) {
-                Field field   = fields[i];
-                String column = fieldToColumnName.get(field);
-                Class<?> type = field.getType();
-
-                if (field.isAnnotationPresent(ForeignKey.class)) {
-                    // Ensure the field type implements TableEntity
-                    if (!TableEntity.class.isAssignableFrom(type)) {
-                        throw new IllegalArgumentException("Foreign key Class does not extend TableEntity");
-                    }
-                    @SuppressWarnings("unchecked")
-                    Class<? extends TableEntity> refClass = (Class<? extends TableEntity>) type;
-                    // Determine primary key type for fetching the raw ID
-                    Class<?> pkType = TableUtils.getPrimaryKeyType(refClass);
-                    Object fkId = rs.getObject(column, pkType);
-
-                    args[i] = (fkId == null) ? null : loadReference(connection, refClass, fkId);
-                } else {
-                    if (Map.class.isAssignableFrom(type)) {
-                        // JSON→Map column
-                        String json = rs.getString(column);
-                        args[i] = (json == null)
-                                ? Collections.emptyMap()
-                                : objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {
-                        });
-                    } else {
-                        args[i] = rs.getObject(column, type);
-                    }
-                }
+    /**
+     * @param columnIndexes the argument indexes of the columns to SET, as returned by {@link #getChangedColumnIndexes}
+     * @return {@code UPDATE … SET <columns> WHERE pk = ?} (with the version increment and check if versioned)
+     */
+    public String getUpdateQuery(int[] columnIndexes) {
+        long mask = 0;
+        for (int columnIndex : columnIndexes) {
+            mask |= 1L << columnIndex;
+        }
+        return partialUpdateQueries.computeIfAbsent(mask, m -> {
+            List<EntityMapper.Column> columns = mapper.getColumns();
+            String assignments = Arrays.stream(columnIndexes)
+                    .mapToObj(i -> columns.get(i).columnName() + " = ?")
+                    .collect(Collectors.joining(", "));
+            String where = columns.get(primaryKeyColumnIndex).columnName() + " = ?";
+            if (versionField != null) {
+                assignments = (assignments.isEmpty() ? "" : assignments + ", ") + versionIncrement("");
+                where += " AND " + fieldToColumnName.get(versionField) + " = ?";
             }
+            return "UPDATE " + tableName + " SET " + assignments + " WHERE " + where;
+        });
+    }
+
+    /**
+     * Binds a statement from {@link #getUpdateQuery(int[])}.
+     */
+    public void prepareUpdateStatement(PreparedStatement ps, T entity, int[] columnIndexes) throws SQLException {
+        for (int i = 0; i < columnIndexes.length; i++) {
+            mapper.bind(ps, i + 1, entity, columnIndexes[i]);
+        }
+        mapper.bind(ps, columnIndexes.length + 1, entity, primaryKeyColumnIndex);
+        if (versionField != null) {
+            mapper.bind(ps, columnIndexes.length + 2, entity, versionColumnIndex);
+        }
+    }
+
+    // ——————————————————————————————————————————————————————————
+    //  Optimistic locking
+    // ——————————————————————————————————————————————————————————
+
+    /**
+     * @return true if the entity has a {@link com.mcm.backend.app.database.core.annotations.table.Version} column,
+     * so an update that matches no row means the row was changed (or deleted) since it was read
+     */
+    public boolean isVersioned() {
+        return versionField != null;
+    }
+
+    /**
+     * @return true if the version of the entity is no longer the one it was loaded with, so an update has to check it
+     * against the row even if no other column changed
+     */
+    public boolean isVersionChanged(T entity) {
+        Object[] snapshot = (versionField == null || snapshots == null) ? null : snapshots.getIfPresent(entity);
+        return snapshot != null && mapper.isChanged(entity, versionColumnIndex, snapshot[versionColumnIndex]);
+    }
+
+    /**
+     * Increments the version of the entity after its UPDATE succeeded, so it matches the row again.
+     */
+    public void advanceVersion(T entity) {
+        if (versionField == null) {
+            return;
+        }
+        Object version = mapper.getValue(entity, versionColumnIndex);
+        setVersion(entity, (version == null) ? 1L : ((Number) version).longValue() + 1);
+    }
+
+    private void setVersion(T entity, long version) {
+        try {
+            versionField.set(entity, (versionField.getType() == Integer.class) ? (Object) (int) version : version);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Cannot set version of " + clazz.getName(), e);
+        }
+    }
+
+    private String versionIncrement(String qualifier) {
+        String column = fieldToColumnName.get(versionField);
+        return column + " = " + qualifier + column + " + 1";
+    }
+
+    /**
+     * Takes a new snapshot after the entity was saved, so later updates only write what changed since.
+     */
+    public void markClean(T entity) {
+        if (snapshots != null) {
+            snapshots.put(entity, mapper.snapshotOf(entity));
+        }
+    }
+
+    // ——————————————————————————————————————————————————————————
+    //  ResultSet → entity
+    // ——————————————————————————————————————————————————————————
 
-            // Invoke the constructor with all the args
-            return clazz.cast(constructor.newInstance(args));
+    /**
+     * Reads the current row of a query selecting {@link #getSelectColumns()} into constructor arguments.
+     * Columns are read by ordinal starting at {@code offset}; foreign-key slots hold the raw referenced primary key
+     * until they are replaced by the resolved entity.
+     */
+    public Object[] readRow(ResultSet rs, int offset) throws SQLException {
+        return mapper.readRow(rs, offset);
+    }
 
-        } catch (Exception e) {
-            if (e instanceof SQLException) throw (SQLException) e;
-            throw new RuntimeException("Failed to create instance of " + clazz.getName(), e);
+    /**
+     * Creates an entity from arguments read by {@link #readRow(ResultSet, int)} whose foreign keys are resolved,
+     * and snapshots its column values for dirty tracking.
+     */
+    public T instantiate(Object[] args) {
+        T entity = mapper.instantiate(args);
+        if (snapshots != null) {
+            snapshots.put(entity, mapper.snapshot(args));
         }
+        return entity;
     }
 
+    /**
+     * @return the number of mapped columns (and constructor arguments)
+     */
+    public int getColumnCount() {
+        return mapper.getColumns().size();
+    }
+
+    /**
+     * @return the argument index of the single-column primary key
+     * @throws UnsupportedOperationException for composite keys
+     */
+    public int getPrimaryKeyColumnIndex() {
+        if (primaryKeyMember instanceof Field) {
+            return primaryKeyColumnIndex;
+        }
+        throw new UnsupportedOperationException("Composite primary key has no single column index");
+    }
+
+    /**
+     * @return true if the primary key is a single mapped column (and not a composite {@code @PrimaryKey} method)
+     */
+    public boolean hasSingleColumnKey() {
+        return primaryKeyMember instanceof Field;
+    }
+
+    /**
+     * @return the argument indexes (see {@link #readRow(ResultSet, int)}) that hold a foreign key
+     */
+    public int[] getForeignKeyColumnIndexes() {
+        return foreignKeyColumnIndexes;
+    }
+
+    /**
+     * @return the entity class referenced by the foreign key at the given argument index
+     */
+    public Class<? extends TableEntity> getReferencedClass(int columnIndex) {
+        return mapper.getColumns().get(columnIndex).referenceClass();
+    }
 
     /**
      * Returns the raw PK value
      */
     @SuppressWarnings("unchecked")
     public K getPrimaryKey(T entity) {
-        return (K) TableUtils.getPrimaryKeyValue(entity);
+        return (K) mapper.getPrimaryKey(entity);
     }
 
     /**
@@ -278,24 +907,33 @@ public class Table<T, K> {
     //  getters & toString()
     // ——————————————————————————————————————————————————————————
 
+    public String getSelectColumns()   { return selectColumns; }
     public String getInsertQuery()     { return insertQuery; }
     public String getUpdateQuery()     { return updateQuery; }
+    public String getInsertIfAbsentQuery() { return insertIfAbsentQuery; }
+    public String getUpsertQuery()     { return upsertQuery; }
+    public String getSelectAllQuery()  { return selectAllQuery; }
+    public String getSelectByPrimaryKeyQuery()  { return requireSingleColumnKey(selectByPrimaryKeyQuery); }
+    public String getSelectByPrimaryKeysQuery() { return requireSingleColumnKey(selectByPrimaryKeysQuery); }
+    public String getExistsByPrimaryKeyQuery()  { return requireSingleColumnKey(existsByPrimaryKeyQuery); }
+    public String getDeleteByPrimaryKeyQuery()  { return requireSingleColumnKey(deleteByPrimaryKeyQuery); }
+    public String getDeleteByPrimaryKeysQuery() { return requireSingleColumnKey(deleteByPrimaryKeysQuery); }
+
+    private static String requireSingleColumnKey(String query) {
+        if (query == null) {
+            throw new UnsupportedOperationException(
+                    "Composite primary key — use getPrimaryKeyColumnNames()");
+        }
+        return query;
+    }
     public String getTableName()       { return tableName; }
+    public Class<T> getEntityClass()   { return clazz; }
 
     /**
-     * Generic loader for referenced entities.
-     *
-     * @param refClass the entity class
-     * @param key      the primary key value
-     * @param <R>      the entity type (must extend TableEntity)
-     * @param <P>      the primary key type
-     * @return the loaded entity or null if not found
+     * SQL element type for binding a {@code java.sql.Array} of primary keys,
+     * or {@code null} when the key is composite or has no known array type.
      */
-    private <R extends TableEntity, P> R loadReference(Connection connection, Class<R> refClass, P key) {
-        try (DAO<R, P> dao = DAOFactory.createDAO(connection, refClass)) {
-            return dao.get(key);
-        }
-    }
+    public String getPrimaryKeyArrayType() { return primaryKeyArrayType; }
 
     public String getColumnName(Field uniqueField) {
         String columnName = fieldToColumnName.get(uniqueField);
@@ -315,6 +953,7 @@ public class Table<T, K> {
                 primaryKeyDataType.getSimpleName() + ")\n" +
                 "  Columns: " + fieldToColumnName.values() + "\n" +
                 "  INSERT: " + insertQuery + "\n" +
-                "  UPDATE: " + updateQuery + "\n";
+                "  UPDATE: " + updateQuery + "\n" +
+                "  UPSERT: " + upsertQuery + "\n";
     }
 }
\ No newline at end of file
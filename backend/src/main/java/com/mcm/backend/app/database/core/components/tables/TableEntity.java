@@ -1,6 +1,7 @@
 package com.mcm.backend.app.database.core.components.tables;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.lang.reflect.Field;
 import com.mcm.backend.app.database.core.annotations.table.PrimaryKey;
@@ -8,6 +9,7 @@ import com.mcm.backend.app.database.core.annotations.table.TableConstructor;
 import com.mcm.backend.app.database.core.annotations.table.TableColumn;
 import com.mcm.backend.app.database.core.annotations.table.TableName;
 import com.mcm.backend.app.database.core.annotations.table.ForeignKey;
+import com.mcm.backend.app.database.core.annotations.table.Version;
 import com.mcm.backend.app.database.core.components.daos.DAO;
 import com.mcm.backend.app.api.utils.annotations.ValidatedBody;
 
@@ -45,8 +47,27 @@ public interface TableEntity {
                     " in " + clazz.getName() + " must be annotated @TableColumn");
         }
 
-        // Validate @ForeignKey usage: field type must implement TableEntity
+        Field versionField = null;
         for (Field f : clazz.getDeclaredFields()) {
+            // @Version: one non-final Long/Integer column next to a field primary key
+            if (f.isAnnotationPresent(Version.class)) {
+                if (versionField != null) {
+                    throw new IllegalStateException("Entity class " + clazz.getName() +
+                            " must have at most one @Version field");
+                }
+                if (pkField == null || f.equals(pkField)) {
+                    throw new IllegalStateException("@Version field " + f.getName() +
+                            " in " + clazz.getName() + " requires a separate @PrimaryKey field");
+                }
+                if (!f.isAnnotationPresent(TableColumn.class) || Modifier.isFinal(f.getModifiers())
+                        || (f.getType() != Long.class && f.getType() != Integer.class)) {
+                    throw new IllegalStateException("@Version field " + f.getName() +
+                            " in " + clazz.getName() + " must be a non-final Long or Integer @TableColumn");
+                }
+                versionField = f;
+            }
+
+            // Validate @ForeignKey usage: field type must implement TableEntity
             if (f.isAnnotationPresent(ForeignKey.class)) {
                 if (!TableEntity.class.isAssignableFrom(f.getType())) {
                     throw new IllegalStateException("Field " + f.getName() +
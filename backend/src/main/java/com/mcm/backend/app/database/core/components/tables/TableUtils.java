@@ -3,6 +3,8 @@ package com.mcm.backend.app.database.core.components.tables;
 import com.mcm.backend.app.database.core.annotations.table.PrimaryKey;
 import com.mcm.backend.app.database.core.annotations.table.TableColumn;
 import com.mcm.backend.app.database.core.annotations.table.TableName;
+import com.mcm.backend.app.database.core.annotations.table.Version;
+import com.mcm.backend.app.database.core.factories.TableRegistry;
 
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Field;
@@ -60,18 +62,24 @@ public class TableUtils {
     /**
      * Compute/get the actual PK value from an instance,
      * whether it’s stored in a field or computed by a method.
+     * Uses the precompiled accessor of the instance's registered {@link Table}.
      */
+    @SuppressWarnings("unchecked")
     public static Object getPrimaryKeyValue(Object instance) {
-        AccessibleObject pkMember = getPrimaryKeyMember(instance.getClass());
-        try {
-            if (pkMember instanceof Field) {
-                return ((Field) pkMember).get(instance);
-            } else {
-                return ((Method) pkMember).invoke(instance);
-            }
-        } catch (ReflectiveOperationException e) {
-            throw new RuntimeException("Failed to get primary key value", e);
-        }
+        Table<Object, ?> table = (Table<Object, ?>) TableRegistry.getTable(instance.getClass());
+        return table.getPrimaryKey(instance);
+    }
+
+    /**
+     * Return the PostgreSQL element type name used with {@code Connection.createArrayOf} for a key type,
+     * or {@code null} if the type has no mapping.
+     */
+    public static String getSqlArrayType(Class<?> javaType) {
+        if (javaType == UUID.class) return "uuid";
+        if (javaType == String.class) return "varchar";
+        if (javaType == Integer.class || javaType == int.class) return "int4";
+        if (javaType == Long.class || javaType == long.class) return "int8";
+        return null;
     }
 
     public static Map<Field, String> mapFieldToColumnNames(Class<?> clazz) {
@@ -87,10 +95,23 @@ public class TableUtils {
         return map;
     }
 
+    /**
+     * @return the {@link Version} field of the entity, or {@code null} if it has none
+     */
+    public static Field getVersionField(Class<?> clazz) {
+        for (Field f : clazz.getDeclaredFields()) {
+            if (f.isAnnotationPresent(Version.class) && f.isAnnotationPresent(TableColumn.class)) {
+                return f;
+            }
+        }
+        return null;
+    }
+
     /**
      * Return all the fields that should be INSERTed/UPDATEd as non-PK columns.
      * • If the PK is a field, exclude it.
      * • If the PK is a method, include all @TableField fields.
+     * • The {@link Version} field is never SET from the entity, it is incremented by the statement.
      */
     public static List<Field> getNonPrimaryKeyFields(Class<?> clazz) {
         AccessibleObject pkMember = getPrimaryKeyMember(clazz);
@@ -101,6 +122,7 @@ public class TableUtils {
                     // exclude if PK is that same field
                     return !(pkMember instanceof Field && (pkMember).equals(f));
                 })
+                .filter(f -> !f.isAnnotationPresent(Version.class))
                 .peek(f -> f.setAccessible(true))
                 .collect(Collectors.toList());
     }
@@ -111,11 +133,35 @@ public class TableUtils {
         return String.format("INSERT INTO %s (%s) VALUES (%s)", tableName, columns, placeholders);
     }
 
+    /**
+     * Build an {@code INSERT … ON CONFLICT (conflict columns) …} statement binding every column, like
+     * {@link #buildInsertQuery(String, Collection)}.
+     * <ul>
+     *   <li>With update columns: {@code DO UPDATE SET col = EXCLUDED.col, …} (an upsert).</li>
+     *   <li>Without update columns: {@code DO NOTHING} (insert if absent).</li>
+     * </ul>
+     */
+    public static String buildUpsertQuery(String tableName,
+                                          Collection<String> columnNames,
+                                          Collection<String> conflictColumnNames,
+                                          Collection<String> updateColumnNames) {
+        String conflictAction = updateColumnNames.isEmpty()
+                ? "DO NOTHING"
+                : "DO UPDATE SET " + updateColumnNames.stream()
+                        .map(col -> col + " = EXCLUDED." + col)
+                        .collect(Collectors.joining(", "));
+        return String.format("%s ON CONFLICT (%s) %s",
+                buildInsertQuery(tableName, columnNames),
+                String.join(", ", conflictColumnNames),
+                conflictAction);
+    }
+
     /**
      * Build an UPDATE statement that:
      *  - sets all non-PK columns
      *  - if PK is a single field, does "WHERE pk = ?"
      *  - if PK is method-based, does "WHERE col1 = ? AND col2 = ? …"
+     *  - with a {@link Version} field, increments it and adds "AND version = ?"
      */
     public static String buildUpdateQuery(Class<?> clazz) {
         String tableName = getTableName(clazz);
@@ -141,6 +187,14 @@ public class TableUtils {
                 .map(f -> fieldToCol.get(f) + " = ?")
                 .collect(Collectors.joining(", "));
 
+        // 3) optimistic locking
+        Field versionField = getVersionField(clazz);
+        if (versionField != null) {
+            String versionCol = fieldToCol.get(versionField);
+            assignments = (assignments.isEmpty() ? "" : assignments + ", ") + versionCol + " = " + versionCol + " + 1";
+            whereClause += " AND " + versionCol + " = ?";
+        }
+
         return String.format(
                 "UPDATE %s SET %s WHERE %s",
                 tableName, assignments, whereClause
@@ -1,5 +1,7 @@
 package com.mcm.backend.app.database.core.factories;
 
+import com.mcm.backend.app.database.core.components.UnitOfWork;
+import com.mcm.backend.app.database.core.components.daos.AsyncDAO;
 import com.mcm.backend.app.database.core.components.daos.DAO;
 import com.mcm.backend.app.database.core.components.tables.Table;
 import com.mcm.backend.app.database.core.components.tables.TableEntity;
@@ -9,7 +11,10 @@ import java.sql.Connection;
 public class DAOFactory {
 
     /**
-     * Factory method to automatically create new DAO's relying on the DAO to open a new connection.
+     * Factory method to automatically create new DAO's.
+     * <p>
+     * When a {@link UnitOfWork} is active on the current thread (e.g. during an HTTP request) the DAO reuses its
+     * shared connection; otherwise the DAO opens (and closes) its own connection.
      * @param clazz The class extending TableEntity that can be converted to a Table and DAO
      * @return An initialized DAO
      * @param <T> TableEntity extending class type
@@ -17,6 +22,10 @@ public class DAOFactory {
      */
     public static <T extends TableEntity, K> DAO<T, K> createDAO(Class<T> clazz) {
         Table<T, K> table = TableRegistry.getTable(clazz);
+        UnitOfWork unitOfWork = UnitOfWork.current();
+        if (unitOfWork != null) {
+            return new DAO<>(unitOfWork.getConnection(), table);
+        }
         return new DAO<>(table);
     }
 
@@ -32,5 +41,17 @@ public class DAOFactory {
         Table<T, K> table = TableRegistry.getTable(clazz);
         return new DAO<>(connection, table);
     }
+
+    /**
+     * Factory method to create an {@link AsyncDAO}, whose operations run in parallel on their own connections.
+     * @param clazz The class extending TableEntity that can be converted to a Table and DAO
+     * @return An initialized AsyncDAO
+     * @param <T> TableEntity extending class type
+     * @param <K> The PrimaryKey class type
+     */
+    public static <T extends TableEntity, K> AsyncDAO<T, K> createAsyncDAO(Class<T> clazz) {
+        Table<T, K> table = TableRegistry.getTable(clazz);
+        return new AsyncDAO<>(table);
+    }
 }
 
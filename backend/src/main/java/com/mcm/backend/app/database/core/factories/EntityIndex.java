@@ -0,0 +1,29 @@
+package com.mcm.backend.app.database.core.factories;
+
+import com.mcm.backend.app.database.core.components.tables.TableEntity;
+
+import java.util.List;
+
+/**
+ * All {@link TableEntity} classes of the application, generated at compile time as {@code GeneratedEntityIndex}
+ * (see the {@code processor} build module), so they are known without scanning the classpath.
+ */
+public interface EntityIndex {
+
+    String GENERATED_CLASS = "com.mcm.backend.app.database.core.factories.GeneratedEntityIndex";
+
+    List<Class<? extends TableEntity>> entityClasses();
+
+    /**
+     * @return the generated index, or {@code null} if the build did not generate one
+     */
+    static EntityIndex load() {
+        try {
+            return (EntityIndex) Class.forName(GENERATED_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create " + GENERATED_CLASS, e);
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package com.mcm.backend.app.database.models.logging;
 
+import com.mcm.backend.app.database.core.annotations.table.Cached;
 import com.mcm.backend.app.database.core.annotations.table.PrimaryKey;
 import com.mcm.backend.app.database.core.annotations.table.TableConstructor;
 import com.mcm.backend.app.database.core.annotations.table.TableColumn;
 import com.mcm.backend.app.database.core.annotations.table.TableName;
 import com.mcm.backend.app.database.core.components.tables.TableEntity;
 
+@Cached(ttlSeconds = 3600, maxSize = 500)
 @TableName("action_types")
 public class ActionTypeEntity implements TableEntity {
 
@@ -1,11 +1,13 @@
 package com.mcm.backend.app.database.models.roles;
 
+import com.mcm.backend.app.database.core.annotations.table.Cached;
 import com.mcm.backend.app.database.core.annotations.table.PrimaryKey;
 import com.mcm.backend.app.database.core.annotations.table.TableConstructor;
 import com.mcm.backend.app.database.core.annotations.table.TableColumn;
 import com.mcm.backend.app.database.core.annotations.table.TableName;
 import com.mcm.backend.app.database.core.components.tables.TableEntity;
 
+@Cached(ttlSeconds = 3600, maxSize = 100)
 @TableName("roles")
 public record RoleEntity(@PrimaryKey @TableColumn String name,
                          @TableColumn String description) implements TableEntity {
@@ -1,11 +1,13 @@
 package com.mcm.backend.app.database.models.roles;
 
+import com.mcm.backend.app.database.core.annotations.table.Cached;
 import com.mcm.backend.app.database.core.annotations.table.PrimaryKey;
 import com.mcm.backend.app.database.core.annotations.table.TableConstructor;
 import com.mcm.backend.app.database.core.annotations.table.TableColumn;
 import com.mcm.backend.app.database.core.annotations.table.TableName;
 import com.mcm.backend.app.database.core.components.tables.TableEntity;
 
+@Cached(ttlSeconds = 3600, maxSize = 100)
 @TableName("role_inheritance")
 public record RoleInheritance(@TableColumn(name = "role_name") String roleName,
                               @TableColumn(name = "inherits_role_name") String inheritsRoleName) implements TableEntity {
@@ -0,0 +1,189 @@
+package com.mcm.backend.app.database.models.roles;
+
+import com.mcm.backend.app.database.core.components.daos.ChangeNotifier;
+import com.mcm.backend.app.database.core.components.daos.DAO;
+import com.mcm.backend.app.database.core.factories.DAOFactory;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * The role hierarchy of {@code roles} / {@code role_inheritance}, held in memory.
+ * <p>
+ * Every role gets one bit; its closure is the bitmask of the role itself and every role it inherits, directly or
+ * transitively (a maintainer inherits editor, operator, viewer and user). "Does the assigned role include the required
+ * one" is then a single AND. Built on first use (or by {@link #load()} at startup) and rebuilt after the role tables
+ * change on this or any other node; a lattice built while role changes are uncommitted is used once, not kept.
+ */
+public final class RoleLattice {
+
+    // Immutable view of one version of the role tables
+    private record Snapshot(Map<String, Integer> bitByRole, RoleEntity[] roles, long[] closures) {
+    }
+
+    private static volatile Snapshot snapshot;
+    // Bumped by every change, so a rebuild that raced with one is not kept
+    private static long generation;
+
+    static {
+        ChangeNotifier.subscribe(RoleEntity.class, ids -> invalidate());
+        ChangeNotifier.subscribe(RoleInheritance.class, ids -> invalidate());
+    }
+
+    private RoleLattice() {
+    }
+
+    /**
+     * Builds the lattice ahead of the first request.
+     */
+    public static void load() {
+        current();
+    }
+
+    /**
+     * @return the bit of the role, or 0 if the role does not exist
+     */
+    public static long bitOf(String roleName) {
+        return bitOf(current(), roleName);
+    }
+
+    /**
+     * @return the bits of the role and all roles it inherits, or 0 if the role does not exist
+     */
+    public static long closureOf(String roleName) {
+        return closureOf(current(), roleName);
+    }
+
+    /**
+     * @return true if {@code assignedRole} is {@code requiredRole} or inherits it
+     */
+    public static boolean includes(String assignedRole, String requiredRole) {
+        Snapshot current = current();
+        long required = bitOf(current, requiredRole);
+        return required != 0 && (closureOf(current, assignedRole) & required) != 0;
+    }
+
+    /**
+     * @return the role and the roles it inherits, nearest first; empty if the role does not exist
+     */
+    public static List<RoleEntity> getInheritedRoles(String roleName) {
+        Snapshot current = current();
+        long closure = closureOf(current, roleName);
+        // A role inherits everything its parents inherit, so larger closures come first along the chain
+        return IntStream.range(0, current.roles().length)
+                .filter(i -> (closure & (1L << i)) != 0)
+                .boxed()
+                .sorted(Comparator.comparingInt((Integer i) -> Long.bitCount(current.closures()[i])).reversed())
+                .map(i -> current.roles()[i])
+                .toList();
+    }
+
+    /**
+     * @return the names of every role that is or inherits {@code roleName}
+     */
+    public static Set<String> getRolesIncluding(String roleName) {
+        Snapshot current = current();
+        long required = bitOf(current, roleName);
+        Set<String> roles = new HashSet<>();
+        for (int i = 0; i < current.roles().length; i++) {
+            if ((current.closures()[i] & required) != 0) {
+                roles.add(current.roles()[i].name());
+            }
+        }
+        return roles;
+    }
+
+    /**
+     * Drops the lattice; the next lookup rebuilds it.
+     */
+    public static void invalidate() {
+        synchronized (RoleLattice.class) {
+            generation++;
+            snapshot = null;
+        }
+    }
+
+    private static Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        long buildGeneration;
+        synchronized (RoleLattice.class) {
+            if (snapshot != null) {
+                return snapshot;
+            }
+            buildGeneration = generation;
+        }
+        Snapshot built = build();
+        synchronized (RoleLattice.class) {
+            // Read on the request's connection, so it may hold role changes that are not committed yet
+            if (generation == buildGeneration
+                    && !ChangeNotifier.hasUncommittedWrites(RoleEntity.class, RoleInheritance.class)) {
+                snapshot = built;
+            }
+        }
+        return built;
+    }
+
+    private static Snapshot build() {
+        List<RoleEntity> roleEntities;
+        List<RoleInheritance> inheritances;
+        try (DAO<RoleEntity, String> roleDAO = DAOFactory.createDAO(RoleEntity.class);
+             DAO<RoleInheritance, String> roleInheritanceDAO = DAOFactory.createDAO(RoleInheritance.class)) {
+            roleEntities = roleDAO.getAll();
+            inheritances = roleInheritanceDAO.getAll();
+        }
+        if (roleEntities.size() > Long.SIZE) {
+            throw new IllegalStateException("At most " + Long.SIZE + " roles are supported, found " + roleEntities.size());
+        }
+
+        Map<String, Integer> bitByRole = new HashMap<>();
+        RoleEntity[] roles = roleEntities.toArray(new RoleEntity[0]);
+        long[] closures = new long[roles.length];
+        for (int i = 0; i < roles.length; i++) {
+            bitByRole.put(normalize(roles[i].name()), i);
+            closures[i] = 1L << i;
+        }
+        for (RoleInheritance inheritance : inheritances) {
+            Integer role = bitByRole.get(normalize(inheritance.roleName()));
+            Integer inherited = bitByRole.get(normalize(inheritance.inheritsRoleName()));
+            if (role != null && inherited != null) {
+                closures[role] |= 1L << inherited;
+            }
+        }
+
+        // Transitive closure: repeat until no mask grows (at most one round per level of the hierarchy)
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < closures.length; i++) {
+                long closure = closures[i];
+                for (int j = 0; j < closures.length; j++) {
+                    if ((closure & (1L << j)) != 0) {
+                        closure |= closures[j];
+                    }
+                }
+                if (closure != closures[i]) {
+                    closures[i] = closure;
+                    changed = true;
+                }
+            }
+        }
+        return new Snapshot(Map.copyOf(bitByRole), roles, closures);
+    }
+
+    private static long bitOf(Snapshot current, String roleName) {
+        Integer bit = (roleName == null) ? null : current.bitByRole().get(normalize(roleName));
+        return (bit == null) ? 0 : 1L << bit;
+    }
+
+    private static long closureOf(Snapshot current, String roleName) {
+        Integer bit = (roleName == null) ? null : current.bitByRole().get(normalize(roleName));
+        return (bit == null) ? 0 : current.closures()[bit];
+    }
+
+    private static String normalize(String roleName) {
+        return roleName.toLowerCase(Locale.ROOT);
+    }
+}
@@ -18,6 +18,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
 
+@Cached(ttlSeconds = 300, maxSize = 1000)
 @TableName("server_instances")
 public class ServerInstance implements TableEntity {
 
@@ -52,11 +53,16 @@ public class ServerInstance implements TableEntity {
     @TableColumn
     private Integer port;
 
+    @TableColumn
+    @Version
+    @Nullable // Starts at 0 when inserted, incremented by every update
+    private Long version;
+
     // RCON client instance, initialized when the server is initialized
     private RconClient rconClient;
 
     @TableConstructor
-    public ServerInstance(UUID id, String name, String description, String minecraftVersion, String jarUrl, Boolean eulaAccepted, Timestamp createdAt, Integer allocatedRamMB, Integer port) {
+    public ServerInstance(UUID id, String name, String description, String minecraftVersion, String jarUrl, Boolean eulaAccepted, Timestamp createdAt, Integer allocatedRamMB, Integer port, Long version) {
         this.id = Objects.requireNonNullElseGet(id, UUID::randomUUID);
         setName(name);
         setDescription(description);
@@ -76,6 +82,7 @@ public class ServerInstance implements TableEntity {
         }
         setAllocatedRamMB(allocatedRamMB);
         setPort(port);
+        this.version = version;
     }
 
     // - Getters and setters
@@ -154,6 +161,14 @@ public class ServerInstance implements TableEntity {
         this.port = port;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public boolean isEven(int number) {
         return number % 2 == 0;
     }
@@ -1,14 +1,18 @@
 package com.mcm.backend.app.database.models.server;
 
+import com.mcm.backend.app.database.core.annotations.table.Cached;
+import com.mcm.backend.app.database.core.annotations.table.Nullable;
 import com.mcm.backend.app.database.core.annotations.table.PrimaryKey;
 import com.mcm.backend.app.database.core.annotations.table.TableConstructor;
 import com.mcm.backend.app.database.core.annotations.table.TableColumn;
 import com.mcm.backend.app.database.core.annotations.table.TableName;
+import com.mcm.backend.app.database.core.annotations.table.Version;
 import com.mcm.backend.app.database.core.components.tables.TableEntity;
 
 import java.util.Objects;
 import java.util.UUID;
 
+@Cached(ttlSeconds = 60, maxSize = 10_000)
 @TableName("server_instance_properties")
 public class ServerInstanceProperty implements TableEntity {
 
@@ -31,15 +35,21 @@ public class ServerInstanceProperty implements TableEntity {
     @TableColumn
     private final String key;
 
+    @TableColumn
+    @Version
+    @Nullable // Starts at 0 when inserted, incremented by every update
+    private Long version;
+
 
     @TableConstructor
-    public ServerInstanceProperty(UUID id, UUID serverInstanceId, Boolean hidden, String type, String value, String key) {
+    public ServerInstanceProperty(UUID id, UUID serverInstanceId, Boolean hidden, String type, String value, String key, Long version) {
         this.id = Objects.requireNonNullElseGet(id, UUID::randomUUID);
         this.serverInstanceId = serverInstanceId;
         this.hidden = hidden;
         this.type = type;
         this.value = value;
         this.key = key;
+        this.version = version;
     }
 
     //- Getters & Setters
@@ -56,6 +66,14 @@ public class ServerInstanceProperty implements TableEntity {
         return key;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getValue() {
         return value;
     }
@@ -1,6 +1,6 @@
 package com.mcm.backend.app.database.models.server.backups.utils;
 
-import com.mcm.backend.app.database.core.components.Database;
+import com.mcm.backend.app.database.core.components.UnitOfWork;
 import com.mcm.backend.app.database.core.components.daos.DAO;
 import com.mcm.backend.app.database.core.factories.DAOFactory;
 import com.mcm.backend.app.database.models.server.ServerInstance;
@@ -11,8 +11,6 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
-import java.sql.Connection;
-import java.sql.SQLException;
 import java.util.UUID;
 import java.util.stream.Stream;
 
@@ -45,39 +43,23 @@ public class RestoreBackup {
         }
     }
 
+    /**
+     * Restores the database rows referenced by the backup in a single unit of work,
+     * so the user, server instance and backup rows are written atomically.
+     *
+     * @param backup the backup to restore
+     */
     static void restoreDatabase(Backup backup) {
-        try (Connection connection = Database.getConnection();
-             DAO<User, UUID> userDAO = DAOFactory.createDAO(connection, User.class);
-             DAO<ServerInstance, UUID> serverInstanceDAO = DAOFactory.createDAO(connection, ServerInstance.class);
-             DAO<Backup, UUID> backupDAO = DAOFactory.createDAO(connection, Backup.class)) {
-
-            // User logic:
-            User user = backup.createdBy();
-
-            if (userDAO.exists(user)) {
-                userDAO.update(user);
-            } else {
-                userDAO.add(user);
-            }
-
-            // ServerInstance logic:
-            ServerInstance serverInstance = backup.serverInstance();
-
-            if (serverInstanceDAO.exists(serverInstance)) {
-                serverInstanceDAO.update(serverInstance);
-            } else {
-                serverInstanceDAO.add(serverInstance);
-            }
+        UnitOfWork.run(() -> {
+            try (DAO<User, UUID> userDAO = DAOFactory.createDAO(User.class);
+                 DAO<ServerInstance, UUID> serverInstanceDAO = DAOFactory.createDAO(ServerInstance.class);
+                 DAO<Backup, UUID> backupDAO = DAOFactory.createDAO(Backup.class)) {
 
-            // Backup logic:
-            if (backupDAO.exists(backup)) {
-                backupDAO.update(backup);
-            } else {
-                backupDAO.add(backup);
+                // Restore (insert or overwrite) the referenced rows before the backup row itself
+                userDAO.upsert(backup.createdBy());
+                serverInstanceDAO.upsert(backup.serverInstance());
+                backupDAO.upsert(backup);
             }
-
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        });
     }
 }
@@ -56,7 +56,8 @@ public class ServerPropertiesUtil {
                     isSpecial,
                     inferType(value),
                     value,
-                    key
+                    key,
+                    null
             ));
         }
 
@@ -69,7 +70,8 @@ public class ServerPropertiesUtil {
                 true,
                 "integer",
                 String.valueOf(serverInstance.getPort()),
-                "server-port"
+                "server-port",
+                null
             ));
         }
         if (!keysInFile.contains("rcon.password")) {
@@ -79,7 +81,8 @@ public class ServerPropertiesUtil {
                 true,
                 "string",
                 rconPassword,
-                "rcon.password"
+                "rcon.password",
+                null
             ));
         }
         if (!keysInFile.contains("rcon.port")) {
@@ -89,7 +92,8 @@ public class ServerPropertiesUtil {
                 true,
                 "integer",
                 rconPort,
-                "rcon.port"
+                "rcon.port",
+                null
             ));
         }
         if (!keysInFile.contains("enable-rcon")) {
@@ -99,7 +103,8 @@ public class ServerPropertiesUtil {
                 true,
                 "boolean",
                 "true",
-                "enable-rcon"
+                "enable-rcon",
+                null
             ));
         }
 
@@ -1,5 +1,6 @@
 package com.mcm.backend.app.database.models.server.utils.rcon;
 
+import com.mcm.backend.app.database.core.components.daos.ChangeNotifier;
 import com.mcm.backend.app.database.core.components.daos.DAO;
 import com.mcm.backend.app.database.core.components.daos.querying.QueryBuilder;
 import com.mcm.backend.app.database.core.factories.DAOFactory;
@@ -14,6 +15,19 @@ public class RconUtils {
     // Cache of RCON clients per server to avoid repeated DB lookups
     private static final Map<UUID, RconClient> RCON_CLIENT_CACHE = new ConcurrentHashMap<>();
 
+    static {
+        // Drop clients whose server or RCON properties changed (on this or any other node)
+        ChangeNotifier.subscribe(ServerInstance.class, ids -> {
+            if (ids.isEmpty()) {
+                RCON_CLIENT_CACHE.clear();
+            } else {
+                ids.forEach(id -> RCON_CLIENT_CACHE.remove(UUID.fromString(id)));
+            }
+        });
+        // Property changes only carry the property id, so any of them clears all clients
+        ChangeNotifier.subscribe(ServerInstanceProperty.class, ids -> RCON_CLIENT_CACHE.clear());
+    }
+
     public static RconClient buildRconClient(ServerInstance serverInstance) {
         UUID id = serverInstance.getId();
         // Return a cached client if already built
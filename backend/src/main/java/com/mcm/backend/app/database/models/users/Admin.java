@@ -5,6 +5,7 @@ import com.mcm.backend.app.database.core.components.tables.TableEntity;
 
 import java.util.UUID;
 
+@Cached(ttlSeconds = 300, maxSize = 10_000)
 @TableName("admins")
 public class Admin implements TableEntity {
 
@@ -8,6 +8,7 @@ import com.mcm.backend.app.database.core.components.tables.TableEntity;
 import java.util.Objects;
 import java.util.UUID;
 
+@Cached(ttlSeconds = 300, maxSize = 10_000)
 @TableName("users")
 public class User implements TableEntity {
 
@@ -1,5 +1,6 @@
 package com.mcm.backend.app.database.models.users;
 
+import com.mcm.backend.app.database.core.annotations.table.Cached;
 import com.mcm.backend.app.database.core.annotations.table.PrimaryKey;
 import com.mcm.backend.app.database.core.annotations.table.TableConstructor;
 import com.mcm.backend.app.database.core.annotations.table.TableColumn;
@@ -10,6 +11,7 @@ import com.mcm.backend.app.database.models.roles.Role;
 import java.util.Objects;
 import java.util.UUID;
 
+@Cached(ttlSeconds = 60, maxSize = 10_000)
 @TableName("user_role_assignments")
 public class UserRoleAssignment implements TableEntity {
 
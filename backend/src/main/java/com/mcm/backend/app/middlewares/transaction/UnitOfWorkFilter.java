@@ -0,0 +1,74 @@
+package com.mcm.backend.app.middlewares.transaction;
+
+import com.mcm.backend.app.database.core.components.Database;
+import com.mcm.backend.app.database.core.components.UnitOfWork;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binds a {@link UnitOfWork} to every request, so all DAOs created through the DAOFactory share one connection.
+ * <p>
+ * The unit of work is committed when the handler completes with a non-error status and rolled back otherwise.
+ * The response body is buffered until the commit went through, so a client never sees a success response
+ * for a transaction that failed to commit (or reads data that is not committed yet). Handlers that do long work
+ * without the database (backups, starting servers, RCON) commit and release the connection before it with
+ * {@link UnitOfWork#releaseCurrent()}.
+ * <p>
+ * With {@code DATASOURCE_REQUEST_TIMEOUT_MS} set, the queries of a request are cancelled by the database once the
+ * request ran out of time, so a client that gave up does not keep a connection busy.
+ */
+public class UnitOfWorkFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(UnitOfWorkFilter.class);
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        ContentCachingResponseWrapper wrappedResponse = new ContentCachingResponseWrapper(response);
+        UnitOfWork unitOfWork = UnitOfWork.begin();
+        if (Database.getRequestTimeoutMillis() > 0) {
+            unitOfWork.setTimeout(Database.getRequestTimeoutMillis());
+        }
+
+        try {
+            filterChain.doFilter(request, wrappedResponse);
+        } catch (IOException | ServletException | RuntimeException e) {
+            unitOfWork.setRollbackOnly();
+            try {
+                unitOfWork.close();
+            } catch (RuntimeException closeException) {
+                e.addSuppressed(closeException);
+            }
+            throw e;
+        }
+
+        // Error responses (handled exceptions) never persist their partial writes
+        if (wrappedResponse.getStatus() >= HttpServletResponse.SC_BAD_REQUEST) {
+            unitOfWork.setRollbackOnly();
+        }
+
+        try {
+            unitOfWork.close();
+        } catch (RuntimeException e) {
+            logger.error("Failed to commit request unit of work", e);
+            wrappedResponse.resetBuffer();
+            wrappedResponse.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            wrappedResponse.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            wrappedResponse.getOutputStream().write(
+                    "{\"error\":\"An unexpected internal error occurred.\"}".getBytes(StandardCharsets.UTF_8));
+        }
+
+        wrappedResponse.copyBodyToResponse();
+    }
+}
@@ -0,0 +1,23 @@
+package com.mcm.backend.exceptions;
+
+/**
+ * The database cannot serve the request right now: the circuit breaker is open, no connection could be acquired
+ * or a query ran into its timeout. Answered with 503, so clients back off instead of piling up.
+ */
+public class DatabaseUnavailableException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public DatabaseUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public DatabaseUnavailableException(String message, long retryAfterSeconds, Throwable cause) {
+        super(message, cause);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,12 @@
+package com.mcm.backend.exceptions;
+
+/**
+ * An update of a {@code @Version}ed entity matched no row: someone else changed (or deleted) it since it was read.
+ * Answered with 409, so the client can reload and reapply its change.
+ */
+public class OptimisticLockException extends RuntimeException {
+
+    public OptimisticLockException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,73 @@
+package com.mcm.backend.app.api.utils.service;
+
+import com.mcm.backend.app.api.controllers.users.user.Utils;
+import com.mcm.backend.app.database.core.components.daos.ChangeNotifier;
+import com.mcm.backend.app.database.core.components.daos.DAO;
+import com.mcm.backend.app.database.core.factories.DAOFactory;
+import com.mcm.backend.app.database.models.users.Admin;
+import com.mcm.backend.app.database.models.users.User;
+import com.mcm.backend.app.database.models.users.UserRoleAssignment;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Unit tests for the snapshot invalidation of AuthorizationService.
+ *
+ * <p>The DAOs are mocks that behave like the DAO layer: a write changes what the next read returns and tells the
+ * ChangeNotifier subscribers of the table.</p>
+ */
+class AuthorizationServiceTest {
+
+    /**
+     * Deleting an admin user deletes its admin row through the DAO, so the reloaded snapshot is no longer admin.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void deletedUserLosesAdmin() {
+        UUID id = UUID.randomUUID();
+        Map<Class<?>, Consumer<Set<String>>> subscribers = new HashMap<>();
+
+        try (MockedStatic<ChangeNotifier> notifier = Mockito.mockStatic(ChangeNotifier.class);
+             MockedStatic<DAOFactory> factory = Mockito.mockStatic(DAOFactory.class)) {
+            notifier.when(() -> ChangeNotifier.subscribe(Mockito.any(), Mockito.any()))
+                    .thenAnswer(invocation -> subscribers.put(invocation.getArgument(0), invocation.getArgument(1)));
+
+            DAO<User, UUID> userDAO = Mockito.mock(DAO.class);
+            DAO<Admin, UUID> adminDAO = Mockito.mock(DAO.class);
+            DAO<UserRoleAssignment, UUID> assignmentDAO = Mockito.mock(DAO.class);
+            factory.when(() -> DAOFactory.<Admin, UUID>createDAO(Admin.class)).thenReturn(adminDAO);
+            factory.when(() -> DAOFactory.<UserRoleAssignment, UUID>createDAO(UserRoleAssignment.class))
+                    .thenReturn(assignmentDAO);
+
+            AtomicBoolean adminRow = new AtomicBoolean(true);
+            Mockito.when(adminDAO.existsByPrimaryKey(id)).thenAnswer(invocation -> adminRow.get());
+            Mockito.when(adminDAO.deleteAll(List.of(id))).thenAnswer(invocation -> {
+                adminRow.set(false);
+                subscribers.get(Admin.class).accept(Set.of(id.toString()));
+                return 1;
+            });
+            Mockito.doAnswer(invocation -> {
+                subscribers.get(User.class).accept(Set.of(id.toString()));
+                return null;
+            }).when(userDAO).delete(id);
+
+            AuthorizationService service = new AuthorizationService();
+            Assertions.assertTrue(service.getSnapshot(id).admin());
+
+            Utils.deleteUser(userDAO, id);
+
+            Assertions.assertFalse(service.getSnapshot(id).admin(), "a deleted user must not keep admin rights");
+            Mockito.verify(adminDAO).deleteAll(List.of(id));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.mcm.backend.app.database.core.components;
+
+import com.mcm.backend.exceptions.DatabaseUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unit tests for the state transitions of DatabaseCircuitBreaker, driven by a manual clock and the default settings
+ * (20 calls minimum, 50% failures, 10 s open, 5 half-open calls).
+ */
+class DatabaseCircuitBreakerTest {
+
+    private static final long FAST_CALL_NANOS = 1_000_000;
+    private static final long OPEN_NANOS = 10_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000_000L);
+
+    @BeforeEach
+    void resetBreaker() {
+        DatabaseCircuitBreaker.reset(clock::get);
+    }
+
+    @AfterEach
+    void restoreClock() {
+        DatabaseCircuitBreaker.reset(System::nanoTime);
+    }
+
+    /**
+     * Enough failed calls open the breaker, and it refuses work until the open period ends.
+     */
+    @Test
+    void failuresOpenTheBreaker() {
+        for (int i = 0; i < 19; i++) {
+            failedCall();
+        }
+        Assertions.assertEquals("CLOSED", state(), "below the minimum number of calls");
+
+        failedCall();
+        Assertions.assertEquals("OPEN", state());
+        Assertions.assertThrows(DatabaseUnavailableException.class, DatabaseCircuitBreaker::checkAvailable);
+
+        clock.addAndGet(OPEN_NANOS - 1);
+        Assertions.assertThrows(DatabaseUnavailableException.class, DatabaseCircuitBreaker::checkAvailable);
+    }
+
+    /**
+     * After the open period only the trial calls are let through; healthy trial calls close the breaker.
+     */
+    @Test
+    void healthyTrialCallsCloseTheBreaker() {
+        open();
+        clock.addAndGet(OPEN_NANOS);
+
+        for (int i = 0; i < 5; i++) {
+            DatabaseCircuitBreaker.checkAvailable();
+        }
+        Assertions.assertEquals("HALF_OPEN", state());
+        Assertions.assertThrows(DatabaseUnavailableException.class, DatabaseCircuitBreaker::checkAvailable,
+                "only the trial calls pass while half-open");
+
+        for (int i = 0; i < 4; i++) {
+            DatabaseCircuitBreaker.recordCall(FAST_CALL_NANOS);
+        }
+        Assertions.assertEquals("HALF_OPEN", state());
+
+        DatabaseCircuitBreaker.recordCall(FAST_CALL_NANOS);
+        Assertions.assertEquals("CLOSED", state());
+        Assertions.assertDoesNotThrow(DatabaseCircuitBreaker::checkAvailable);
+    }
+
+    /**
+     * Failing trial calls open the breaker again for another open period.
+     */
+    @Test
+    void failedTrialCallsReopenTheBreaker() {
+        open();
+        clock.addAndGet(OPEN_NANOS);
+
+        for (int i = 0; i < 5; i++) {
+            DatabaseCircuitBreaker.checkAvailable();
+            failedCall();
+        }
+        Assertions.assertEquals("OPEN", state());
+        Assertions.assertThrows(DatabaseUnavailableException.class, DatabaseCircuitBreaker::checkAvailable);
+
+        clock.addAndGet(OPEN_NANOS);
+        Assertions.assertDoesNotThrow(DatabaseCircuitBreaker::checkAvailable);
+        Assertions.assertEquals("HALF_OPEN", state());
+    }
+
+    /**
+     * Trial calls that never report back do not keep the breaker half-open forever.
+     */
+    @Test
+    void unansweredTrialCallsAreReissued() {
+        open();
+        clock.addAndGet(OPEN_NANOS);
+
+        for (int i = 0; i < 5; i++) {
+            DatabaseCircuitBreaker.checkAvailable();
+        }
+        Assertions.assertThrows(DatabaseUnavailableException.class, DatabaseCircuitBreaker::checkAvailable);
+
+        clock.addAndGet(OPEN_NANOS);
+        Assertions.assertDoesNotThrow(DatabaseCircuitBreaker::checkAvailable);
+        Assertions.assertEquals("HALF_OPEN", state());
+    }
+
+    private void open() {
+        for (int i = 0; i < 20; i++) {
+            failedCall();
+        }
+        Assertions.assertEquals("OPEN", state());
+    }
+
+    private static void failedCall() {
+        DatabaseCircuitBreaker.recordCall(FAST_CALL_NANOS);
+        RuntimeException translated =
+                DatabaseCircuitBreaker.translate(new SQLTransientConnectionException("connection refused", "08001"));
+        Assertions.assertInstanceOf(DatabaseUnavailableException.class, translated);
+    }
+
+    private static String state() {
+        return DatabaseCircuitBreaker.getMetrics().state();
+    }
+}
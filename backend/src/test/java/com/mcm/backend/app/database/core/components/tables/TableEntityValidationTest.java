@@ -12,6 +12,7 @@ import com.mcm.backend.app.database.core.annotations.table.PrimaryKey;
 import com.mcm.backend.app.database.core.annotations.table.TableConstructor;
 import com.mcm.backend.app.database.core.annotations.table.TableColumn;
 import com.mcm.backend.app.database.core.annotations.table.ForeignKey;
+import com.mcm.backend.app.database.core.annotations.table.Version;
 
 /**
  * Unit tests for TableEntity.validateEntity.
@@ -326,4 +327,38 @@ class TableEntityValidationTest {
             "Expected @TableColumn on wrapper type to pass"
         );
     }
-}
\ No newline at end of file
+
+    // 12) @Version must be a Long or Integer column next to a field primary key
+    @TableName("versioned_entity")
+    static class VersionedEntity implements TableEntity {
+        @PrimaryKey @TableColumn private final UUID id;
+        @TableColumn @Version private Long version;
+        @TableConstructor
+        public VersionedEntity(UUID id, Long version) {
+            this.id = id;
+            this.version = version;
+        }
+    }
+    @TableName("string_version_entity")
+    static class StringVersionEntity implements TableEntity {
+        @PrimaryKey @TableColumn private final UUID id;
+        @TableColumn @Version private String version;  // invalid: not a number
+        @TableConstructor
+        public StringVersionEntity(UUID id, String version) {
+            this.id = id;
+            this.version = version;
+        }
+    }
+    /**
+     * Scenario 12: a Long @Version column passes, a String one throws IllegalStateException.
+     */
+    @Test
+    void versionColumnMustBeNumeric() {
+        Assertions.assertDoesNotThrow(() -> TableEntity.validateEntity(VersionedEntity.class));
+        Assertions.assertThrows(
+            IllegalStateException.class,
+            () -> TableEntity.validateEntity(StringVersionEntity.class),
+            "Expected a String @Version column to fail"
+        );
+    }
+}
@@ -0,0 +1,364 @@
+package com.mcm.backend.app.database.core.components.tables;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mcm.backend.app.database.core.components.daos.querying.FilterCriterion;
+import com.mcm.backend.app.database.core.components.daos.querying.FilterGroup;
+import com.mcm.backend.app.database.core.components.daos.querying.OrderBy;
+import com.mcm.backend.app.database.core.components.daos.querying.QuerySpec;
+import com.mcm.backend.app.database.core.factories.EntityIndex;
+import com.mcm.backend.app.database.core.factories.TableRegistry;
+import com.mcm.backend.app.database.models.roles.RoleInheritance;
+import com.mcm.backend.app.database.models.server.ServerInstanceProperty;
+import com.mcm.backend.app.database.models.users.Admin;
+import com.mcm.backend.app.database.models.users.User;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.lang.reflect.Field;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Unit tests for the precompiled entity mapping of {@link Table}.
+ *
+ * <p>These tests only exercise metadata and parameter binding, so no database is needed.</p>
+ */
+class TableMappingTest {
+
+    /**
+     * The select list follows field declaration order, which is also the constructor order.
+     */
+    @Test
+    void selectColumnsFollowDeclarationOrder() {
+        Table<User, UUID> table = TableRegistry.getTable(User.class);
+        Assertions.assertEquals("id, username, password_hash", table.getSelectColumns());
+    }
+
+    /**
+     * Field-level primary keys are read through the precompiled accessor.
+     */
+    @Test
+    void fieldPrimaryKeyIsResolved() {
+        UUID id = UUID.randomUUID();
+        Table<User, UUID> table = TableRegistry.getTable(User.class);
+        Assertions.assertEquals(id, table.getPrimaryKey(new User(id, "steve", "hash")));
+    }
+
+    /**
+     * Method-level (composite) primary keys are computed through the annotated method.
+     */
+    @Test
+    void methodPrimaryKeyIsResolved() {
+        Table<RoleInheritance, String> table = TableRegistry.getTable(RoleInheritance.class);
+        Assertions.assertEquals("vieweruser", table.getPrimaryKey(new RoleInheritance("viewer", "user")));
+    }
+
+    /**
+     * Foreign keys are bound as the primary key of the referenced entity.
+     */
+    @Test
+    void foreignKeyIsBoundAsReferencedPrimaryKey() throws SQLException {
+        UUID id = UUID.randomUUID();
+        Table<Admin, UUID> table = TableRegistry.getTable(Admin.class);
+        PreparedStatement ps = Mockito.mock(PreparedStatement.class);
+
+        table.prepareInsertStatement(ps, new Admin(new User(id, "steve", "hash")));
+
+        Mockito.verify(ps).setObject(1, id);
+    }
+
+    /**
+     * Upserts overwrite the non-key columns; tables without non-key columns fall back to DO NOTHING.
+     */
+    @Test
+    void upsertQueriesTargetThePrimaryKey() {
+        Assertions.assertEquals(
+                "INSERT INTO users (id, username, password_hash) VALUES (?, ?, ?) ON CONFLICT (id) " +
+                        "DO UPDATE SET username = EXCLUDED.username, password_hash = EXCLUDED.password_hash",
+                TableRegistry.getTable(User.class).getUpsertQuery());
+        Assertions.assertEquals(
+                "INSERT INTO admins (id) VALUES (?) ON CONFLICT (id) DO NOTHING",
+                TableRegistry.getTable(Admin.class).getUpsertQuery());
+    }
+
+    /**
+     * Versioned updates increment the version and only match the version that was read; the version is bound last.
+     */
+    @Test
+    void versionedUpdatesCheckAndIncrementTheVersion() throws SQLException {
+        Table<ServerInstanceProperty, UUID> table = TableRegistry.getTable(ServerInstanceProperty.class);
+        Assertions.assertTrue(table.isVersioned());
+        Assertions.assertEquals(
+                "UPDATE server_instance_properties SET server_instance_id = ?, hidden = ?, type = ?, value = ?, " +
+                        "key = ?, version = version + 1 WHERE id = ? AND version = ?",
+                table.getUpdateQuery());
+
+        ServerInstanceProperty property = new ServerInstanceProperty(
+                UUID.randomUUID(), UUID.randomUUID(), false, "string", "a", "motd", 3L);
+        PreparedStatement ps = Mockito.mock(PreparedStatement.class);
+        table.prepareUpdateStatement(ps, property);
+        Mockito.verify(ps).setObject(6, property.getId());
+        Mockito.verify(ps).setObject(7, 3L);
+
+        table.advanceVersion(property);
+        Assertions.assertEquals(4L, property.getVersion());
+    }
+
+    /**
+     * A version set by the caller (the one a client edited) is checked against the row even if no column changed.
+     */
+    @Test
+    void replacedVersionIsCheckedWithoutChangedColumns() {
+        Table<ServerInstanceProperty, UUID> table = TableRegistry.getTable(ServerInstanceProperty.class);
+        ServerInstanceProperty property = table.instantiate(new Object[]{
+                UUID.randomUUID(), UUID.randomUUID(), false, "string", "a", "motd", 3L});
+        Assertions.assertFalse(table.isVersionChanged(property));
+
+        property.setVersion(2L);
+        Assertions.assertArrayEquals(new int[0], table.getChangedColumnIndexes(property));
+        Assertions.assertTrue(table.isVersionChanged(property));
+        Assertions.assertEquals(
+                "UPDATE server_instance_properties SET version = version + 1 WHERE id = ? AND version = ?",
+                table.getUpdateQuery(new int[0]));
+    }
+
+    /**
+     * Fetch joins select the referenced columns after the owning entity's columns and qualify the WHERE clause.
+     */
+    @Test
+    void fetchJoinSelectsReferencedColumns() throws NoSuchFieldException {
+        Table<Admin, UUID> table = TableRegistry.getTable(Admin.class);
+        Field userField = Admin.class.getDeclaredField("user");
+
+        List<FetchJoin> joins = table.planFetchJoins(List.of(userField));
+        String sql = table.buildSelectQuery(
+                QuerySpec.of(List.of(new FilterCriterion<>(userField, UUID.randomUUID(), false)), null, true), joins).sql();
+
+        Assertions.assertEquals(
+                "SELECT t0.id, t1.id AS t1_id, t1.username AS t1_username, t1.password_hash AS t1_password_hash " +
+                        "FROM admins t0 LEFT JOIN users t1 ON t1.id = t0.id WHERE t0.id = ?",
+                sql);
+        Assertions.assertEquals(2, joins.getFirst().offset());
+    }
+
+    /**
+     * Keyset pagination uses a row-value comparison for uniform directions and the expanded form otherwise;
+     * the limit is bound as the last parameter.
+     */
+    @Test
+    void keysetPaginationFollowsOrderDirections() throws NoSuchFieldException {
+        Table<User, UUID> table = TableRegistry.getTable(User.class);
+        Field username = User.class.getDeclaredField("username");
+        Field id = User.class.getDeclaredField("id");
+        UUID lastId = UUID.randomUUID();
+
+        QuerySpec uniform = new QuerySpec();
+        uniform.getOrderBy().add(new OrderBy(username, false));
+        uniform.getOrderBy().add(new OrderBy(id, false));
+        uniform.setAfter("steve", lastId);
+        uniform.setLimit(20);
+        BoundQuery uniformQuery = table.buildSelectQuery(uniform, List.of());
+        Assertions.assertEquals(
+                "SELECT id, username, password_hash FROM users WHERE (username, id) < (?, ?) " +
+                        "ORDER BY username DESC, id DESC LIMIT ?",
+                uniformQuery.sql());
+        Assertions.assertEquals(List.of("steve", lastId, 20), uniformQuery.parameters());
+
+        QuerySpec mixed = new QuerySpec();
+        mixed.getOrderBy().add(new OrderBy(username, true));
+        mixed.getOrderBy().add(new OrderBy(id, false));
+        mixed.setAfter("steve", lastId);
+        BoundQuery mixedQuery = table.buildSelectQuery(mixed, List.of());
+        Assertions.assertEquals(
+                "SELECT id, username, password_hash FROM users WHERE ((username > ?) OR (username = ? AND id < ?)) " +
+                        "ORDER BY username ASC, id DESC",
+                mixedQuery.sql());
+        Assertions.assertEquals(List.of("steve", "steve", lastId), mixedQuery.parameters());
+    }
+
+    /**
+     * IN is bound as one array parameter, IS NULL takes no parameter and OR groups are parenthesized;
+     * null-valued criteria (and groups that end up empty) are still skipped.
+     */
+    @Test
+    void richPredicatesRenderAsParameterizedSql() throws NoSuchFieldException {
+        Table<User, UUID> table = TableRegistry.getTable(User.class);
+        Field username = User.class.getDeclaredField("username");
+        Field id = User.class.getDeclaredField("id");
+        UUID someId = UUID.randomUUID();
+
+        QuerySpec spec = new QuerySpec();
+        spec.getFilters().add(new FilterCriterion<>(id, FilterCriterion.Operator.IN, List.of(someId)));
+        spec.getFilters().add(new FilterGroup(FilterGroup.Junction.OR, List.of(
+                new FilterCriterion<>(username, FilterCriterion.Operator.IS_NULL, null),
+                new FilterCriterion<>(username, "steve%", true),
+                new FilterCriterion<>(username, null, false))));
+        spec.getFilters().add(new FilterGroup(FilterGroup.Junction.OR, List.of(
+                new FilterCriterion<>(username, null, false))));
+
+        BoundQuery query = table.buildSelectQuery(spec, List.of());
+
+        Assertions.assertEquals(
+                "SELECT id, username, password_hash FROM users WHERE id = ANY(?) AND (username IS NULL OR username LIKE ?)",
+                query.sql());
+        Assertions.assertEquals(2, query.parameters().size());
+        BoundQuery.ArrayParameter array = (BoundQuery.ArrayParameter) query.parameters().getFirst();
+        Assertions.assertEquals("uuid", array.elementType());
+        Assertions.assertArrayEquals(new Object[]{someId}, array.elements());
+    }
+
+    /**
+     * Set-based deletes and updates reuse the WHERE rendering, can return the affected keys and never run
+     * without an applied filter.
+     */
+    @Test
+    void setBasedStatementsRequireAFilter() throws NoSuchFieldException {
+        Table<User, UUID> table = TableRegistry.getTable(User.class);
+        Field username = User.class.getDeclaredField("username");
+        Field id = User.class.getDeclaredField("id");
+
+        QuerySpec spec = new QuerySpec();
+        spec.getFilters().add(new FilterCriterion<>(username, "steve%", true));
+
+        BoundQuery delete = table.buildDeleteQuery(spec, true);
+        Assertions.assertEquals("DELETE FROM users WHERE username LIKE ? RETURNING id", delete.sql());
+        Assertions.assertEquals(List.of("steve%"), delete.parameters());
+
+        BoundQuery update = table.buildUpdateQuery(spec, Map.of(username, "alex"), false);
+        Assertions.assertEquals("UPDATE users SET username = ? WHERE username LIKE ?", update.sql());
+        Assertions.assertEquals(List.of("alex", "steve%"), update.parameters());
+
+        QuerySpec skipped = new QuerySpec();
+        skipped.getFilters().add(new FilterCriterion<>(username, null, false));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> table.buildDeleteQuery(skipped, false));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> table.buildUpdateQuery(spec, Map.of(id, UUID.randomUUID()), false));
+    }
+
+    /**
+     * Query metrics label filtered reads by their fields and operators; values and skipped criteria are left out.
+     */
+    @Test
+    void filterShapeOmitsValues() throws NoSuchFieldException {
+        Field username = User.class.getDeclaredField("username");
+        Field id = User.class.getDeclaredField("id");
+
+        QuerySpec spec = new QuerySpec();
+        spec.getFilters().add(new FilterCriterion<>(id, FilterCriterion.Operator.IN, List.of(UUID.randomUUID())));
+        spec.getFilters().add(new FilterGroup(FilterGroup.Junction.OR, List.of(
+                new FilterCriterion<>(username, FilterCriterion.Operator.IS_NULL, null),
+                new FilterCriterion<>(username, "steve%", true))));
+        spec.getFilters().add(new FilterGroup(FilterGroup.Junction.OR, List.of(
+                new FilterCriterion<>(username, null, false))));
+
+        Assertions.assertEquals("id IN, (username IS_NULL OR username LIKE)", spec.getFilterShape());
+    }
+
+    /**
+     * A second query with the same shape reuses the compiled SQL and still binds its own values.
+     */
+    @Test
+    void compiledQueriesBindFreshParameters() throws NoSuchFieldException {
+        Table<User, UUID> table = TableRegistry.getTable(User.class);
+        Field username = User.class.getDeclaredField("username");
+        Field id = User.class.getDeclaredField("id");
+
+        BoundQuery first = table.buildSelectQuery(pageAfter(username, id, "alex", UUID.randomUUID()), List.of());
+        UUID lastId = UUID.randomUUID();
+        BoundQuery second = table.buildSelectQuery(pageAfter(username, id, "steve", lastId), List.of());
+
+        Assertions.assertSame(first.sql(), second.sql());
+        Assertions.assertEquals(List.of("s%", "steve", "steve", lastId, 10), second.parameters());
+    }
+
+    /**
+     * Bound queries are query cache keys, so array parameters compare by content.
+     */
+    @Test
+    void boundQueriesWithEqualArraysAreEqual() {
+        UUID someId = UUID.randomUUID();
+        BoundQuery first = new BoundQuery("SELECT 1", List.of(new BoundQuery.ArrayParameter("uuid", new Object[]{someId})));
+        BoundQuery second = new BoundQuery("SELECT 1", List.of(new BoundQuery.ArrayParameter("uuid", new Object[]{someId})));
+
+        Assertions.assertEquals(first, second);
+        Assertions.assertEquals(first.hashCode(), second.hashCode());
+    }
+
+    /**
+     * Entities built by the table are tracked, so an update only sets the columns changed since.
+     */
+    @Test
+    void updatesOnlyChangedColumns() throws SQLException {
+        Table<User, UUID> table = TableRegistry.getTable(User.class);
+        UUID id = UUID.randomUUID();
+        User user = table.instantiate(new Object[]{id, "steve", "hash"});
+        Assertions.assertArrayEquals(new int[0], table.getChangedColumnIndexes(user));
+
+        user.setUsername("alex");
+        int[] changed = table.getChangedColumnIndexes(user);
+        Assertions.assertArrayEquals(new int[]{1}, changed);
+        Assertions.assertEquals("UPDATE " + table.getTableName() + " SET username = ? WHERE id = ?",
+                table.getUpdateQuery(changed));
+
+        PreparedStatement ps = Mockito.mock(PreparedStatement.class);
+        table.prepareUpdateStatement(ps, user, changed);
+        Mockito.verify(ps).setObject(1, "alex");
+        Mockito.verify(ps).setObject(2, id);
+
+        table.markClean(user);
+        Assertions.assertArrayEquals(new int[0], table.getChangedColumnIndexes(user));
+        Assertions.assertNull(table.getChangedColumnIndexes(new User(id, "steve", "hash")));
+    }
+
+    /**
+     * JSON columns are only parsed when used; until then the text is passed through unchanged.
+     */
+    @Test
+    void jsonMapsAreParsedLazily() throws JsonProcessingException {
+        LazyJsonMap small = new LazyJsonMap("{\"reason\": \"test\"}");
+        Assertions.assertEquals("{\"reason\": \"test\"}", new ObjectMapper().writeValueAsString(small));
+        Assertions.assertFalse(small.isParsed());
+        Assertions.assertEquals("test", small.get("reason"));
+        Assertions.assertTrue(small.isParsed());
+        Assertions.assertNull(small.getRawJson());
+
+        String padding = "x".repeat(LazyJsonMap.STREAMING_THRESHOLD);
+        LazyJsonMap large = new LazyJsonMap("{\"padding\": {\"text\": \"" + padding + "\"}, \"count\": 3}");
+        Assertions.assertEquals(3, large.get("count"));
+        Assertions.assertNull(large.get("missing"));
+        Assertions.assertFalse(large.isParsed());
+        Assertions.assertEquals(Map.of("text", padding), large.get("padding"));
+        Assertions.assertTrue(large.isParsed());
+    }
+
+    /**
+     * The build generates the entity index and a mapper per entity, so neither scanning nor reflection is needed.
+     */
+    @Test
+    void entitiesHaveGeneratedMappers() {
+        Assertions.assertTrue(EntityIndex.load().entityClasses().contains(User.class));
+
+        GeneratedMapper<User> mapper = GeneratedMapper.find(User.class);
+        Assertions.assertNotNull(mapper);
+        UUID id = UUID.randomUUID();
+        User user = mapper.instantiate(new Object[]{id, "steve", "hash"});
+        Assertions.assertEquals(id, mapper.primaryKeyGetter().apply(user));
+        Assertions.assertEquals("steve", mapper.getter(1).apply(user));
+    }
+
+    private static QuerySpec pageAfter(Field username, Field id, String lastUsername, UUID lastId) {
+        QuerySpec spec = new QuerySpec();
+        spec.getFilters().add(new FilterCriterion<>(username, lastUsername.charAt(0) + "%", true));
+        spec.getFilters().add(new FilterCriterion<>(id, null, false));
+        spec.getOrderBy().add(new OrderBy(username, true));
+        spec.getOrderBy().add(new OrderBy(id, false));
+        spec.setAfter(lastUsername, lastId);
+        spec.setLimit(10);
+        return spec;
+    }
+}
@@ -29,7 +29,8 @@ CREATE TABLE server_instances
     allocated_ram_mb  INTEGER          DEFAULT 1024,
     port              INTEGER             NOT NULL CHECK (
         port BETWEEN 1023 AND 65535 AND port % 2 = 0
-        )
+        ),
+    version           BIGINT              NOT NULL DEFAULT 0 -- optimistic locking, see @Version
 );
 
 -- Server instance sessions
@@ -55,6 +56,7 @@ CREATE TABLE server_instance_properties
     value              TEXT NOT NULL,
     type               TEXT NOT NULL CHECK (type IN ('string', 'integer', 'boolean')),
     hidden             BOOLEAN          DEFAULT FALSE, -- whether to hide from API/UI etc.
+    version            BIGINT  NOT NULL DEFAULT 0,     -- optimistic locking, see @Version
 
     CONSTRAINT unique_key_per_instance UNIQUE (server_instance_id, key)
 );
@@ -116,6 +118,9 @@ CREATE TABLE user_action_logs
     CONSTRAINT fk_log_action_type FOREIGN KEY (action_type) REFERENCES action_types (name) ON DELETE CASCADE
 );
 
+-- Serves "latest N notifications of a user" (WHERE user_id = ? ORDER BY timestamp DESC LIMIT ?) from the index
+CREATE INDEX idx_user_action_logs_user_timestamp ON user_action_logs (user_id, timestamp DESC);
+
 -- Backup table
 CREATE TABLE backups
 (